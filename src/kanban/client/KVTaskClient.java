@@ -1,18 +1,55 @@
 package kanban.client;
 
+import kanban.util.KeyValueFrames;
+
+import java.io.BufferedInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringWriter;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
 
+/**
+ * Клиент KV сервера. Асинхронные методы отправляют запрос сразу и возвращают {@link CompletableFuture},
+ * поэтому несколько запросов идут одновременно. Одновременно выполняется не больше maxInFlight запросов:
+ * следующий асинхронный вызов ждёт, пока завершится один из них.
+ * Методы putAll и loadAll сохраняют и читают несколько ключей одним запросом к /save-batch и /load-batch
+ */
 public class KVTaskClient {
+
+    /**
+     * Количество одновременных запросов по умолчанию
+     */
+    public static final int DEFAULT_MAX_IN_FLIGHT = 16;
+
     protected URI url;
     protected String apiKey;
     protected HttpClient client = HttpClient.newHttpClient();
+    private final Semaphore inFlight;
 
     public KVTaskClient(String url) {
+        this(url, DEFAULT_MAX_IN_FLIGHT);
+    }
+
+    /**
+     * @param url         Адрес KV сервера
+     * @param maxInFlight Наибольшее количество одновременных запросов
+     */
+    public KVTaskClient(String url, int maxInFlight) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("Количество одновременных запросов должно быть положительным");
+        }
         this.url = URI.create(url);
+        this.inFlight = new Semaphore(maxInFlight);
         register();
     }
 
@@ -34,18 +71,10 @@ public class KVTaskClient {
             System.out.println("api ключ отсутствует");
             return;
         }
-        URI url = URI.create(this.url + "/save/" + key + "?API_TOKEN=" + apiKey);
-        HttpRequest.BodyPublisher body = HttpRequest.BodyPublishers.ofString(json);
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(url)
-                .POST(body)
-                .build();
-
         try {
-            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
-            System.out.println(response.statusCode());
-        } catch (IOException | InterruptedException e) {
-            e.printStackTrace();
+            putAsync(key, json).join();
+        } catch (CompletionException e) {
+            e.getCause().printStackTrace();
         }
     }
 
@@ -53,19 +82,211 @@ public class KVTaskClient {
         if (apiKey == null) {
             return "api ключ отсутствует";
         }
+        try {
+            return loadAsync(key).join();
+        } catch (CompletionException e) {
+            e.getCause().printStackTrace();
+        }
+        return "";
+    }
 
+    public void putAll(Map<String, String> values) {
+        if (apiKey == null) {
+            System.out.println("api ключ отсутствует");
+            return;
+        }
         try {
-            URI url = URI.create(this.url + "/load/" + key + "?API_TOKEN=" + apiKey);
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(url)
-                    .GET()
-                    .build();
-            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
-            System.out.println(response.statusCode());
+            putAllAsync(values).join();
+        } catch (CompletionException e) {
+            e.getCause().printStackTrace();
+        }
+    }
+
+    public Map<String, String> loadAll(Collection<String> keys) {
+        try {
+            return loadAllAsync(keys).join();
+        } catch (CompletionException e) {
+            e.getCause().printStackTrace();
+        }
+        return Map.of();
+    }
+
+    /**
+     * Сохранить значение, не дожидаясь ответа
+     *
+     * @param key  Ключ
+     * @param json Значение
+     * @return Завершается после ответа сервера, с {@link IOException} - если сервер не сохранил значение
+     */
+    public CompletableFuture<Void> putAsync(String key, String json) {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(this.url + "/save/" + key + "?API_TOKEN=" + apiKey))
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+        return send(request).thenApply(response -> {
+            if (response.statusCode() != 200) {
+                throw new CompletionException(
+                        new IOException("Сервер не сохранил ключ " + key + ": " + response.statusCode()));
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Загрузить значение, не дожидаясь ответа
+     *
+     * @param key Ключ
+     * @return Значение, пустая строка - если значения нет, с {@link IOException} - если сервер вернул ошибку
+     */
+    public CompletableFuture<String> loadAsync(String key) {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(this.url + "/load/" + key + "?API_TOKEN=" + apiKey))
+                .GET()
+                .build();
+        return send(request).thenApply(response -> {
+            if (response.statusCode() == 404) {
+                return "";
+            }
+            if (response.statusCode() != 200) {
+                throw new CompletionException(
+                        new IOException("Сервер не вернул ключ " + key + ": " + response.statusCode()));
+            }
             return response.body();
-        } catch (IOException | InterruptedException e) {
-            e.printStackTrace();
+        });
+    }
+
+    /**
+     * Сохранить несколько значений одним запросом, не дожидаясь ответа.
+     * Сервер сохраняет либо все значения, либо ни одного
+     *
+     * @param values Ключи и значения, null в значении - удалить ключ
+     * @return Завершается после ответа сервера, с {@link IOException} - если сервер не сохранил значения
+     */
+    public CompletableFuture<Void> putAllAsync(Map<String, String> values) {
+        if (values.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(this.url + "/save-batch?API_TOKEN=" + apiKey))
+                .POST(HttpRequest.BodyPublishers.ofByteArray(KeyValueFrames.write(values)))
+                .build();
+        return send(request, HttpResponse.BodyHandlers.ofString()).thenApply(response -> {
+            if (response.statusCode() != 200) {
+                throw new CompletionException(
+                        new IOException("Сервер не сохранил " + values.size() + " ключей: " + response.statusCode()));
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Загрузить значение потоком, не собирая его в строку, не дожидаясь ответа
+     *
+     * @param key Ключ
+     * @return Тело ответа в UTF-8, пустой поток - если значения нет, с {@link IOException} - если сервер вернул ошибку.
+     * Поток нужно закрыть после чтения
+     */
+    public CompletableFuture<InputStream> loadStreamAsync(String key) {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(this.url + "/load/" + key + "?API_TOKEN=" + apiKey))
+                .GET()
+                .build();
+        return send(request, HttpResponse.BodyHandlers.ofInputStream()).thenApply(response -> {
+            if (response.statusCode() == 200) {
+                return response.body();
+            }
+            closeQuietly(response.body());
+            if (response.statusCode() == 404) {
+                return InputStream.nullInputStream();
+            }
+            throw new CompletionException(
+                    new IOException("Сервер не вернул ключ " + key + ": " + response.statusCode()));
+        });
+    }
+
+    /**
+     * Загрузить несколько значений одним запросом, не дожидаясь ответа
+     *
+     * @param keys Ключи
+     * @return Значения в порядке ключей, пустая строка - если значения нет,
+     * с {@link IOException} - если сервер вернул ошибку
+     */
+    public CompletableFuture<Map<String, String>> loadAllAsync(Collection<String> keys) {
+        Map<String, String> values = new LinkedHashMap<>();
+        return loadAllAsync(keys, (key, value) -> values.put(key, value == null ? "" : readAll(value)))
+                .thenApply(ignored -> values);
+    }
+
+    /**
+     * Загрузить несколько значений одним запросом и передать их consumer по мере чтения ответа,
+     * не собирая ни ответ, ни значения в строки. consumer вызывается в потоке http клиента
+     *
+     * @param keys     Ключи
+     * @param consumer Получатель значений в порядке ключей, null - если значения нет
+     * @return Завершается, когда прочитан весь ответ, с {@link IOException} - если сервер вернул ошибку,
+     * или с исключением consumer
+     */
+    public CompletableFuture<Void> loadAllAsync(Collection<String> keys, KeyValueFrames.ValueConsumer consumer) {
+        Map<String, String> request = new LinkedHashMap<>();
+        for (String key : keys) {
+            request.put(key, null);
+        }
+        if (request.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        HttpRequest httpRequest = HttpRequest.newBuilder()
+                .uri(URI.create(this.url + "/load-batch?API_TOKEN=" + apiKey))
+                .POST(HttpRequest.BodyPublishers.ofByteArray(KeyValueFrames.write(request)))
+                .build();
+        return send(httpRequest, HttpResponse.BodyHandlers.ofInputStream()).thenApply(response -> {
+            try (InputStream body = new BufferedInputStream(response.body())) {
+                if (response.statusCode() != 200) {
+                    throw new IOException("Сервер не вернул " + request.size() + " ключей: " + response.statusCode());
+                }
+                KeyValueFrames.read(body, consumer);
+                return null;
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        });
+    }
+
+    private static String readAll(Reader value) throws IOException {
+        StringWriter text = new StringWriter();
+        value.transferTo(text);
+        return text.toString();
+    }
+
+    private static void closeQuietly(InputStream body) {
+        try {
+            body.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    private CompletableFuture<HttpResponse<String>> send(HttpRequest request) {
+        return send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    /**
+     * Отправить запрос, дождавшись места среди одновременных запросов
+     */
+    private <T> CompletableFuture<HttpResponse<T>> send(HttpRequest request, HttpResponse.BodyHandler<T> handler) {
+        if (apiKey == null) {
+            return CompletableFuture.failedFuture(new IllegalStateException("api ключ отсутствует"));
+        }
+        try {
+            inFlight.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(e);
+        }
+        try {
+            return client.sendAsync(request, handler)
+                    .whenComplete((response, error) -> inFlight.release());
+        } catch (RuntimeException e) {
+            inFlight.release();
+            throw e;
         }
-        return "";
     }
 }
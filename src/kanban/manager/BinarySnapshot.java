@@ -0,0 +1,235 @@
+package kanban.manager;
+
+import kanban.models.Epic;
+import kanban.models.Subtask;
+import kanban.models.Task;
+import kanban.models.TaskStatus;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Двоичный формат снимка состояния.
+ * <pre>
+ * заголовок:     4 байта "KNBN", 1 байт версии
+ * таблица строк: varint количество, для каждой строки varint длина и байты UTF-8
+ * задачи, эпики, подзадачи: varint количество, для каждой записи
+ *                varint id, varint номер названия, varint номер описания, 1 байт статуса,
+ *                8 байт времени начала в мс ({@link Long#MIN_VALUE} - нет времени), zigzag varint длительность,
+ *                у подзадач ещё varint id эпика
+ * история:       varint количество, varint id в порядке просмотра
+ * </pre>
+ * Одинаковые названия и описания хранятся в таблице строк один раз. Статус хранится номером константы
+ * {@link TaskStatus}, поэтому порядок констант - часть формата
+ */
+final class BinarySnapshot {
+
+    static final int VERSION = 1;
+
+    private static final byte[] MAGIC = {'K', 'N', 'B', 'N'};
+    private static final long NO_START_TIME = Long.MIN_VALUE;
+    private static final TaskStatus[] STATUSES = TaskStatus.values();
+
+    private BinarySnapshot() {
+    }
+
+    /**
+     * Проверить, записан ли файл в двоичном формате
+     *
+     * @param path Путь к файлу
+     * @return true - если файл начинается с заголовка формата
+     */
+    static boolean isBinary(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return false;
+        }
+        try (InputStream in = Files.newInputStream(path)) {
+            return Arrays.equals(in.readNBytes(MAGIC.length), MAGIC);
+        }
+    }
+
+    /**
+     * Записать снимок
+     *
+     * @param out      Поток, в который пишется снимок
+     * @param tasks    Задачи
+     * @param epics    Эпики
+     * @param subtasks Подзадачи
+     * @param history  Id задач в истории просмотров
+     */
+    static void write(OutputStream out,
+                      Collection<? extends Task> tasks,
+                      Collection<? extends Task> epics,
+                      Collection<? extends Task> subtasks,
+                      int[] history) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.write(MAGIC);
+        data.writeByte(VERSION);
+
+        Map<String, Integer> strings = new HashMap<>();
+        List<Collection<? extends Task>> sections = List.of(tasks, epics, subtasks);
+        List<String> table = new ArrayList<>();
+        for (Collection<? extends Task> section : sections) {
+            for (Task task : section) {
+                intern(strings, table, task.getName());
+                intern(strings, table, task.getDescription());
+            }
+        }
+        writeVarInt(data, table.size());
+        for (String string : table) {
+            byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(data, bytes.length);
+            data.write(bytes);
+        }
+
+        for (Collection<? extends Task> section : sections) {
+            writeVarInt(data, section.size());
+            for (Task task : section) {
+                writeVarInt(data, task.getId());
+                writeVarInt(data, strings.get(nonNull(task.getName())));
+                writeVarInt(data, strings.get(nonNull(task.getDescription())));
+                data.writeByte(task.getStatus().ordinal());
+                data.writeLong(task.getStartTime() == null ? NO_START_TIME : task.getStartTime().toEpochMilli());
+                writeVarLong(data, zigzag(task.getDuration()));
+                if (task instanceof Subtask) {
+                    writeVarInt(data, ((Subtask) task).getEpicId());
+                }
+            }
+        }
+
+        writeVarInt(data, history.length);
+        for (int id : history) {
+            writeVarInt(data, id);
+        }
+        data.flush();
+    }
+
+    /**
+     * Прочитать снимок, передавая задачи по одной в порядке записи
+     *
+     * @param in       Поток со снимком
+     * @param tasks    Получатель задач
+     * @param epics    Получатель эпиков
+     * @param subtasks Получатель подзадач
+     * @param history  Получатель id из истории просмотров
+     * @throws ManagerSaveException если файл не в двоичном формате или записан неизвестной версией
+     */
+    static void read(InputStream in,
+                     Consumer<Task> tasks,
+                     Consumer<Epic> epics,
+                     Consumer<Subtask> subtasks,
+                     IntConsumer history) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        byte[] magic = data.readNBytes(MAGIC.length);
+        if (!Arrays.equals(magic, MAGIC)) {
+            throw new ManagerSaveException("Файл не является двоичным снимком");
+        }
+        int version = data.readUnsignedByte();
+        if (version != VERSION) {
+            throw new ManagerSaveException("Неизвестная версия двоичного снимка: " + version);
+        }
+
+        String[] table = new String[readVarInt(data)];
+        for (int i = 0; i < table.length; i++) {
+            byte[] bytes = new byte[readVarInt(data)];
+            data.readFully(bytes);
+            table[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        readSection(data, table, Task::new, tasks);
+        readSection(data, table, Epic::new, epics);
+        readSection(data, table, Subtask::new, subtasks);
+
+        int historySize = readVarInt(data);
+        for (int i = 0; i < historySize; i++) {
+            history.accept(readVarInt(data));
+        }
+    }
+
+    private static <T extends Task> void readSection(DataInputStream data, String[] table,
+                                                     Supplier<T> factory, Consumer<T> sink) throws IOException {
+        int count = readVarInt(data);
+        for (int i = 0; i < count; i++) {
+            T task = factory.get();
+            task.setId(readVarInt(data));
+            task.setName(table[readVarInt(data)]);
+            task.setDescription(table[readVarInt(data)]);
+            task.setStatus(STATUSES[data.readUnsignedByte()]);
+            long startTime = data.readLong();
+            task.setStartTime(startTime == NO_START_TIME ? null : Instant.ofEpochMilli(startTime));
+            task.setDuration(unzigzag(readVarLong(data)));
+            if (task instanceof Subtask) {
+                ((Subtask) task).setEpicId(readVarInt(data));
+            }
+            sink.accept(task);
+        }
+    }
+
+    private static void intern(Map<String, Integer> strings, List<String> table, String value) {
+        String key = nonNull(value);
+        if (!strings.containsKey(key)) {
+            strings.put(key, table.size());
+            table.add(key);
+        }
+    }
+
+    private static String nonNull(String value) {
+        return value == null ? "" : value;
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeVarInt(DataOutputStream data, int value) throws IOException {
+        writeVarLong(data, value & 0xFFFFFFFFL);
+    }
+
+    private static void writeVarLong(DataOutputStream data, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            data.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        data.writeByte((int) value);
+    }
+
+    private static int readVarInt(DataInputStream data) throws IOException {
+        return (int) readVarLong(data);
+    }
+
+    private static long readVarLong(DataInputStream data) throws IOException {
+        long result = 0;
+        for (int shift = 0; shift < Long.SIZE; shift += 7) {
+            int b = data.read();
+            if (b < 0) {
+                throw new EOFException("Двоичный снимок оборван");
+            }
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new ManagerSaveException("Слишком длинное число в двоичном снимке");
+    }
+}
@@ -0,0 +1,341 @@
+package kanban.manager;
+
+import kanban.models.Epic;
+import kanban.models.Subtask;
+import kanban.models.Task;
+import kanban.models.TaskStatus;
+import kanban.models.TaskType;
+import kanban.util.SlotMapView;
+
+import java.time.Instant;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Потокобезопасная обёртка над менеджером задач.
+ * Изменения выполняются под блокировкой записи, чтение списков - под общей блокировкой чтения,
+ * чтение простых значений - оптимистично, без блокировки.
+ * Получение задачи по id меняет историю просмотров, поэтому тоже выполняется под блокировкой записи.
+ * После каждой записи публикуется новый снимок состояния, который читается вообще без блокировок
+ */
+public class ConcurrentTaskManager implements TaskManager {
+
+    private final TaskManager taskManager;
+    private final StampedLock lock = new StampedLock();
+    private volatile TaskManagerSnapshot snapshot;
+
+    public ConcurrentTaskManager(TaskManager taskManager) {
+        this.taskManager = taskManager;
+        this.snapshot = taskManager.getSnapshot();
+    }
+
+    /**
+     * Получить обёрнутый менеджер. Обращаться к нему напрямую из нескольких потоков нельзя
+     *
+     * @return Менеджер задач
+     */
+    public TaskManager getTaskManager() {
+        return taskManager;
+    }
+
+    @Override
+    public int addEpic(Epic epic) {
+        return write(() -> taskManager.addEpic(epic));
+    }
+
+    @Override
+    public boolean updateEpic(Epic epic) {
+        return write(() -> taskManager.updateEpic(epic));
+    }
+
+    @Override
+    public boolean deleteEpicById(int epicId) {
+        return write(() -> taskManager.deleteEpicById(epicId));
+    }
+
+    @Override
+    public void clearEpics() {
+        write(taskManager::clearEpics);
+    }
+
+    @Override
+    public Epic getEpicById(int epicId) {
+        return write(() -> taskManager.getEpicById(epicId));
+    }
+
+    @Override
+    public boolean clearSubtasksInEpic(int epicId) {
+        return write(() -> taskManager.clearSubtasksInEpic(epicId));
+    }
+
+    @Override
+    public List<Subtask> getSubtasksByEpic(int epicId) {
+        return read(() -> taskManager.getSubtasksByEpic(epicId));
+    }
+
+    @Override
+    public int addSubtaskToEpic(Subtask subtask) {
+        return write(() -> taskManager.addSubtaskToEpic(subtask));
+    }
+
+    @Override
+    public boolean updateSubtask(Subtask subtask) {
+        return write(() -> taskManager.updateSubtask(subtask));
+    }
+
+    @Override
+    public boolean deleteSubtaskById(int subtaskId) {
+        return write(() -> taskManager.deleteSubtaskById(subtaskId));
+    }
+
+    @Override
+    public void clearSubtasks() {
+        write(taskManager::clearSubtasks);
+    }
+
+    @Override
+    public Subtask getSubtaskById(int subtaskId) {
+        return write(() -> taskManager.getSubtaskById(subtaskId));
+    }
+
+    @Override
+    public int addTask(Task task) {
+        return write(() -> taskManager.addTask(task));
+    }
+
+    @Override
+    public boolean updateTask(Task task) {
+        return write(() -> taskManager.updateTask(task));
+    }
+
+    @Override
+    public boolean deleteTask(int taskId) {
+        return write(() -> taskManager.deleteTask(taskId));
+    }
+
+    @Override
+    public void clearTasks() {
+        write(taskManager::clearTasks);
+    }
+
+    @Override
+    public Task getTaskById(int taskId) {
+        return write(() -> taskManager.getTaskById(taskId));
+    }
+
+    @Override
+    public List<Task> getTasksByStatus(TaskStatus status) {
+        return read(() -> taskManager.getTasksByStatus(status));
+    }
+
+    @Override
+    public List<Epic> getEpicsByStatus(TaskStatus status) {
+        return read(() -> taskManager.getEpicsByStatus(status));
+    }
+
+    @Override
+    public List<Subtask> getSubtasksByStatus(TaskStatus status) {
+        return read(() -> taskManager.getSubtasksByStatus(status));
+    }
+
+    @Override
+    public int countByStatus(TaskType type, TaskStatus status) {
+        return read(() -> taskManager.countByStatus(type, status));
+    }
+
+    @Override
+    public List<Subtask> getSubtasksByEpicAndStatus(int epicId, TaskStatus status) {
+        return read(() -> taskManager.getSubtasksByEpicAndStatus(epicId, status));
+    }
+
+    @Override
+    public int countSubtasksByEpicAndStatus(int epicId, TaskStatus status) {
+        return read(() -> taskManager.countSubtasksByEpicAndStatus(epicId, status));
+    }
+
+    @Override
+    public List<Integer> applyBatch(TaskBatch batch) {
+        return write(() -> taskManager.applyBatch(batch));
+    }
+
+    @Override
+    public List<Epic> getEpics() {
+        return read(taskManager::getEpics);
+    }
+
+    @Override
+    public List<Subtask> getSubtasks() {
+        return read(taskManager::getSubtasks);
+    }
+
+    @Override
+    public List<Task> getTasks() {
+        return read(taskManager::getTasks);
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        return read(taskManager::getHistory);
+    }
+
+    /**
+     * Получить задачи в порядке приоритета из последнего опубликованного снимка.
+     * Блокировка не берётся, а список собирается один раз на снимок, поэтому чтение не задерживает запись
+     * и повторные чтения без изменений ничего не копируют. Последующие изменения в результат не попадают
+     *
+     * @return Задачи в порядке приоритета
+     */
+    @Override
+    public Set<Task> getPrioritizedTasks() {
+        return new ListSet<>(snapshot.getPrioritizedTasks());
+    }
+
+    /**
+     * Получить последний опубликованный снимок. Не ждёт завершения текущей записи
+     *
+     * @return Снимок состояния
+     */
+    @Override
+    public TaskManagerSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks(Instant from, Instant to) {
+        return read(() -> taskManager.getPrioritizedTasks(from, to));
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasksAfter(Instant startTime, int id, int limit) {
+        return read(() -> taskManager.getPrioritizedTasksAfter(startTime, id, limit));
+    }
+
+    @Override
+    public int countPrioritizedTasks(Instant from, Instant to) {
+        return read(() -> taskManager.countPrioritizedTasks(from, to));
+    }
+
+    @Override
+    public void printPrioritizedTasks() {
+        getPrioritizedTasks().forEach(System.out::println);
+    }
+
+    /**
+     * Получить представление сетки интервалов, каждое обращение к которому выполняется под блокировкой чтения
+     *
+     * @return Таблица интервалов
+     */
+    @Override
+    public Map<Long, Boolean> getGridWithIntervals() {
+        int size = read(() -> taskManager.getGridWithIntervals().size());
+        return new SlotMapView(size, this::isTimeSlotFree);
+    }
+
+    @Override
+    public boolean isTimeSlotFree(long slot) {
+        return read(() -> taskManager.isTimeSlotFree(slot));
+    }
+
+    @Override
+    public long getProgramStartTime() {
+        return optimisticRead(taskManager::getProgramStartTime);
+    }
+
+    @Override
+    public void setLastId(int lastId) {
+        write(() -> taskManager.setLastId(lastId));
+    }
+
+    @Override
+    public int getLastId() {
+        return optimisticRead(taskManager::getLastId);
+    }
+
+    private <T> T write(Supplier<T> action) {
+        long stamp = lock.writeLock();
+        try {
+            return action.get();
+        } finally {
+            publishAndUnlock(stamp);
+        }
+    }
+
+    private void write(Runnable action) {
+        long stamp = lock.writeLock();
+        try {
+            action.run();
+        } finally {
+            publishAndUnlock(stamp);
+        }
+    }
+
+    /**
+     * Опубликовать снимок состояния после записи и снять блокировку записи
+     */
+    private void publishAndUnlock(long stamp) {
+        try {
+            snapshot = taskManager.getSnapshot();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private <T> T read(Supplier<T> action) {
+        long stamp = lock.readLock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Прочитать значение без блокировки. Если за время чтения была запись, значение читается повторно
+     * под блокировкой чтения
+     */
+    private int optimisticRead(IntSupplier action) {
+        long stamp = lock.tryOptimisticRead();
+        int value = action.getAsInt();
+        if (lock.validate(stamp)) {
+            return value;
+        }
+        return read(action::getAsInt);
+    }
+
+    private long optimisticRead(LongSupplier action) {
+        long stamp = lock.tryOptimisticRead();
+        long value = action.getAsLong();
+        if (lock.validate(stamp)) {
+            return value;
+        }
+        return read(action::getAsLong);
+    }
+
+    /**
+     * Множество только для чтения поверх списка без повторов
+     */
+    private static final class ListSet<E> extends AbstractSet<E> {
+        private final List<E> list;
+
+        private ListSet(List<E> list) {
+            this.list = list;
+        }
+
+        @Override
+        public Iterator<E> iterator() {
+            return list.iterator();
+        }
+
+        @Override
+        public int size() {
+            return list.size();
+        }
+    }
+}
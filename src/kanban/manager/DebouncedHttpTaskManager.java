@@ -0,0 +1,247 @@
+package kanban.manager;
+
+import kanban.client.KVTaskClient;
+import kanban.models.Task;
+import kanban.util.IntHashSet;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Менеджер задач на KV сервере с отложенной синхронизацией. Изменение только запоминает снимок состояния,
+ * а фоновый поток отправляет на сервер последнее состояние не раньше, чем через окно после первого
+ * несинхронизированного изменения. Все изменения внутри окна отправляются одной синхронизацией,
+ * одновременно идёт не больше одной синхронизации, поэтому запросы к серверу зависят от времени, а не от числа изменений.
+ * {@link #flush()} дожидается отправки всех сделанных изменений.
+ * Перед завершением работы нужно вызвать {@link #close()}, иначе последние изменения могут не попасть на сервер
+ */
+public class DebouncedHttpTaskManager extends HttpTaskManager implements AutoCloseable {
+
+    public static final long DEFAULT_WINDOW_MILLIS = 100;
+
+    /**
+     * Пауза перед повтором синхронизации, которая завершилась ошибкой
+     */
+    private static final long RETRY_DELAY_MILLIS = 1_000;
+
+    private final long windowNanos;
+    private final Thread syncer;
+
+    /**
+     * Монитор, под которым передаются изменения между потоками
+     */
+    private final Object monitor = new Object();
+
+    /**
+     * Id задач, изменённых после последней синхронизации, и последнее состояние
+     */
+    private IntHashSet pendingIds = new IntHashSet();
+    private TaskManagerSnapshot pendingSnapshot;
+    private HistorySnapshot pendingHistory;
+
+    /**
+     * Номер последнего изменения
+     */
+    private long markedVersion;
+
+    /**
+     * Номер последнего отправленного изменения
+     */
+    private long syncedVersion;
+
+    /**
+     * Номер изменения, которое ждёт {@link #flush()}
+     */
+    private long requestedVersion;
+    private boolean closed;
+
+    /**
+     * Ошибка последней синхронизации, сбрасывается следующей успешной
+     */
+    private ManagerSaveException failure;
+
+    /**
+     * @param url          Адрес KV сервера
+     * @param windowMillis Окно, изменения внутри которого отправляются одной синхронизацией
+     */
+    public DebouncedHttpTaskManager(String url, long windowMillis) {
+        this(new KVTaskClient(url), windowMillis);
+    }
+
+    protected DebouncedHttpTaskManager(KVTaskClient client, long windowMillis) {
+        super(client);
+        if (windowMillis < 0) {
+            throw new IllegalArgumentException("Окно синхронизации не может быть отрицательным");
+        }
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+        this.syncer = new Thread(this::runSyncer, "kv-sync");
+        this.syncer.setDaemon(true);
+        this.syncer.start();
+    }
+
+    /**
+     * Запомнить текущее состояние для фоновой синхронизации. Снимок строится только по изменённым задачам,
+     * поэтому вызов не зависит от размера доски и не обращается к серверу
+     */
+    @Override
+    protected void save() {
+        IntHashSet ids = drainUnsyncedIds();
+        TaskManagerSnapshot snapshot = getSnapshot();
+        HistorySnapshot history = inMemoryHistoryManager.getSnapshot();
+        synchronized (monitor) {
+            if (!closed) {
+                pendingIds.addAll(ids);
+                pendingSnapshot = snapshot;
+                pendingHistory = history;
+                markedVersion++;
+                monitor.notifyAll();
+                return;
+            }
+        }
+        sync(ids, snapshot, history);
+    }
+
+    /**
+     * Просмотр меняет историю, которая отправляется вместе с изменениями
+     */
+    @Override
+    protected void afterView(Task task) {
+        if (task != null) {
+            save();
+        }
+    }
+
+    /**
+     * Дождаться отправки на сервер всех изменений, сделанных до вызова
+     *
+     * @throws ManagerSaveException если последняя синхронизация завершилась ошибкой
+     */
+    public void flush() {
+        synchronized (monitor) {
+            long target = markedVersion;
+            requestedVersion = Math.max(requestedVersion, target);
+            monitor.notifyAll();
+            while (syncedVersion < target && failure == null && syncer.isAlive()) {
+                try {
+                    monitor.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new ManagerSaveException("Ожидание синхронизации прервано");
+                }
+            }
+            throwFailure();
+        }
+    }
+
+    /**
+     * Отправить все изменения и остановить фоновый поток.
+     * Изменения после закрытия отправляются сразу в вызывающем потоке
+     *
+     * @throws ManagerSaveException если последняя синхронизация завершилась ошибкой
+     */
+    @Override
+    public void close() {
+        synchronized (monitor) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            monitor.notifyAll();
+        }
+        try {
+            syncer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ManagerSaveException("Ожидание синхронизации прервано");
+        }
+        synchronized (monitor) {
+            throwFailure();
+        }
+    }
+
+    private void throwFailure() {
+        if (failure != null) {
+            ManagerSaveException exception = failure;
+            failure = null;
+            throw exception;
+        }
+    }
+
+    private void runSyncer() {
+        while (true) {
+            IntHashSet ids;
+            TaskManagerSnapshot snapshot;
+            HistorySnapshot history;
+            long version;
+            synchronized (monitor) {
+                try {
+                    if (!awaitWork()) {
+                        return;
+                    }
+                } catch (InterruptedException e) {
+                    return;
+                }
+                ids = pendingIds;
+                snapshot = pendingSnapshot;
+                history = pendingHistory;
+                version = markedVersion;
+                pendingIds = new IntHashSet();
+                pendingSnapshot = null;
+            }
+
+            ManagerSaveException error = null;
+            try {
+                sync(ids, snapshot, history);
+            } catch (ManagerSaveException e) {
+                error = e;
+            }
+
+            synchronized (monitor) {
+                if (error != null) {
+                    failure = error;
+                    pendingIds.addAll(ids);
+                    if (pendingSnapshot == null) {
+                        pendingSnapshot = snapshot;
+                        pendingHistory = history;
+                    }
+                    monitor.notifyAll();
+                    if (closed) {
+                        return;
+                    }
+                    try {
+                        monitor.wait(RETRY_DELAY_MILLIS);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                } else {
+                    syncedVersion = Math.max(syncedVersion, version);
+                    failure = null;
+                }
+                monitor.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Ждать, пока не закончится окно после первого изменения или кто-то не вызовет {@link #flush()}.
+     * Вызывается под монитором
+     *
+     * @return false - если менеджер закрыт и отправлять больше нечего
+     */
+    private boolean awaitWork() throws InterruptedException {
+        long dirtySince = System.nanoTime();
+        while (true) {
+            if (pendingSnapshot != null) {
+                long left = windowNanos - (System.nanoTime() - dirtySince);
+                if (closed || requestedVersion > syncedVersion || left <= 0) {
+                    return true;
+                }
+                TimeUnit.NANOSECONDS.timedWait(monitor, left);
+            } else if (closed) {
+                return false;
+            } else {
+                monitor.wait();
+                dirtySince = System.nanoTime();
+            }
+        }
+    }
+}
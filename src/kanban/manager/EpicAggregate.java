@@ -0,0 +1,215 @@
+package kanban.manager;
+
+import kanban.models.Epic;
+import kanban.models.Subtask;
+import kanban.models.SubtasksStatus;
+import kanban.models.TaskStatus;
+import kanban.util.IntHashMap;
+import kanban.util.IntHashSet;
+
+import java.time.Instant;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Агрегированные данные подзадач {@link Epic}: id подзадач по статусам,
+ * суммарная продолжительность, самое раннее начало и самый поздний конец невыполненных подзадач.
+ * Обновляется за O(log k) при каждом изменении подзадачи
+ */
+public class EpicAggregate {
+
+    /**
+     * Вклад подзадачи в агрегат на момент её добавления
+     */
+    private static final class Contribution {
+        private final TaskStatus status;
+        private final long duration;
+        private final Instant startTime;
+        private final Instant endTime;
+
+        private Contribution(Subtask subtask) {
+            this.status = subtask.getStatus() == null ? TaskStatus.NEW : subtask.getStatus();
+            this.duration = subtask.getDuration();
+            this.startTime = subtask.getStartTime();
+            this.endTime = subtask.getEndTime();
+        }
+    }
+
+    private final IntHashMap<Contribution> contributions = new IntHashMap<>();
+    private final IntHashSet[] subtaskIdsByStatus = new IntHashSet[TaskStatus.values().length];
+    private long durationSum;
+
+    /**
+     * Начала невыполненных подзадач с количеством повторений
+     */
+    private final NavigableMap<Instant, Integer> startTimes = new TreeMap<>();
+
+    /**
+     * Концы невыполненных подзадач с количеством повторений
+     */
+    private final NavigableMap<Instant, Integer> endTimes = new TreeMap<>();
+
+    public EpicAggregate() {
+        for (int i = 0; i < subtaskIdsByStatus.length; i++) {
+            subtaskIdsByStatus[i] = new IntHashSet();
+        }
+    }
+
+    /**
+     * Добавить подзадачу в агрегат. Если подзадача уже учтена, её вклад заменяется
+     *
+     * @param subtask Подзадача
+     */
+    public void add(Subtask subtask) {
+        Contribution contribution = new Contribution(subtask);
+        Contribution previous = contributions.put(subtask.getId(), contribution);
+        if (previous != null) {
+            unapply(previous);
+            subtaskIdsByStatus[previous.status.ordinal()].removeInt(subtask.getId());
+        }
+        apply(contribution);
+        subtaskIdsByStatus[contribution.status.ordinal()].add(subtask.getId());
+    }
+
+    /**
+     * Удалить подзадачу из агрегата
+     *
+     * @param subtaskId Id подзадачи
+     */
+    public void remove(int subtaskId) {
+        Contribution previous = contributions.remove(subtaskId);
+        if (previous != null) {
+            unapply(previous);
+            subtaskIdsByStatus[previous.status.ordinal()].removeInt(subtaskId);
+        }
+    }
+
+    /**
+     * Удалить все подзадачи из агрегата
+     */
+    public void clear() {
+        contributions.clear();
+        for (IntHashSet ids : subtaskIdsByStatus) {
+            ids.clear();
+        }
+        durationSum = 0;
+        startTimes.clear();
+        endTimes.clear();
+    }
+
+    /**
+     * Получить количество подзадач
+     *
+     * @return Количество подзадач
+     */
+    public int size() {
+        return contributions.size();
+    }
+
+    /**
+     * Получить количество подзадач с указанным статусом
+     *
+     * @param status Статус
+     * @return Количество подзадач
+     */
+    public int count(TaskStatus status) {
+        return subtaskIdsByStatus[status.ordinal()].size();
+    }
+
+    /**
+     * Получить id подзадач с указанным статусом. Множество нельзя изменять
+     *
+     * @param status Статус
+     * @return Множество id
+     */
+    public IntHashSet getSubtaskIds(TaskStatus status) {
+        return subtaskIdsByStatus[status.ordinal()];
+    }
+
+    /**
+     * Проверка статусов всех подзадач
+     *
+     * @return Статус
+     */
+    public SubtasksStatus getSubtasksStatus() {
+        int subtaskCount = size();
+        int subtaskDoneCount = count(TaskStatus.DONE);
+        int subtaskInProgressCount = count(TaskStatus.IN_PROGRESS);
+
+        if (subtaskCount == 0) {
+            return SubtasksStatus.NONE_SUBTASKS_DONE_OR_IN_PROGRESS;
+        }
+        if (subtaskDoneCount == subtaskCount) {
+            return SubtasksStatus.SUBTASKS_DONE;
+        } else if (subtaskInProgressCount >= 1 || subtaskDoneCount >= 1) {
+            return SubtasksStatus.ONE_IN_PROGRESS;
+        } else {
+            return SubtasksStatus.NONE_SUBTASKS_DONE_OR_IN_PROGRESS;
+        }
+    }
+
+    /**
+     * Получить суммарную продолжительность подзадач
+     *
+     * @return Продолжительность в минутах
+     */
+    public long getDuration() {
+        return durationSum;
+    }
+
+    /**
+     * Получить самое раннее начало невыполненных подзадач
+     *
+     * @return Время начала, null - если таких подзадач нет
+     */
+    public Instant getStartTime() {
+        return startTimes.isEmpty() ? null : startTimes.firstKey();
+    }
+
+    /**
+     * Получить самый поздний конец невыполненных подзадач
+     *
+     * @return Время конца, null - если таких подзадач нет
+     */
+    public Instant getEndTime() {
+        return endTimes.isEmpty() ? null : endTimes.lastKey();
+    }
+
+    private void apply(Contribution contribution) {
+        durationSum += contribution.duration;
+        if (contribution.status != TaskStatus.DONE) {
+            increment(startTimes, contribution.startTime);
+            increment(endTimes, contribution.endTime);
+        }
+    }
+
+    private void unapply(Contribution contribution) {
+        durationSum -= contribution.duration;
+        if (contribution.status != TaskStatus.DONE) {
+            decrement(startTimes, contribution.startTime);
+            decrement(endTimes, contribution.endTime);
+        }
+    }
+
+    private static void increment(NavigableMap<Instant, Integer> multiset, Instant instant) {
+        if (instant != null) {
+            multiset.merge(instant, 1, Integer::sum);
+        }
+    }
+
+    private static void decrement(NavigableMap<Instant, Integer> multiset, Instant instant) {
+        if (instant != null) {
+            multiset.computeIfPresent(instant, (key, count) -> count == 1 ? null : count - 1);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "EpicAggregate{"
+                + "size=" + size()
+                + ", durationSum=" + durationSum
+                + ", startTime=" + getStartTime()
+                + ", endTime=" + getEndTime()
+                + '}';
+    }
+}
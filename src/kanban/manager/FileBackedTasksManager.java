@@ -4,24 +4,81 @@ import kanban.models.Epic;
 import kanban.models.Subtask;
 import kanban.models.Task;
 import kanban.models.TaskType;
+import kanban.util.CsvRow;
+import kanban.util.CsvWriter;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.io.Writer;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 public class FileBackedTasksManager extends InMemoryTaskManager {
 
     private final Path path;
 
-    private FileBackedTasksManager(String path) {
+    /**
+     * Минимальное количество записей журнала просмотров, после которого он переписывается заново
+     */
+    private static final int HISTORY_LOG_COMPACT_MIN = 1_000;
+
+    private static final TaskType[] TASK_TYPES = TaskType.values();
+
+    /**
+     * Количество строк снимка, которые разбираются одной задачей пула
+     */
+    private static final int LOAD_CHUNK_LINES = 4_096;
+
+    /**
+     * Глубина вложенности наборов изменений, пока она больше нуля сохранение откладывается
+     */
+    private int batchDepth;
+
+    /**
+     * Набор изменений что-то изменил, и после него нужно сохранение
+     */
+    private boolean batchChanged;
+
+    /**
+     * Количество записей журнала просмотров после последнего сохранения
+     */
+    private int historyLogSize;
+
+    /**
+     * Количество записей журнала просмотров, при котором он переписывается заново
+     */
+    private int historyLogLimit = HISTORY_LOG_COMPACT_MIN;
+
+    /**
+     * Формат, в котором сохраняется снимок
+     */
+    private SnapshotFormat format = SnapshotFormat.CSV;
+
+    /**
+     * Буфер, через который пишется каждый csv снимок
+     */
+    private final CsvWriter csvWriter = new CsvWriter();
+
+    protected FileBackedTasksManager(String path) {
         this.path = Paths.get(path);
         try {
             if (!Files.exists(this.path)) {
@@ -44,202 +101,525 @@ public class FileBackedTasksManager extends InMemoryTaskManager {
      */
     public static TaskManager loadFromFile(File file) {
         FileBackedTasksManager tasksManager = new FileBackedTasksManager(file.getAbsolutePath());
+        tasksManager.restore();
+        return tasksManager;
+    }
+
+    /**
+     * Заполнение менеджера данными из файла в любом формате. Дальше данные сохраняются в указанном формате
+     *
+     * @param file   Путь к файлу
+     * @param format Формат сохранения
+     * @return Объект менеджера {@link TaskManager}
+     */
+    public static TaskManager loadFromFile(File file, SnapshotFormat format) {
+        FileBackedTasksManager tasksManager = new FileBackedTasksManager(file.getAbsolutePath());
+        tasksManager.restore();
+        tasksManager.format = format;
+        return tasksManager;
+    }
+
+    /**
+     * Переписать снимок в другом формате. Исходный файл вместе с журналами не меняется
+     *
+     * @param source Исходный файл в любом формате
+     * @param target Файл, в который записывается снимок
+     * @param format Формат записи
+     */
+    public static void convert(File source, File target, SnapshotFormat format) {
+        FileBackedTasksManager sourceManager = new FileBackedTasksManager(source.getAbsolutePath());
+        sourceManager.restore();
+        FileBackedTasksManager targetManager = new FileBackedTasksManager(target.getAbsolutePath());
+        targetManager.format = format;
+        targetManager.writeSnapshot(sourceManager.getTasks(), sourceManager.getEpics(), sourceManager.getSubtasks(),
+                historyIds(sourceManager.inMemoryHistoryManager), true);
+    }
+
+    /**
+     * @return Формат, в котором сохраняется снимок. После загрузки совпадает с форматом файла
+     */
+    public SnapshotFormat getFormat() {
+        return format;
+    }
 
+    /**
+     * Восстановить состояние: прочитать снимок из файла и применить к нему журнал изменений, если он есть
+     */
+    protected void restore() {
         try {
-            String[] lines = Files.readString(tasksManager.getPath()).split("\n");
-            if (lines.length < 1) {
-                return tasksManager;
+            Set<Integer> history = new LinkedHashSet<>();
+            CsvRow row = new CsvRow();
+
+            readSnapshot(history);
+            for (String record : TaskJournal.read(TaskJournal.pathOf(path))) {
+                applyJournalRecord(record, row);
+            }
+            for (String record : TaskJournal.read(TaskJournal.historyPathOf(path))) {
+                int viewedId = Integer.parseInt(record);
+                history.remove(viewedId);
+                history.add(viewedId);
+                historyLogSize++;
             }
 
-            String historyLine = lines[lines.length - 1];
-            var history = historyFromString(historyLine);
-            int maxId = 0;
+            for (int his : history) {
+                if (tasks.get(his) != null) {
+                    inMemoryHistoryManager.add(tasks.get(his));
+                } else if (epics.get(his) != null) {
+                    inMemoryHistoryManager.add(epics.get(his));
+                } else if (subtasks.get(his) != null) {
+                    inMemoryHistoryManager.add(subtasks.get(his));
+                }
+            }
+            rebuildIndexes();
+        } catch (IOException e) {
+            throw new ManagerSaveException(e.getMessage());
+        }
+    }
 
-            for (int i = 1; i < lines.length - 2; i++) {
-                String[] data = lines[i].split(",");
+    /**
+     * Прочитать снимок из файла в любом формате
+     *
+     * @param history История просмотров, в которую добавляются id из снимка
+     */
+    protected void readSnapshot(Set<Integer> history) throws IOException {
+        if (BinarySnapshot.isBinary(path)) {
+            format = SnapshotFormat.BINARY;
+            try (InputStream in = new BufferedInputStream(Files.newInputStream(path))) {
+                BinarySnapshot.read(in, this::restoreTask, this::restoreEpic, this::restoreSubtask, history::add);
+            }
+        } else {
+            format = SnapshotFormat.CSV;
+            try (BufferedReader reader = Files.newBufferedReader(path)) {
+                readCsv(reader, history);
+            }
+        }
+    }
 
-                switch (TaskType.valueOf(data[1])) {
-                    case TASK:
-                        Task task = new Task();
+    /**
+     * Прочитать csv снимок. Строки читаются частями по {@value #LOAD_CHUNK_LINES}, части разбираются
+     * параллельно в общем fork/join пуле и добавляются в менеджер в порядке следования в файле.
+     * В памяти одновременно находится не больше двух частей на поток пула
+     *
+     * @param reader  Снимок
+     * @param history История просмотров, в которую добавляется строка истории из снимка
+     */
+    private void readCsv(BufferedReader reader, Set<Integer> history) throws IOException {
+        if (reader.readLine() == null) {
+            return;
+        }
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        int maxInFlight = 2 * pool.getParallelism();
+        Deque<ForkJoinTask<Task[]>> inFlight = new ArrayDeque<>();
+        List<String> chunk = new ArrayList<>();
+
+        String line;
+        while ((line = CsvRow.readRecord(reader)) != null && !line.isEmpty()) {
+            chunk.add(line);
+            if (chunk.size() == LOAD_CHUNK_LINES) {
+                if (inFlight.size() == maxInFlight) {
+                    restoreAll(inFlight.poll().join());
+                }
+                List<String> lines = chunk;
+                inFlight.add(pool.submit(() -> decodeCsv(lines)));
+                chunk = new ArrayList<>();
+            }
+        }
+        while (!inFlight.isEmpty()) {
+            restoreAll(inFlight.poll().join());
+        }
+        restoreAll(decodeCsv(chunk));
 
-                        addTaskToManager(task, lines[i],
-                                tasksManager.tasks);
+        if (line != null && (line = reader.readLine()) != null) {
+            history.addAll(historyFromString(line));
+        }
+    }
 
-                        maxId = Integer.max(maxId, task.getId());
-                        tasksManager.prioritizedTasks.add(task);
-                        break;
-                    case EPIC:
-                        Epic epic = new Epic();
+    /**
+     * Разобрать строки снимка. Менеджер не меняется, поэтому части разбираются в разных потоках
+     *
+     * @param lines csv строки
+     * @return Задачи в порядке строк
+     */
+    private static Task[] decodeCsv(List<String> lines) {
+        CsvRow row = new CsvRow();
+        Task[] decoded = new Task[lines.size()];
+        for (int i = 0; i < decoded.length; i++) {
+            row.parse(lines.get(i));
+            decoded[i] = decodeCsv(row);
+        }
+        return decoded;
+    }
 
-                        addTaskToManager(epic, lines[i],
-                                tasksManager.epics);
+    /**
+     * Создать задачу нужного типа по csv строке
+     *
+     * @param row Поля csv строки
+     * @return Задача, эпик или подзадача
+     */
+    protected static Task decodeCsv(CsvRow row) {
+        Task task;
+        switch (row.getEnum(1, TASK_TYPES)) {
+            case EPIC:
+                task = new Epic();
+                break;
+            case SUBTASK:
+                task = new Subtask();
+                break;
+            default:
+                task = new Task();
+                break;
+        }
+        task.fromCsvRow(row);
+        return task;
+    }
 
-                        maxId = Integer.max(maxId, epic.getId());
-                        break;
-                    case SUBTASK:
-                        Subtask sub = new Subtask();
+    private void restoreAll(Task[] decoded) {
+        for (Task task : decoded) {
+            putRestored(task);
+        }
+    }
+
+    /**
+     * Добавить или заменить задачу, сохраняя связи эпиков и подзадач
+     *
+     * @param task Задача любого типа
+     */
+    protected void putRestored(Task task) {
+        if (task instanceof Subtask) {
+            restoreSubtask((Subtask) task);
+        } else if (task instanceof Epic) {
+            restoreEpic((Epic) task);
+        } else {
+            restoreTask(task);
+        }
+    }
+
+    private void restoreTask(Task task) {
+        tasks.put(task.getId(), task);
+        lastId = Integer.max(lastId, task.getId());
+    }
+
+    private void restoreEpic(Epic epic) {
+        Epic oldEpic = epics.put(epic.getId(), epic);
+        if (oldEpic != null) {
+            epic.getSubtasks().addAll(oldEpic.getSubtasks());
+        }
+        lastId = Integer.max(lastId, epic.getId());
+    }
 
-                        addTaskToManager(sub, lines[i],
-                                tasksManager.subtasks);
+    private void restoreSubtask(Subtask sub) {
+        Subtask oldSub = subtasks.put(sub.getId(), sub);
 
-                        int subId = sub.getId();
-                        var curEpic = tasksManager.epics.get(sub.getEpicId());
-                        curEpic.getSubtasks().add(subId);
+        int subId = sub.getId();
+        if (oldSub != null && oldSub.getEpicId() != sub.getEpicId()) {
+            unlinkSubtask(oldSub);
+        }
+        var curEpic = epics.get(sub.getEpicId());
+        if (curEpic != null) {
+            curEpic.getSubtasks().add(subId);
+        }
+        lastId = Integer.max(lastId, subId);
+    }
 
-                        maxId = Integer.max(maxId, sub.getId());
-                        tasksManager.prioritizedTasks.add(sub);
+    /**
+     * Применить запись журнала изменений
+     *
+     * @param record Запись
+     * @param row    Переиспользуемый объект для разбора csv строки
+     */
+    private void applyJournalRecord(String record, CsvRow row) {
+        String data = record.substring(2);
+        switch (record.charAt(0)) {
+            case TaskJournal.PUT:
+                row.parse(data);
+                putRestored(decodeCsv(row));
+                break;
+            case TaskJournal.DELETE:
+                int id = Integer.parseInt(data);
+                tasks.remove(id);
+                epics.remove(id);
+                Subtask sub = subtasks.remove(id);
+                if (sub != null) {
+                    unlinkSubtask(sub);
+                }
+                lastId = Integer.max(lastId, id);
+                break;
+            case TaskJournal.CLEAR:
+                switch (TaskType.valueOf(data)) {
+                    case TASK:
+                        tasks.clear();
                         break;
-                    default:
+                    case EPIC:
+                        epics.clear();
+                        subtasks.clear();
+                        break;
+                    case SUBTASK:
+                        subtasks.clear();
+                        for (Epic epic : epics.values()) {
+                            epic.getSubtasks().clear();
+                        }
                         break;
                 }
-                tasksManager.lastId = maxId;
+                break;
+            default:
+                throw new ManagerSaveException("Неизвестная запись журнала: " + record);
+        }
+    }
 
-            }
-            for (int his : history) {
-                if (tasksManager.tasks.get(his) != null) {
-                    tasksManager.inMemoryHistoryManager.add(tasksManager.tasks.get(his));
-                } else if (tasksManager.epics.get(his) != null) {
-                    tasksManager.inMemoryHistoryManager.add(tasksManager.epics.get(his));
-                } else if (tasksManager.subtasks.get(his) != null) {
-                    tasksManager.inMemoryHistoryManager.add(tasksManager.subtasks.get(his));
+    private void unlinkSubtask(Subtask subtask) {
+        Epic epic = epics.get(subtask.getEpicId());
+        if (epic != null) {
+            epic.getSubtasks().removeInt(subtask.getId());
+        }
+    }
+
+    /**
+     * Сохранение данных объекта в файл.
+     * Файл заменяется целиком после записи, журналы изменений и просмотров после этого больше не нужны
+     */
+    protected void save() {
+        writeSnapshot(super.getTasks(), super.getEpics(), super.getSubtasks(),
+                historyIds(this.inMemoryHistoryManager), false);
+        historyLogSize = 0;
+        historyLogLimit = HISTORY_LOG_COMPACT_MIN;
+    }
+
+    /**
+     * Записать задачи во временный файл в формате {@link #getFormat()} и заменить им файл с данными.
+     * Журналы изменений и просмотров после замены удаляются
+     *
+     * @param tasks    Задачи
+     * @param epics    Эпики
+     * @param subtasks Подзадачи
+     * @param history  Id задач в истории просмотров
+     * @param fsync    Сбросить данные на диск до замены файла
+     */
+    protected void writeSnapshot(Collection<? extends Task> tasks,
+                                 Collection<? extends Task> epics,
+                                 Collection<? extends Task> subtasks,
+                                 int[] history,
+                                 boolean fsync) {
+        Path tempPath = path.resolveSibling(path.getFileName() + ".tmp");
+
+        try {
+            try (FileChannel channel = FileChannel.open(tempPath, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                if (format == SnapshotFormat.BINARY) {
+                    OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel));
+                    BinarySnapshot.write(out, tasks, epics, subtasks, history);
+                } else {
+                    csvWriter.open(channel);
+                    writeCsv(csvWriter, tasks, epics, subtasks, history);
+                    csvWriter.finish();
+                }
+                if (fsync) {
+                    channel.force(true);
                 }
             }
+            Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            discardJournals();
         } catch (IOException e) {
             throw new ManagerSaveException(e.getMessage());
         }
-        return tasksManager;
     }
 
     /**
-     * Добавление задачи в менеджер задач и в список истории просмотров
-     *
-     * @param task     Задача, которая наследуется от {@link Task}
-     * @param line     csv строка
-     * @param tasksMap Хеш-таблица с задачами
-     *                 //* @param taskManager Менеджер задач
-     *                 //* @param history     Список истории просмотров
+     * Удалить журналы изменений и просмотров, которые вошли в только что записанный снимок
      */
-    private static <T extends Task> void addTaskToManager(T task,
-                                                          String line,
-                                                          Map<Integer, T> tasksMap) {
-        task.fromScsString(line);
-        tasksMap.put(task.getId(), task);
+    protected void discardJournals() throws IOException {
+        Files.deleteIfExists(TaskJournal.pathOf(path));
+        Files.deleteIfExists(TaskJournal.historyPathOf(path));
     }
 
-    /**
-     * Сохранение данных объекта в файл
-     */
-    protected void save() {
+    private static void writeCsv(Appendable out,
+                                 Collection<? extends Task> tasks,
+                                 Collection<? extends Task> epics,
+                                 Collection<? extends Task> subtasks,
+                                 int[] history) throws IOException {
+        out.append("id,type,name,status,description,start_time,duration,epic\n");
+        for (var task : tasks) {
+            task.appendCsv(out);
+            out.append('\n');
+        }
 
-        try (Writer fileWriter = new FileWriter(this.path.toFile())) {
+        for (var epic : epics) {
+            epic.appendCsv(out);
+            out.append('\n');
+        }
 
-            fileWriter.write("id,type,name,status,description,start_time,duration,epic\n");
-            for (var task : super.getTasks()) {
-                fileWriter.write(task.toCsvString() + "\n");
-            }
+        for (var sub : subtasks) {
+            sub.appendCsv(out);
+            out.append('\n');
+        }
+
+        out.append('\n');
 
-            for (var epic : super.getEpics()) {
-                fileWriter.write(epic.toCsvString() + "\n");
+        if (history.length == 0) {
+            out.append("null");
+        }
+        for (int i = 0; i < history.length; i++) {
+            if (i > 0) {
+                out.append(',');
             }
+            CsvWriter.appendNumber(out, history[i]);
+        }
+    }
 
-            for (var sub : super.getSubtasks()) {
-                fileWriter.write(sub.toCsvString() + "\n");
+    /**
+     * Сохранить просмотр задачи. Просмотр не меняет данных, поэтому файл с задачами не переписывается,
+     * а id дописывается в журнал просмотров. Когда журнал становится вдвое длиннее истории,
+     * он переписывается текущей историей, поэтому стоимость просмотра не зависит от размера доски
+     *
+     * @param task Просмотренная задача, null - если задачи нет
+     */
+    protected void afterView(Task task) {
+        if (task == null) {
+            return;
+        }
+        Path historyPath = TaskJournal.historyPathOf(path);
+        TaskJournal.append(historyPath, List.of(Integer.toString(task.getId())));
+        historyLogSize++;
+
+        if (historyLogSize >= historyLogLimit) {
+            List<Task> history = getHistory();
+            List<String> records = new ArrayList<>(history.size());
+            for (Task viewed : history) {
+                records.add(Integer.toString(viewed.getId()));
             }
+            Path tempPath = historyPath.resolveSibling(historyPath.getFileName() + ".tmp");
+            try {
+                Files.deleteIfExists(tempPath);
+                TaskJournal.append(tempPath, records);
+                Files.move(tempPath, historyPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                throw new ManagerSaveException(e.getMessage());
+            }
+            historyLogSize = records.size();
+            historyLogLimit = Math.max(HISTORY_LOG_COMPACT_MIN, historyLogSize * 2);
+        }
+    }
 
-            fileWriter.write("\n");
+    /**
+     * Сохранить состояние после изменения, если не идёт применение набора изменений
+     */
+    protected void afterMutation() {
+        if (batchDepth == 0) {
+            save();
+        }
+    }
 
-            fileWriter.write(historyToString(this.inMemoryHistoryManager));
-        } catch (IOException e) {
-            throw new ManagerSaveException(e.getMessage());
+    /**
+     * Сохранить состояние один раз после набора изменений. Набор, отклонённый до применения,
+     * ничего не меняет и не сохраняется
+     */
+    @Override
+    public List<Integer> applyBatch(TaskBatch batch) {
+        batchDepth++;
+        try {
+            return super.applyBatch(batch);
+        } finally {
+            batchDepth--;
+            if (batchDepth == 0 && batchChanged) {
+                batchChanged = false;
+                save();
+            }
+        }
+    }
+
+    @Override
+    protected void touch(int id) {
+        super.touch(id);
+        if (batchDepth > 0) {
+            batchChanged = true;
         }
     }
 
     @Override
     public int addTask(Task task) {
         var parentResult = super.addTask(task);
-        save();
+        afterMutation();
         return parentResult;
     }
 
     @Override
     public int addEpic(Epic epic) {
         var parentResult = super.addEpic(epic);
-        save();
+        afterMutation();
         return parentResult;
     }
 
     @Override
     public boolean updateEpic(Epic epic) {
         var parentResult = super.updateEpic(epic);
-        save();
+        afterMutation();
         return parentResult;
     }
 
     @Override
     public boolean deleteEpicById(int epicId) {
         var parentResult = super.deleteEpicById(epicId);
-        save();
+        afterMutation();
         return parentResult;
     }
 
     @Override
     public void clearEpics() {
         super.clearEpics();
-        save();
+        afterMutation();
     }
 
     @Override
     public boolean clearSubtasksInEpic(int epicId) {
         var parentResult = super.clearSubtasksInEpic(epicId);
-        save();
+        afterMutation();
         return parentResult;
     }
 
     @Override
     public int addSubtaskToEpic(Subtask subtask) {
         var parentResult = super.addSubtaskToEpic(subtask);
-        save();
+        afterMutation();
         return parentResult;
     }
 
     @Override
     public boolean updateSubtask(Subtask subtask) {
         var parentResult = super.updateSubtask(subtask);
-        save();
+        afterMutation();
         return parentResult;
     }
 
     @Override
     public boolean deleteSubtaskById(int subtaskId) {
         var parentResult = super.deleteSubtaskById(subtaskId);
-        save();
+        afterMutation();
         return parentResult;
     }
 
     @Override
     public void clearSubtasks() {
         super.clearSubtasks();
-        save();
+        afterMutation();
     }
 
     @Override
     public boolean updateTask(Task task) {
         var parentResult = super.updateTask(task);
-        save();
+        afterMutation();
         return parentResult;
     }
 
     @Override
     public boolean deleteTask(int taskId) {
         var parentResult = super.deleteTask(taskId);
-        save();
+        afterMutation();
         return parentResult;
     }
 
     @Override
     public void clearTasks() {
         super.clearTasks();
-        save();
+        afterMutation();
     }
 
     /**
@@ -265,6 +645,21 @@ public class FileBackedTasksManager extends InMemoryTaskManager {
         return resultHistoryString.toString();
     }
 
+    /**
+     * Получить id задач в истории просмотров
+     *
+     * @param manager Менеджер истории
+     * @return Id в порядке просмотра
+     */
+    static int[] historyIds(HistoryManager manager) {
+        List<Task> history = manager.getHistory();
+        int[] ids = new int[history.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = history.get(i).getId();
+        }
+        return ids;
+    }
+
     /**
      * Конвертация истории промотра из строки в список
      *
@@ -275,17 +670,15 @@ public class FileBackedTasksManager extends InMemoryTaskManager {
         if (value.equals("null")) {
             return Collections.emptyList();
         }
-        List<Integer> listOfIds = new ArrayList<>();
-
-        String[] split = value.split(",");
+        CsvRow row = CsvRow.of(value);
+        List<Integer> listOfIds = new ArrayList<>(row.size());
 
-        for (String item : split) {
-            if (item.isEmpty()) {
+        for (int i = 0; i < row.size(); i++) {
+            if (row.isEmpty(i)) {
                 return Collections.emptyList();
             }
             try {
-                int id = Integer.parseInt(item);
-                listOfIds.add(id);
+                listOfIds.add(row.getInt(i));
             } catch (NumberFormatException e) {
                 return Collections.emptyList();
             }
@@ -297,21 +690,21 @@ public class FileBackedTasksManager extends InMemoryTaskManager {
     @Override
     public Epic getEpicById(int epicId) {
         var parentResult = super.getEpicById(epicId);
-        save();
+        afterView(parentResult);
         return parentResult;
     }
 
     @Override
     public Subtask getSubtaskById(int subtaskId) {
         var parentResult = super.getSubtaskById(subtaskId);
-        save();
+        afterView(parentResult);
         return parentResult;
     }
 
     @Override
     public Task getTaskById(int taskId) {
         var parentResult = super.getTaskById(taskId);
-        save();
+        afterView(parentResult);
         return parentResult;
     }
 
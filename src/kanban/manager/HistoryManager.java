@@ -2,6 +2,7 @@ package kanban.manager;
 
 import kanban.models.Task;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -23,10 +24,27 @@ public interface HistoryManager {
      */
     void remove(int id);
 
+    /**
+     * Удалить несколько просмотренных задач за один проход
+     *
+     * @param ids Id задач
+     */
+    void removeAll(Collection<Integer> ids);
+
     /**
      * Получить список просмотренных задач
      *
      * @return Список просмотренных задач
      */
     List<Task> getHistory();
+
+    /**
+     * Получить неизменяемую версию истории, которую можно прочитать из другого потока.
+     * Реализация по умолчанию копирует историю
+     *
+     * @return Версия истории
+     */
+    default HistorySnapshot getSnapshot() {
+        return HistorySnapshot.of(getHistory());
+    }
 }
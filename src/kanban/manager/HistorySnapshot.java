@@ -0,0 +1,89 @@
+package kanban.manager;
+
+import kanban.models.Task;
+import kanban.util.PersistentIntMap;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * Неизменяемая версия истории просмотров: для каждой задачи в истории - номер её последнего просмотра.
+ * Номера растут с каждым просмотром, поэтому порядок истории - это порядок номеров.
+ * Версия разделяет данные с другими версиями, поэтому получение версии у {@link InMemoryHistoryManager}
+ * ничего не копирует, а список id собирается только при вызове {@link #ids()}
+ */
+public final class HistorySnapshot {
+
+    static final HistorySnapshot EMPTY = new HistorySnapshot(PersistentIntMap.empty());
+
+    private final PersistentIntMap<Long> sequences;
+
+    HistorySnapshot(PersistentIntMap<Long> sequences) {
+        this.sequences = sequences;
+    }
+
+    /**
+     * Собрать версию истории из списка просмотренных задач
+     *
+     * @param history Задачи в порядке просмотра
+     * @return Версия истории
+     */
+    static HistorySnapshot of(List<Task> history) {
+        PersistentIntMap<Long> sequences = PersistentIntMap.empty();
+        long sequence = 0;
+        for (Task task : history) {
+            sequences = sequences.put(task.getId(), ++sequence);
+        }
+        return new HistorySnapshot(sequences);
+    }
+
+    public int size() {
+        return sequences.size();
+    }
+
+    /**
+     * Получить номер последнего просмотра задачи
+     *
+     * @param id Id задачи
+     * @return Номер просмотра, -1 - если задачи нет в истории
+     */
+    public long sequenceOf(int id) {
+        Long sequence = sequences.get(id);
+        return sequence == null ? -1 : sequence;
+    }
+
+    /**
+     * Обойти id задач, которые после предыдущей версии были просмотрены или ушли из истории.
+     * Для версий одного менеджера время зависит от количества изменений, а не от размера истории
+     *
+     * @param previous Предыдущая версия истории
+     * @param action   Действие над id
+     */
+    public void forEachChangedId(HistorySnapshot previous, IntConsumer action) {
+        sequences.forEachChangedKey(previous.sequences, action);
+    }
+
+    /**
+     * Получить id задач в порядке просмотра. Занимает O(n log n), поэтому вызывается там,
+     * где историю действительно нужно записать, а не при каждом изменении
+     *
+     * @return Id в порядке просмотра
+     */
+    public int[] ids() {
+        long[] ordered = new long[sequences.size()];
+        int[] count = new int[1];
+        sequences.forEach((sequence, id) -> ordered[count[0]++] = sequence);
+        Arrays.sort(ordered);
+        int[] ids = new int[ordered.length];
+        sequences.forEach((sequence, id) -> ids[Arrays.binarySearch(ordered, sequence)] = id);
+        return ids;
+    }
+
+    @Override
+    public String toString() {
+        return "HistorySnapshot{"
+                + "size=" + sequences.size()
+                + '}';
+    }
+}
@@ -1,67 +1,473 @@
 package kanban.manager;
 
 import com.google.gson.*;
-import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
 import kanban.models.Epic;
 import kanban.models.Subtask;
 import kanban.models.Task;
 import kanban.client.KVTaskClient;
+import kanban.models.TaskType;
 import kanban.util.InstantAdapter;
+import kanban.util.IntHashMap;
+import kanban.util.IntHashSet;
 
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.PrimitiveIterator;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Менеджер задач, который хранит состояние на KV сервере по отдельным ключам:
+ * <pre>
+ * task/{id}, epic/{id}, subtask/{id} - задача в json
+ * index/{n}                          - id и типы задач с id от n * pageSize до (n + 1) * pageSize - 1
+ * history/{n}                        - номера последних просмотров задач с id от n * pageSize до (n + 1) * pageSize - 1
+ * manifest                           - версия раскладки, наибольший id и pageSize
+ * </pre>
+ * После изменения отправляются только изменённые задачи, страницы индекса, в которых задача появилась
+ * или исчезла, страницы истории, в которых задача просмотрена или ушла из истории, и манифест,
+ * если вырос наибольший id, поэтому трафик на одно изменение или просмотр не зависит ни от размера доски,
+ * ни от длины истории. Порядок истории восстанавливается по номерам просмотров. Ключи удалённых задач
+ * и опустевших страниц истории удаляются с сервера в том же пакете.
+ * Ключи одного этапа передаются одним пакетным запросом: сохранение - это один запрос, который сервер
+ * применяет целиком, поэтому индекс никогда не ссылается на незаписанную задачу. Загрузка - три запроса
+ * (манифест, страницы индекса, задачи вместе с историей), потому что ключи следующего этапа известны только из предыдущего
+ */
 public class HttpTaskManager extends FileBackedTasksManager {
 
+    /**
+     * Количество id в одной странице индекса
+     */
+    public static final int INDEX_PAGE_SIZE = 256;
+
+    static final int LAYOUT_VERSION = 2;
+    static final String MANIFEST_KEY = "manifest";
+    static final String INDEX_PREFIX = "index/";
+    static final String HISTORY_PREFIX = "history/";
+
+    /**
+     * Раскладка версии 1 хранила всю историю одним массивом id под этим ключом. Она читается при загрузке,
+     * а ключ удаляется первой синхронизацией
+     */
+    static final String LEGACY_HISTORY_KEY = "history";
+
+    /**
+     * Состав эпика не хранится: при загрузке он восстанавливается по эпикам подзадач,
+     * поэтому изменение подзадачи не отправляет заново все id подзадач её эпика
+     */
     private final Gson gson = new GsonBuilder()
             .registerTypeAdapter(Instant.class, new InstantAdapter())
+            .setExclusionStrategies(new ExclusionStrategy() {
+                @Override
+                public boolean shouldSkipField(FieldAttributes field) {
+                    return field.getDeclaringClass() == Epic.class && field.getName().equals("subtasksIDs");
+                }
+
+                @Override
+                public boolean shouldSkipClass(Class<?> type) {
+                    return false;
+                }
+            })
             .create();
     private final KVTaskClient client;
 
+    private int pageSize = INDEX_PAGE_SIZE;
+
+    /**
+     * Типы задач так, как они записаны в страницах индекса на сервере
+     */
+    private final IntHashMap<TaskType> syncedTypes = new IntHashMap<>();
+
+    /**
+     * Id задач, изменённых после последней синхронизации
+     */
+    private IntHashSet unsyncedIds = new IntHashSet();
+
+    /**
+     * Страницы индекса, которые изменились, но ещё не сохранены на сервере
+     */
+    private final IntHashSet unsentPages = new IntHashSet();
+
+    /**
+     * Страницы истории, которые изменились, но ещё не сохранены на сервере
+     */
+    private final IntHashSet unsentHistoryPages = new IntHashSet();
+
+    /**
+     * Ключи удалённых задач, которые ещё не удалены на сервере
+     */
+    private final Set<String> unsentDeletes = new LinkedHashSet<>();
+
+    private int syncedLastId;
+    private HistorySnapshot syncedHistory = HistorySnapshot.EMPTY;
+
     public HttpTaskManager(String url) {
-        client = new KVTaskClient(url);
+        this(new KVTaskClient(url));
     }
 
+    protected HttpTaskManager(KVTaskClient client) {
+        this.client = client;
+    }
+
+    /**
+     * Отправить на сервер изменения, сделанные после предыдущего сохранения.
+     * Как и синхронный {@link KVTaskClient#put}, ошибки сервера выводятся и не прерывают работу менеджера,
+     * а несохранённые изменения отправляются при следующем сохранении
+     */
     @Override
     protected void save() {
-        var jsonAllTasks = gson.toJson(prioritizedTasks);
-        client.put("allTasks", jsonAllTasks);
+        IntHashSet ids = drainUnsyncedIds();
+        try {
+            sync(ids, getSnapshot(), inMemoryHistoryManager.getSnapshot());
+        } catch (ManagerSaveException e) {
+            unsyncedIds.addAll(ids);
+            e.printStackTrace();
+        }
+    }
 
-        var jsonTasks = gson.toJson(tasks);
-        client.put("tasks", jsonTasks);
+    /**
+     * Просмотр меняет только историю, поэтому на сервер отправляется только она
+     */
+    @Override
+    protected void afterView(Task task) {
+        if (task == null) {
+            return;
+        }
+        try {
+            syncIndex(new LinkedHashMap<>(), lastId, inMemoryHistoryManager.getSnapshot());
+        } catch (ManagerSaveException e) {
+            e.printStackTrace();
+        }
+    }
 
-        var jsonEpics = gson.toJson(epics);
-        client.put("epics", jsonEpics);
+    /**
+     * Забрать id задач, изменённых после предыдущего сохранения
+     *
+     * @return Id, которые нужно передать в {@link #sync}
+     */
+    protected IntHashSet drainUnsyncedIds() {
+        IntHashSet ids = unsyncedIds;
+        unsyncedIds = new IntHashSet();
+        return ids;
+    }
 
-        var jsonSubtasks = gson.toJson(subtasks);
-        client.put("subtasks", jsonSubtasks);
+    /**
+     * Отправить на сервер задачи из снимка вместе со страницами индекса, манифестом и историей одним пакетом.
+     * Состояние берётся только из снимка, поэтому метод можно вызывать из другого потока,
+     * но не одновременно с другим вызовом
+     *
+     * @param ids      Id изменённых задач
+     * @param snapshot Снимок состояния не старше изменений
+     * @param history  Версия истории просмотров
+     * @throws ManagerSaveException если сервер не сохранил пакет. Задачи из ids нужно отправить снова,
+     *                              страницы индекса и манифест отправятся при следующем вызове
+     */
+    protected void sync(IntHashSet ids, TaskManagerSnapshot snapshot, HistorySnapshot history) {
+        Map<String, String> values = new LinkedHashMap<>();
+        for (PrimitiveIterator.OfInt iterator = ids.iterator(); iterator.hasNext(); ) {
+            int id = iterator.nextInt();
+            Task task = findTask(snapshot, id);
+            TaskType type = task == null ? null : typeOf(task);
+            if (task != null) {
+                values.put(entityKey(type, id), gson.toJson(task));
+            }
+            TaskType syncedType = type == null ? syncedTypes.remove(id) : syncedTypes.put(id, type);
+            if (syncedType != type) {
+                unsentPages.add(Math.floorDiv(id, pageSize));
+                if (type == null) {
+                    unsentDeletes.add(entityKey(syncedType, id));
+                }
+            }
+        }
+        syncIndex(values, snapshot.getLastId(), history);
+    }
 
-        var jsonHistory = gson.toJson(getHistory());
-        client.put("history", jsonHistory);
+    /**
+     * Добавить к пакету неотправленные страницы индекса, манифест, если вырос наибольший id,
+     * страницы истории с изменившимися задачами и удаления ключей, и отправить пакет.
+     * Изменившиеся задачи истории находятся сравнением с отправленной версией за время,
+     * которое зависит от количества просмотров, а не от длины истории
+     */
+    private void syncIndex(Map<String, String> values, int lastId, HistorySnapshot history) {
+        for (PrimitiveIterator.OfInt iterator = unsentPages.iterator(); iterator.hasNext(); ) {
+            int page = iterator.nextInt();
+            values.put(pageKey(page), gson.toJson(pageEntries(page)));
+        }
+        if (lastId != syncedLastId) {
+            values.put(MANIFEST_KEY, gson.toJson(new Manifest(LAYOUT_VERSION, lastId, pageSize)));
+        }
+        history.forEachChangedId(syncedHistory, id -> unsentHistoryPages.add(Math.floorDiv(id, pageSize)));
+        for (PrimitiveIterator.OfInt iterator = unsentHistoryPages.iterator(); iterator.hasNext(); ) {
+            int page = iterator.nextInt();
+            Map<Integer, Long> entries = historyPageEntries(history, page);
+            values.put(historyPageKey(page), entries.isEmpty() ? null : gson.toJson(entries));
+        }
+        for (String key : unsentDeletes) {
+            values.put(key, null);
+        }
+        await(client.putAllAsync(values));
+        unsentPages.clear();
+        unsentHistoryPages.clear();
+        unsentDeletes.clear();
+        syncedLastId = lastId;
+        syncedHistory = history;
+    }
+
+    @Override
+    protected void touch(int id) {
+        super.touch(id);
+        unsyncedIds.add(id);
+    }
+
+    @Override
+    public void clearEpics() {
+        unsyncedIds.addAll(epics.keySet());
+        unsyncedIds.addAll(subtasks.keySet());
+        super.clearEpics();
+    }
+
+    @Override
+    public void clearSubtasks() {
+        unsyncedIds.addAll(subtasks.keySet());
+        super.clearSubtasks();
+    }
+
+    @Override
+    public void clearTasks() {
+        unsyncedIds.addAll(tasks.keySet());
+        super.clearTasks();
     }
 
+    /**
+     * Загрузить состояние с сервера: манифест, страницы индекса, затем задачи и страницы истории.
+     * Ответы разбираются потоком прямо в структуры менеджера, без промежуточных строк:
+     * подзадачи запрашиваются после задач и эпиков, а история собирается по номерам просмотров
+     * и добавляется, когда все задачи уже загружены.
+     * Номера просмотров после загрузки начинаются заново, поэтому первая синхронизация
+     * отправляет все загруженные страницы истории ещё раз.
+     * Если манифеста нет, на сервере нет сохранённой доски
+     */
     public void load() {
-        var jsonAllTasks = client.load("allTasks");
-        prioritizedTasks.addAll(gson.fromJson(jsonAllTasks, new TypeToken<Set<Task>>() {
-        }.getType()));
-
-        var jsonTasks = client.load("tasks");
-        tasks.putAll(gson.fromJson(jsonTasks, new TypeToken<Map<Integer, Task>>() {
-        }.getType()));
-
-        var jsonEpics = client.load("epics");
-        epics.putAll(gson.fromJson(jsonEpics, new TypeToken<Map<Integer, Epic>>() {
-        }.getType()));
-
-        var jsonSubtasks = client.load("subtasks");
-        subtasks.putAll(gson.fromJson(jsonSubtasks, new TypeToken<Map<Integer, Subtask>>() {
-        }.getType()));
-
-        var jsonHistory = client.load("history");
-        JsonArray jsonHistoryArray = JsonParser.parseString(jsonHistory).getAsJsonArray();
-        for (JsonElement jsonElement : jsonHistoryArray) {
-            inMemoryHistoryManager.add(gson.fromJson(jsonElement, Task.class));
+        Manifest manifest;
+        try (Reader body = new InputStreamReader(await(client.loadStreamAsync(MANIFEST_KEY)), UTF_8)) {
+            manifest = gson.fromJson(body, Manifest.class);
+        } catch (IOException e) {
+            throw new ManagerSaveException(e.getMessage());
+        }
+        if (manifest == null) {
+            return;
+        }
+        boolean legacy = manifest.version == 1;
+        if (manifest.version != LAYOUT_VERSION && !legacy) {
+            throw new ManagerSaveException("Неизвестная версия раскладки на сервере: " + manifest.version);
+        }
+        pageSize = manifest.pageSize;
+
+        List<String> pageKeys = new ArrayList<>();
+        for (int page = 0; page <= manifest.lastId / pageSize; page++) {
+            pageKeys.add(pageKey(page));
+        }
+        List<String> keys = new ArrayList<>();
+        List<String> subtaskKeys = new ArrayList<>();
+        await(client.loadAllAsync(pageKeys, (key, body) -> {
+            if (body != null) {
+                readPage(new JsonReader(body), keys, subtaskKeys);
+            }
+        }));
+
+        keys.addAll(subtaskKeys);
+        if (legacy) {
+            keys.add(LEGACY_HISTORY_KEY);
+        } else {
+            for (int page = 0; page < pageKeys.size(); page++) {
+                keys.add(historyPageKey(page));
+            }
+        }
+        Map<Long, Integer> viewed = new TreeMap<>();
+        await(client.loadAllAsync(keys, (key, body) -> {
+            if (body == null) {
+                return;
+            }
+            if (key.equals(LEGACY_HISTORY_KEY)) {
+                readLegacyHistory(new JsonReader(body), viewed);
+            } else if (key.startsWith(HISTORY_PREFIX)) {
+                readHistoryPage(new JsonReader(body), viewed);
+                unsentHistoryPages.add(Integer.parseInt(key.substring(HISTORY_PREFIX.length())));
+            } else {
+                putRestored(gson.fromJson(new JsonReader(body), classOf(typeOfKey(key))));
+            }
+        }));
+        for (int id : viewed.values()) {
+            Task task = findTask(id);
+            if (task != null) {
+                inMemoryHistoryManager.add(task);
+            }
+        }
+        lastId = Integer.max(lastId, manifest.lastId);
+        syncedHistory = inMemoryHistoryManager.getSnapshot();
+        if (legacy) {
+            // Первая синхронизация переписывает манифест и историю в раскладке текущей версии
+            syncedLastId = -1;
+            syncedHistory.forEachChangedId(HistorySnapshot.EMPTY,
+                    id -> unsentHistoryPages.add(Math.floorDiv(id, pageSize)));
+            unsentDeletes.add(LEGACY_HISTORY_KEY);
+        } else {
+            syncedLastId = lastId;
+        }
+        rebuildIndexes();
+    }
+
+    /**
+     * Разобрать страницу индекса: запомнить типы задач и ключи, которые нужно загрузить
+     */
+    private void readPage(JsonReader reader, List<String> keys, List<String> subtaskKeys) throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            int id = Integer.parseInt(reader.nextName());
+            TaskType type = TaskType.valueOf(reader.nextString());
+            syncedTypes.put(id, type);
+            (type == TaskType.SUBTASK ? subtaskKeys : keys).add(entityKey(type, id));
+        }
+        reader.endObject();
+    }
+
+    /**
+     * Разобрать страницу истории: запомнить id задач по номерам их просмотров
+     */
+    private static void readHistoryPage(JsonReader reader, Map<Long, Integer> viewed) throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            int id = Integer.parseInt(reader.nextName());
+            viewed.put(reader.nextLong(), id);
+        }
+        reader.endObject();
+    }
+
+    /**
+     * Разобрать историю раскладки версии 1: номер просмотра - позиция id в массиве
+     */
+    private static void readLegacyHistory(JsonReader reader, Map<Long, Integer> viewed) throws IOException {
+        reader.beginArray();
+        while (reader.hasNext()) {
+            viewed.put((long) viewed.size(), reader.nextInt());
+        }
+        reader.endArray();
+    }
+
+    /**
+     * Дождаться ответа на запрос
+     *
+     * @throws ManagerSaveException если запрос завершился ошибкой
+     */
+    private static <T> T await(CompletableFuture<T> request) {
+        try {
+            return request.join();
+        } catch (CompletionException e) {
+            throw new ManagerSaveException(e.getCause().getMessage());
+        }
+    }
+
+    private Map<Integer, TaskType> pageEntries(int page) {
+        Map<Integer, TaskType> entries = new TreeMap<>();
+        long from = (long) page * pageSize;
+        for (long id = from; id < from + pageSize; id++) {
+            TaskType type = syncedTypes.get((int) id);
+            if (type != null) {
+                entries.put((int) id, type);
+            }
+        }
+        return entries;
+    }
+
+    private Map<Integer, Long> historyPageEntries(HistorySnapshot history, int page) {
+        Map<Integer, Long> entries = new TreeMap<>();
+        long from = (long) page * pageSize;
+        for (long id = from; id < from + pageSize; id++) {
+            long sequence = history.sequenceOf((int) id);
+            if (sequence >= 0) {
+                entries.put((int) id, sequence);
+            }
+        }
+        return entries;
+    }
+
+    private static Task findTask(TaskManagerSnapshot snapshot, int id) {
+        Task task = snapshot.getTask(id);
+        if (task != null) {
+            return task;
+        }
+        task = snapshot.getEpic(id);
+        return task != null ? task : snapshot.getSubtask(id);
+    }
+
+    private Task findTask(int id) {
+        Task task = tasks.get(id);
+        if (task != null) {
+            return task;
+        }
+        task = epics.get(id);
+        return task != null ? task : subtasks.get(id);
+    }
+
+    private static TaskType typeOf(Task task) {
+        if (task instanceof Subtask) {
+            return TaskType.SUBTASK;
+        }
+        return task instanceof Epic ? TaskType.EPIC : TaskType.TASK;
+    }
+
+    private static Class<? extends Task> classOf(TaskType type) {
+        switch (type) {
+            case EPIC:
+                return Epic.class;
+            case SUBTASK:
+                return Subtask.class;
+            default:
+                return Task.class;
+        }
+    }
+
+    static String entityKey(TaskType type, int id) {
+        return type.name().toLowerCase(Locale.ROOT) + "/" + id;
+    }
+
+    private static TaskType typeOfKey(String key) {
+        return TaskType.valueOf(key.substring(0, key.indexOf('/')).toUpperCase(Locale.ROOT));
+    }
+
+    static String pageKey(int page) {
+        return INDEX_PREFIX + page;
+    }
+
+    static String historyPageKey(int page) {
+        return HISTORY_PREFIX + page;
+    }
+
+    /**
+     * Манифест раскладки ключей на сервере
+     */
+    private static final class Manifest {
+        private final int version;
+        private final int lastId;
+        private final int pageSize;
+
+        private Manifest(int version, int lastId, int pageSize) {
+            this.version = version;
+            this.lastId = lastId;
+            this.pageSize = pageSize;
         }
     }
 }
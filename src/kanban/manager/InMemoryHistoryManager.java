@@ -3,7 +3,9 @@ package kanban.manager;
 import kanban.models.Task;
 import kanban.models.Node;
 import kanban.util.CustomLinkedList;
+import kanban.util.PersistentIntMap;
 
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -12,6 +14,14 @@ public class InMemoryHistoryManager implements HistoryManager {
     private final CustomLinkedList<Task> historyTaskList;
     private final Map<Integer, Node<Task>> historyTaskMap;
 
+    /**
+     * Номер последнего просмотра каждой задачи в истории. Неизменяемая таблица, поэтому версия истории
+     * для {@link #getSnapshot()} - это ссылка на неё, а просмотр стоит O(log32 n)
+     */
+    private PersistentIntMap<Long> sequences = PersistentIntMap.empty();
+    private long lastSequence;
+    private HistorySnapshot snapshot = HistorySnapshot.EMPTY;
+
     public InMemoryHistoryManager() {
         historyTaskList = new CustomLinkedList<>();
         historyTaskMap = new HashMap<>();
@@ -24,12 +34,38 @@ public class InMemoryHistoryManager implements HistoryManager {
         }
         Node<Task> newTask = historyTaskList.linkLast(task);
         historyTaskMap.put(task.getId(), newTask);
+        sequences = sequences.put(task.getId(), ++lastSequence);
+        snapshot = null;
     }
 
     @Override
     public void remove(int id) {
         historyTaskList.removeNode(historyTaskMap.get(id));
         historyTaskMap.remove(id);
+        PersistentIntMap<Long> removed = sequences.remove(id);
+        if (removed != sequences) {
+            sequences = removed;
+            snapshot = null;
+        }
+    }
+
+    @Override
+    public void removeAll(Collection<Integer> ids) {
+        if (historyTaskMap.isEmpty()) {
+            return;
+        }
+        if (ids.size() <= historyTaskMap.size()) {
+            for (int id : ids) {
+                remove(id);
+            }
+            return;
+        }
+        // Удаляемых задач больше, чем просмотренных - быстрее пройти по истории
+        for (Task task : historyTaskList.getTasks()) {
+            if (ids.contains(task.getId())) {
+                remove(task.getId());
+            }
+        }
     }
 
     @Override
@@ -37,6 +73,20 @@ public class InMemoryHistoryManager implements HistoryManager {
         return historyTaskList.getTasks();
     }
 
+    /**
+     * Получить версию истории за O(1), без копирования. Пока история не меняется,
+     * возвращается тот же объект, поэтому изменение можно проверить сравнением ссылок
+     *
+     * @return Версия истории
+     */
+    @Override
+    public HistorySnapshot getSnapshot() {
+        if (snapshot == null) {
+            snapshot = new HistorySnapshot(sequences);
+        }
+        return snapshot;
+    }
+
     @Override
     public String toString() {
         return "InMemoryHistoryManager{" +
@@ -4,6 +4,11 @@ import java.time.Instant;
 import java.util.*;
 
 import kanban.models.*;
+import kanban.util.IntHashMap;
+import kanban.util.IntHashSet;
+import kanban.util.PersistentIntMap;
+import kanban.util.PersistentIntSetView;
+import kanban.util.SlotMapView;
 
 import static kanban.util.MathConsts.*;
 
@@ -14,37 +19,44 @@ public class InMemoryTaskManager implements TaskManager {
 
     public static final int MINUTES_INTERVAL = 15;
 
+    /**
+     * Количество 15-минутных интервалов в году
+     */
+    public static final int INTERVALS_PER_YEAR = DAYS_IN_YEAR * HOURS_IN_DAY * SECOND_IN_MINUTE / MINUTES_INTERVAL;
+
     protected int lastId = 0;
-    protected HashMap<Integer, Epic> epics = new HashMap<>();
-    protected HashMap<Integer, Subtask> subtasks = new HashMap<>();
-    protected HashMap<Integer, Task> tasks = new HashMap<>();
+    protected IntHashMap<Epic> epics = new IntHashMap<>();
+    protected IntHashMap<Subtask> subtasks = new IntHashMap<>();
+    protected IntHashMap<Task> tasks = new IntHashMap<>();
+    protected final IntHashMap<EpicAggregate> epicAggregates = new IntHashMap<>();
     protected final HistoryManager inMemoryHistoryManager = Managers.getDefaultHistory();
-    protected final Map<Long, Boolean> gridWithIntervals = new HashMap<>();
-    protected Set<Task> prioritizedTasks;
+    protected final IntersectionEngine intersectionEngine;
+    protected final PrioritizedTasks prioritizedTasks = new PrioritizedTasks();
+    protected final StatusIndex statusIndex = new StatusIndex();
     protected long programStartTime = Instant.now().toEpochMilli();
 
-    public InMemoryTaskManager() {
-        prioritizedTasks = new TreeSet<>((task1, task2) -> {
-            Instant instant1 = task1.getStartTime();
-            Instant instant2 = task2.getStartTime();
-
-            if (instant1 == null && instant2 == null) {
-                return 0;
-            } else if (instant1 == null) {
-                return 1;
-            } else if (instant2 == null) {
-                return -1;
-            } else {
-                return instant1.compareTo(instant2);
-            }
-        });
+    /**
+     * Последний опубликованный снимок и id задач, изменённых после его публикации
+     */
+    private TaskManagerSnapshot snapshot = TaskManagerSnapshot.EMPTY;
+    private final IntHashSet changedIds = new IntHashSet();
+    private boolean snapshotOutdated;
 
-        // Количество 15-минутных интервалов в дне
-        int numIntervalsPerYear = DAYS_IN_YEAR * HOURS_IN_DAY * SECOND_IN_MINUTE / MINUTES_INTERVAL;
+    /**
+     * Идёт применение набора изменений: время задач уже занято, эпики пересчитываются в конце
+     */
+    private boolean applyingBatch;
+    private final IntHashSet batchEpicIds = new IntHashSet();
 
-        for (long i = 0; i < numIntervalsPerYear; i++) {
-            gridWithIntervals.put(i, true); // Интервал свободен
-        }
+    public InMemoryTaskManager() {
+        this(new RangeIntersectionEngine());
+    }
+
+    /**
+     * @param intersectionEngine Механизм проверки пересечений задач
+     */
+    public InMemoryTaskManager(IntersectionEngine intersectionEngine) {
+        this.intersectionEngine = intersectionEngine;
     }
 
     public void setLastId(int lastId) {
@@ -81,6 +93,8 @@ public class InMemoryTaskManager implements TaskManager {
         int newId = ++lastId;
         epic.setId(newId);
         epics.put(newId, epic);
+        epicAggregates.put(newId, new EpicAggregate());
+        touch(newId);
         return newId;
     }
 
@@ -103,6 +117,7 @@ public class InMemoryTaskManager implements TaskManager {
                 return false;
             }
             epics.put(epicId, epic);
+            touch(epicId);
             return true;
         }
         return false;
@@ -110,38 +125,33 @@ public class InMemoryTaskManager implements TaskManager {
 
     @Override
     public boolean deleteEpicById(int epicId) {
-        if (epics.containsKey(epicId)) {
-            var subtasks = epics.get(epicId).getSubtasks();
-            getSubtasksByEpic(epicId).forEach(prioritizedTasks::remove);
-            for (Integer subtask : subtasks) {
-                inMemoryHistoryManager.remove(subtask);
-                clearIntervals(this.subtasks.get(subtask));
-                this.subtasks.remove(subtask);
-            }
-            epics.get(epicId).getSubtasks().clear();
-            epics.remove(epicId);
-            inMemoryHistoryManager.remove(epicId);
-            return true;
+        Epic epic = epics.get(epicId);
+        if (epic == null) {
+            return false;
         }
-        return false;
+        removeSubtasksOfEpic(epic);
+        epics.remove(epicId);
+        epicAggregates.remove(epicId);
+        inMemoryHistoryManager.remove(epicId);
+        touch(epicId);
+        return true;
     }
 
     @Override
     public void clearEpics() {
-        for (Integer subtask : subtasks.keySet()) {
-            inMemoryHistoryManager.remove(subtask);
-            clearIntervals(subtasks.get(subtask));
-        }
-        List<Subtask> tasksToRemove = new ArrayList<>(subtasks.values());
+        List<Subtask> subtasksToRemove = new ArrayList<>(subtasks.values());
+        inMemoryHistoryManager.removeAll(subtasks.keySet());
+        inMemoryHistoryManager.removeAll(epics.keySet());
+        changedIds.addAll(subtasks.keySet());
+        changedIds.addAll(epics.keySet());
+        statusIndex.clear(TaskType.SUBTASK);
+        statusIndex.clear(TaskType.EPIC);
         subtasks.clear();
-        for (Subtask subtask : tasksToRemove) {
-            deleteSubtaskById(subtask.getId());
-        }
-
-        for (Integer epic : epics.keySet()) {
-            inMemoryHistoryManager.remove(epic);
-        }
         epics.clear();
+        epicAggregates.clear();
+
+        removeFromPrioritizedTasks(subtasksToRemove, tasks.values());
+        clearIntervals(subtasksToRemove);
     }
 
     @Override
@@ -162,19 +172,7 @@ public class InMemoryTaskManager implements TaskManager {
             return false;
         }
 
-        List<Task> tasksToRemove = new ArrayList<>(subtasks.values());
-
-        for (Task task : tasksToRemove) {
-            prioritizedTasks.remove(task);
-        }
-
-        for (int subtask : epic.getSubtasks()) {
-            clearIntervals(subtasks.get(subtask));
-            subtasks.remove(subtask);
-            inMemoryHistoryManager.remove(subtask);
-        }
-
-        epic.getSubtasks().clear();
+        removeSubtasksOfEpic(epic);
         setEpicStatus(epicId);
         setEpicDuration(epicId);
 
@@ -183,14 +181,14 @@ public class InMemoryTaskManager implements TaskManager {
 
     @Override
     public List<Subtask> getSubtasksByEpic(int epicId) {
-        List<Subtask> subtasks = new ArrayList<>();
-
-        if (epics.containsKey(epicId)) {
-            Epic epic = epics.get(epicId);
+        Epic epic = epics.get(epicId);
+        if (epic == null) {
+            return new ArrayList<>();
+        }
 
-            for (int subtaskId : epic.getSubtasks()) {
-                subtasks.add(this.subtasks.get(subtaskId));
-            }
+        List<Subtask> subtasks = new ArrayList<>(epic.getSubtasks().size());
+        for (PrimitiveIterator.OfInt iterator = epic.getSubtasks().iterator(); iterator.hasNext(); ) {
+            subtasks.add(this.subtasks.get(iterator.nextInt()));
         }
 
         return subtasks;
@@ -208,7 +206,9 @@ public class InMemoryTaskManager implements TaskManager {
         int newId = ++lastId;
         subtask.setId(newId);
         subtasks.put(newId, subtask);
+        touch(newId);
         epic.getSubtasks().add(newId);
+        aggregateOf(epicId).add(subtask);
 
         setEpicStatus(epicId);
         setEpicDuration(epicId);
@@ -219,25 +219,24 @@ public class InMemoryTaskManager implements TaskManager {
 
     @Override
     public boolean updateSubtask(Subtask subtask) {
-        checkForIntersection(subtask);
-
         int subtaskId = subtask.getId();
         if (!subtasks.containsKey(subtaskId)) {
             return false;
         }
-        clearIntervals(subtasks.get(subtaskId));
-        checkForIntersection(subtask);
+        Subtask oldSubtask = subtasks.get(subtaskId);
+        replaceIntervals(oldSubtask, subtask);
         subtasks.put(subtaskId, subtask);
+        prioritizedTasks.add(subtask);
+        touch(subtaskId);
 
-        int epicId = subtask.getEpicId();
-        if (epicId == -1) {
-            return false;
+        int oldEpicId = oldSubtask.getEpicId();
+        if (epics.containsKey(oldEpicId)) {
+            aggregateOf(oldEpicId).add(subtask);
+            setEpicStatus(oldEpicId);
+            setEpicDuration(oldEpicId);
         }
 
-        setEpicStatus(epicId);
-        setEpicDuration(epicId);
-
-        return true;
+        return subtask.getEpicId() != -1;
     }
 
     @Override
@@ -264,7 +263,9 @@ public class InMemoryTaskManager implements TaskManager {
         clearIntervals(subtasks.get(subtaskId));
         subtasks.remove(subtaskId);
         inMemoryHistoryManager.remove(subtaskId);
-        epic.getSubtasks().remove((Integer) subtaskId);
+        touch(subtaskId);
+        epic.getSubtasks().removeInt(subtaskId);
+        aggregateOf(epicId).remove(subtaskId);
 
         setEpicStatus(epicId);
         setEpicDuration(epicId);
@@ -274,23 +275,22 @@ public class InMemoryTaskManager implements TaskManager {
 
     @Override
     public void clearSubtasks() {
-        if (subtasks.values().size() == 0) {
+        if (subtasks.isEmpty()) {
             return;
         }
 
-        for (Integer subtask : subtasks.keySet()) {
-            inMemoryHistoryManager.remove(subtask);
-            clearIntervals(subtasks.get(subtask));
-        }
-        List<Task> tasksToRemove = new ArrayList<>(subtasks.values());
+        List<Subtask> subtasksToRemove = new ArrayList<>(subtasks.values());
+        inMemoryHistoryManager.removeAll(subtasks.keySet());
+        changedIds.addAll(subtasks.keySet());
+        statusIndex.clear(TaskType.SUBTASK);
         subtasks.clear();
 
-        for (Task task : tasksToRemove) {
-            prioritizedTasks.remove(task);
-        }
+        removeFromPrioritizedTasks(subtasksToRemove, tasks.values());
+        clearIntervals(subtasksToRemove);
 
         for (var epic : epics.values()) {
             epic.getSubtasks().clear();
+            aggregateOf(epic.getId()).clear();
             setEpicStatus(epic.getId());
             setEpicDuration(epic.getId());
         }
@@ -314,6 +314,7 @@ public class InMemoryTaskManager implements TaskManager {
         task.setId(newId);
         tasks.put(newId, task);
         prioritizedTasks.add(task);
+        touch(newId);
         return newId;
     }
 
@@ -322,9 +323,11 @@ public class InMemoryTaskManager implements TaskManager {
         int taskId = task.getId();
 
         if (tasks.containsKey(taskId)) {
-            clearIntervals(tasks.get(taskId));
-            checkForIntersection(task);
+            Task oldTask = tasks.get(taskId);
+            replaceIntervals(oldTask, task);
             tasks.put(taskId, task);
+            prioritizedTasks.add(task);
+            touch(taskId);
 
             return true;
         }
@@ -338,6 +341,7 @@ public class InMemoryTaskManager implements TaskManager {
             prioritizedTasks.remove(tasks.get(taskId));
             tasks.remove(taskId);
             inMemoryHistoryManager.remove(taskId);
+            touch(taskId);
             return true;
         }
         return false;
@@ -345,14 +349,18 @@ public class InMemoryTaskManager implements TaskManager {
 
     @Override
     public void clearTasks() {
-        for (Integer task : tasks.keySet()) {
-            inMemoryHistoryManager.remove(task);
-            clearIntervals(tasks.get(task));
+        if (tasks.isEmpty()) {
+            return;
         }
 
         List<Task> tasksToRemove = new ArrayList<>(tasks.values());
+        inMemoryHistoryManager.removeAll(tasks.keySet());
+        changedIds.addAll(tasks.keySet());
+        statusIndex.clear(TaskType.TASK);
         tasks.clear();
-        prioritizedTasks.removeIf(tasksToRemove::contains);
+
+        removeFromPrioritizedTasks(tasksToRemove, subtasks.values());
+        clearIntervals(tasksToRemove);
     }
 
     @Override
@@ -367,7 +375,22 @@ public class InMemoryTaskManager implements TaskManager {
 
     @Override
     public Set<Task> getPrioritizedTasks() {
-        return prioritizedTasks;
+        return Collections.unmodifiableSet(prioritizedTasks);
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks(Instant from, Instant to) {
+        return prioritizedTasks.getBetween(from, to);
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasksAfter(Instant startTime, int id, int limit) {
+        return prioritizedTasks.getAfter(startTime, id, limit);
+    }
+
+    @Override
+    public int countPrioritizedTasks(Instant from, Instant to) {
+        return prioritizedTasks.countBetween(from, to);
     }
 
     @Override
@@ -376,65 +399,394 @@ public class InMemoryTaskManager implements TaskManager {
     }
 
     @Override
-    public Map<Long, Boolean> getGridWithIntervals() {
-        return gridWithIntervals;
+    public List<Task> getTasksByStatus(TaskStatus status) {
+        return collect(tasks, statusIndex.get(TaskType.TASK, status));
     }
 
     @Override
-    public long getProgramStartTime() {
-        return programStartTime;
+    public List<Epic> getEpicsByStatus(TaskStatus status) {
+        return collect(epics, statusIndex.get(TaskType.EPIC, status));
+    }
+
+    @Override
+    public List<Subtask> getSubtasksByStatus(TaskStatus status) {
+        return collect(subtasks, statusIndex.get(TaskType.SUBTASK, status));
+    }
+
+    @Override
+    public int countByStatus(TaskType type, TaskStatus status) {
+        return statusIndex.count(type, status);
+    }
+
+    @Override
+    public List<Subtask> getSubtasksByEpicAndStatus(int epicId, TaskStatus status) {
+        EpicAggregate aggregate = epicAggregates.get(epicId);
+        if (aggregate == null) {
+            return new ArrayList<>();
+        }
+        return collect(subtasks, aggregate.getSubtaskIds(status));
+    }
+
+    @Override
+    public int countSubtasksByEpicAndStatus(int epicId, TaskStatus status) {
+        EpicAggregate aggregate = epicAggregates.get(epicId);
+        return aggregate == null ? 0 : aggregate.count(status);
     }
 
     /**
-     * Проверка статусов всех {@link Subtask} в {@link Epic}
+     * Получить задачи по множеству id
+     */
+    private static <T extends Task> List<T> collect(IntHashMap<T> source, IntHashSet ids) {
+        List<T> result = new ArrayList<>(ids.size());
+        for (PrimitiveIterator.OfInt iterator = ids.iterator(); iterator.hasNext(); ) {
+            result.add(source.get(iterator.nextInt()));
+        }
+        return result;
+    }
+
+    @Override
+    public List<Integer> applyBatch(TaskBatch batch) {
+        reserveBatchIntervals(batch);
+
+        List<Integer> results = new ArrayList<>(batch.size());
+        applyingBatch = true;
+        try {
+            for (TaskBatch.Operation operation : batch.getOperations()) {
+                results.add(applyOperation(operation));
+            }
+        } finally {
+            applyingBatch = false;
+            for (PrimitiveIterator.OfInt iterator = batchEpicIds.iterator(); iterator.hasNext(); ) {
+                int epicId = iterator.nextInt();
+                if (epics.containsKey(epicId)) {
+                    setEpicStatus(epicId);
+                    setEpicDuration(epicId);
+                }
+            }
+            batchEpicIds.clear();
+        }
+        return results;
+    }
+
+    /**
+     * Применить одну операцию набора
      *
-     * @param epicId Id объекта
-     * @return Статус
+     * @param operation Операция
+     * @return Id затронутой задачи, -1 - если операция не выполнена
      */
-    protected SubtasksStatus checkEpicForStatus(int epicId) {
-        List<Subtask> subtasksByEpic = getSubtasksByEpic(epicId);
-        int subtaskCount = subtasksByEpic.size();
-        int subtaskDoneCount = 0;
-        int subtaskInProgressCount = 0;
+    private int applyOperation(TaskBatch.Operation operation) {
+        Task task = operation.getTask();
+        int id = operation.getId();
+        switch (operation.getType()) {
+            case ADD_TASK:
+                return addTask(task);
+            case ADD_EPIC:
+                return addEpic((Epic) task);
+            case ADD_SUBTASK:
+                Subtask subtask = (Subtask) task;
+                if (operation.getParent() != null) {
+                    subtask.setEpicId(operation.getParent().getId());
+                }
+                return addSubtaskToEpic(subtask);
+            case UPDATE_TASK:
+                return updateTask(task) ? id : -1;
+            case UPDATE_EPIC:
+                return updateEpic((Epic) task) ? id : -1;
+            case UPDATE_SUBTASK:
+                return updateSubtask((Subtask) task) ? id : -1;
+            case DELETE_TASK:
+                return deleteTask(id) ? id : -1;
+            case DELETE_EPIC:
+                return deleteEpicById(id) ? id : -1;
+            case DELETE_SUBTASK:
+                return deleteSubtaskById(id) ? id : -1;
+            default:
+                throw new IllegalArgumentException("Неизвестная операция: " + operation.getType());
+        }
+    }
 
-        if (subtaskCount == 0) {
-            return SubtasksStatus.NONE_SUBTASKS_DONE_OR_IN_PROGRESS;
+    /**
+     * Проверить пересечения всех задач набора за один проход и занять их время.
+     * Время обновляемых и удаляемых задач освобождается заранее, поэтому задачи набора
+     * могут занимать время друг друга. При пересечении менеджер не изменяется
+     *
+     * @param batch Набор изменений
+     */
+    private void reserveBatchIntervals(TaskBatch batch) {
+        Map<Object, Task> scheduled = new LinkedHashMap<>();
+        IntHashMap<Task> releasedTasks = new IntHashMap<>();
+        IntHashSet deletedIds = new IntHashSet();
+        Set<Epic> addedEpics = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        for (TaskBatch.Operation operation : batch.getOperations()) {
+            Task task = operation.getTask();
+            int id = operation.getId();
+            switch (operation.getType()) {
+                case ADD_TASK:
+                    scheduled.put(operation, task);
+                    break;
+                case ADD_EPIC:
+                    addedEpics.add((Epic) task);
+                    scheduled.put(operation, task);
+                    break;
+                case ADD_SUBTASK:
+                    Epic parent = operation.getParent();
+                    int epicId = ((Subtask) task).getEpicId();
+                    if (parent != null ? addedEpics.contains(parent)
+                            : epics.containsKey(epicId) && !deletedIds.contains(epicId)) {
+                        scheduled.put(operation, task);
+                    }
+                    break;
+                case UPDATE_TASK:
+                case UPDATE_SUBTASK:
+                    Task current = operation.getType() == TaskBatch.OperationType.UPDATE_TASK
+                            ? tasks.get(id) : subtasks.get(id);
+                    if (current != null && !deletedIds.contains(id)) {
+                        releaseForBatch(current, releasedTasks);
+                        scheduled.put(id, task);
+                    }
+                    break;
+                case DELETE_TASK:
+                case DELETE_SUBTASK:
+                    Task removed = operation.getType() == TaskBatch.OperationType.DELETE_TASK
+                            ? tasks.get(id) : subtasks.get(id);
+                    if (removed != null && deletedIds.add(id)) {
+                        releaseForBatch(removed, releasedTasks);
+                        scheduled.remove(id);
+                    }
+                    break;
+                case DELETE_EPIC:
+                    Epic epic = epics.get(id);
+                    if (epic != null && deletedIds.add(id)) {
+                        for (PrimitiveIterator.OfInt iterator = epic.getSubtasks().iterator(); iterator.hasNext(); ) {
+                            int subtaskId = iterator.nextInt();
+                            if (deletedIds.add(subtaskId)) {
+                                releaseForBatch(subtasks.get(subtaskId), releasedTasks);
+                                scheduled.remove(subtaskId);
+                            }
+                        }
+                        scheduled.values().removeIf(pending -> pending instanceof Subtask
+                                && ((Subtask) pending).getEpicId() == id);
+                    }
+                    break;
+                default:
+                    break;
+            }
         }
 
-        for (Subtask subtask : subtasksByEpic) {
-            if (subtask.getStatus() == TaskStatus.DONE) {
-                subtaskDoneCount++;
+        List<Task> candidates = new ArrayList<>(scheduled.size());
+        for (Task task : scheduled.values()) {
+            if (task.getStartTime() != null) {
+                candidates.add(task);
             }
-            if (subtask.getStatus() == TaskStatus.IN_PROGRESS) {
-                subtaskInProgressCount++;
+        }
+        candidates.sort(Comparator.comparing(Task::getStartTime));
+
+        for (int i = 0; i < candidates.size(); i++) {
+            Task task = candidates.get(i);
+            boolean intersects = i > 0 && intervalStart(task) < intervalEnd(candidates.get(i - 1));
+            if (intersects || !intersectionEngine.isFree(intervalStart(task), intervalEnd(task))) {
+                for (Task released : releasedTasks.values()) {
+                    intersectionEngine.tryReserve(intervalStart(released), intervalEnd(released));
+                }
+                throw new IntersectionDetectedException("Пересечение между задачами");
             }
         }
+        for (Task task : candidates) {
+            intersectionEngine.tryReserve(intervalStart(task), intervalEnd(task));
+        }
+    }
 
-        if (subtaskDoneCount == subtaskCount) {
-            return SubtasksStatus.SUBTASKS_DONE;
-        } else if (subtaskInProgressCount >= 1 || subtaskDoneCount >= 1) {
-            return SubtasksStatus.ONE_IN_PROGRESS;
-        } else {
-            return SubtasksStatus.NONE_SUBTASKS_DONE_OR_IN_PROGRESS;
+    private void releaseForBatch(Task task, IntHashMap<Task> releasedTasks) {
+        if (task != null && task.getStartTime() != null && !releasedTasks.containsKey(task.getId())) {
+            intersectionEngine.release(intervalStart(task), intervalEnd(task));
+            releasedTasks.put(task.getId(), task);
         }
     }
 
+    @Override
+    public TaskManagerSnapshot getSnapshot() {
+        if (snapshotOutdated) {
+            snapshot = buildSnapshot();
+        } else if (!changedIds.isEmpty() || snapshot.getLastId() != lastId) {
+            snapshot = applyChanges();
+        }
+        snapshotOutdated = false;
+        changedIds.clear();
+        return snapshot;
+    }
+
+    /**
+     * Отметить задачу как изменённую: обновить индекс статусов
+     * и запомнить id для следующего снимка
+     *
+     * @param id Id задачи
+     */
+    protected void touch(int id) {
+        changedIds.add(id);
+        Task task = tasks.get(id);
+        if (task != null) {
+            statusIndex.put(TaskType.TASK, id, task.getStatus());
+            return;
+        }
+        Epic epic = epics.get(id);
+        if (epic != null) {
+            statusIndex.put(TaskType.EPIC, id, epic.getStatus());
+            return;
+        }
+        Subtask subtask = subtasks.get(id);
+        if (subtask != null) {
+            statusIndex.put(TaskType.SUBTASK, id, subtask.getStatus());
+            return;
+        }
+        statusIndex.remove(id);
+    }
+
+    private TaskManagerSnapshot applyChanges() {
+        PersistentIntMap<Task> newTasks = snapshot.tasks();
+        PersistentIntMap<Epic> newEpics = snapshot.epics();
+        PersistentIntMap<Subtask> newSubtasks = snapshot.subtasks();
+        PersistentIntMap<PersistentIntMap<Integer>> newEpicSubtasks = snapshot.epicSubtasks();
+        IntHashSet changedEpicIds = new IntHashSet();
+        for (PrimitiveIterator.OfInt iterator = changedIds.iterator(); iterator.hasNext(); ) {
+            int id = iterator.nextInt();
+            Task task = tasks.get(id);
+            Epic epic = epics.get(id);
+            Subtask subtask = subtasks.get(id);
+            Subtask oldSubtask = snapshot.subtasks().get(id);
+            newTasks = task == null ? newTasks.remove(id) : newTasks.put(id, new Task(task));
+            newSubtasks = subtask == null ? newSubtasks.remove(id) : newSubtasks.put(id, new Subtask(subtask));
+            if (epic == null) {
+                newEpics = newEpics.remove(id);
+                newEpicSubtasks = newEpicSubtasks.remove(id);
+            } else {
+                changedEpicIds.add(id);
+            }
+            if (oldSubtask != null && (subtask == null || subtask.getEpicId() != oldSubtask.getEpicId())) {
+                newEpicSubtasks = removeMember(newEpicSubtasks, oldSubtask.getEpicId(), id);
+                changedEpicIds.add(oldSubtask.getEpicId());
+            }
+            if (subtask != null && (oldSubtask == null || subtask.getEpicId() != oldSubtask.getEpicId())) {
+                newEpicSubtasks = addMember(newEpicSubtasks, subtask.getEpicId(), id);
+                changedEpicIds.add(subtask.getEpicId());
+            }
+        }
+        for (PrimitiveIterator.OfInt iterator = changedEpicIds.iterator(); iterator.hasNext(); ) {
+            Epic epic = epics.get(iterator.nextInt());
+            if (epic != null) {
+                newEpics = newEpics.put(epic.getId(), snapshotEpic(epic, newEpicSubtasks));
+            }
+        }
+        return new TaskManagerSnapshot(snapshot.getVersion() + 1, lastId, newTasks, newEpics, newSubtasks,
+                newEpicSubtasks);
+    }
+
+    private TaskManagerSnapshot buildSnapshot() {
+        PersistentIntMap<Task> newTasks = PersistentIntMap.empty();
+        PersistentIntMap<Epic> newEpics = PersistentIntMap.empty();
+        PersistentIntMap<Subtask> newSubtasks = PersistentIntMap.empty();
+        PersistentIntMap<PersistentIntMap<Integer>> newEpicSubtasks = PersistentIntMap.empty();
+        for (Task task : tasks.values()) {
+            newTasks = newTasks.put(task.getId(), new Task(task));
+        }
+        for (Subtask subtask : subtasks.values()) {
+            newSubtasks = newSubtasks.put(subtask.getId(), new Subtask(subtask));
+            newEpicSubtasks = addMember(newEpicSubtasks, subtask.getEpicId(), subtask.getId());
+        }
+        for (Epic epic : epics.values()) {
+            newEpics = newEpics.put(epic.getId(), snapshotEpic(epic, newEpicSubtasks));
+        }
+        return new TaskManagerSnapshot(snapshot.getVersion() + 1, lastId, newTasks, newEpics, newSubtasks,
+                newEpicSubtasks);
+    }
+
+    /**
+     * Копия эпика для снимка: id подзадач не копируются, а читаются из неизменяемой таблицы состава снимка
+     */
+    private static Epic snapshotEpic(Epic epic, PersistentIntMap<PersistentIntMap<Integer>> epicSubtasks) {
+        PersistentIntMap<Integer> ids = epicSubtasks.get(epic.getId());
+        return new Epic(epic, new PersistentIntSetView(ids == null ? PersistentIntMap.empty() : ids));
+    }
+
+    private static PersistentIntMap<PersistentIntMap<Integer>> addMember(
+            PersistentIntMap<PersistentIntMap<Integer>> epicSubtasks, int epicId, int subtaskId) {
+        PersistentIntMap<Integer> ids = epicSubtasks.get(epicId);
+        if (ids == null) {
+            ids = PersistentIntMap.empty();
+        }
+        return epicSubtasks.put(epicId, ids.put(subtaskId, subtaskId));
+    }
+
+    private static PersistentIntMap<PersistentIntMap<Integer>> removeMember(
+            PersistentIntMap<PersistentIntMap<Integer>> epicSubtasks, int epicId, int subtaskId) {
+        PersistentIntMap<Integer> ids = epicSubtasks.get(epicId);
+        if (ids == null) {
+            return epicSubtasks;
+        }
+        ids = ids.remove(subtaskId);
+        return ids.isEmpty() ? epicSubtasks.remove(epicId) : epicSubtasks.put(epicId, ids);
+    }
+
+    @Override
+    public Map<Long, Boolean> getGridWithIntervals() {
+        return new SlotMapView(INTERVALS_PER_YEAR, this::isTimeSlotFree);
+    }
+
+    @Override
+    public boolean isTimeSlotFree(long slot) {
+        if (slot < 0 || slot >= INTERVALS_PER_YEAR) {
+            return false;
+        }
+        long start = programStartTime + slot * MINUTES_INTERVAL * MINUTE_IN_MILLIS;
+        return intersectionEngine.isFree(start, start + MINUTES_INTERVAL * MINUTE_IN_MILLIS);
+    }
+
+    @Override
+    public long getProgramStartTime() {
+        return programStartTime;
+    }
+
+    /**
+     * Проверка статусов всех {@link Subtask} в {@link Epic}
+     *
+     * @param epicId Id объекта
+     * @return Статус
+     */
+    protected SubtasksStatus checkEpicForStatus(int epicId) {
+        return aggregateOf(epicId).getSubtasksStatus();
+    }
+
     /**
      * Установка статуса для {@link Epic}
      *
      * @param epicId Id объекта
      */
     protected void setEpicStatus(int epicId) {
+        if (applyingBatch) {
+            batchEpicIds.add(epicId);
+            return;
+        }
+
+        applyEpicStatus(epics.get(epicId), checkEpicForStatus(epicId));
+        touch(epicId);
+    }
 
-        switch (checkEpicForStatus(epicId)) {
+    /**
+     * Установить статус эпика по статусам подзадач
+     *
+     * @param epic           Эпик
+     * @param subtasksStatus Статусы подзадач эпика
+     */
+    private static void applyEpicStatus(Epic epic, SubtasksStatus subtasksStatus) {
+        switch (subtasksStatus) {
             case SUBTASKS_DONE:
-                epics.get(epicId).setStatus(TaskStatus.DONE);
+                epic.setStatus(TaskStatus.DONE);
                 break;
             case ONE_IN_PROGRESS:
-                epics.get(epicId).setStatus(TaskStatus.IN_PROGRESS);
+                epic.setStatus(TaskStatus.IN_PROGRESS);
                 break;
             case NONE_SUBTASKS_DONE_OR_IN_PROGRESS:
-                epics.get(epicId).setStatus(TaskStatus.NEW);
+                epic.setStatus(TaskStatus.NEW);
                 break;
         }
     }
@@ -445,85 +797,218 @@ public class InMemoryTaskManager implements TaskManager {
      * @param epicId Id объекта
      */
     protected void setEpicDuration(int epicId) {
-        final List<Subtask> subtasksByEpic = getSubtasksByEpic(epicId);
+        EpicAggregate aggregate = aggregateOf(epicId);
+        Epic epic = epics.get(epicId);
+        touch(epicId);
+        if (applyingBatch) {
+            batchEpicIds.add(epicId);
+            return;
+        }
+
+        applyEpicTime(epic, aggregate);
+    }
 
-        if (subtasksByEpic.size() == 0) {
-            epics.get(epicId).setStartTime(null);
-            epics.get(epicId).setEndTime(null);
-            epics.get(epicId).setDuration(0);
+    private static void applyEpicTime(Epic epic, EpicAggregate aggregate) {
+        epic.setDuration(aggregate.getDuration());
+        epic.setStartTime(aggregate.getStartTime());
+        epic.setEndTime(aggregate.getEndTime());
+    }
+
+    /**
+     * Получить агрегированные данные подзадач {@link Epic}
+     *
+     * @param epicId Id объекта
+     * @return Агрегат подзадач
+     */
+    protected EpicAggregate aggregateOf(int epicId) {
+        EpicAggregate aggregate = epicAggregates.get(epicId);
+        if (aggregate == null) {
+            aggregate = new EpicAggregate();
+            epicAggregates.put(epicId, aggregate);
         }
+        return aggregate;
+    }
 
-        long sumDuration = subtasksByEpic.stream().mapToLong(Subtask::getDuration).sum();
-        epics.get(epicId).setDuration(sumDuration);
+    /**
+     * Перестроить индексы менеджера по загруженным данным одним проходом, без добавления задач по одной:
+     * индекс статусов, наибольший id, порядок приоритета, агрегаты и статусы эпиков и занятое время.
+     * Промежутки задач обходятся по возрастанию начала, пересекающиеся сливаются и занимаются один раз,
+     * поэтому даже противоречивые данные полностью занимают своё время
+     */
+    protected void rebuildIndexes() {
+        snapshotOutdated = true;
+        changedIds.clear();
+
+        statusIndex.clear();
+        for (Task task : tasks.values()) {
+            statusIndex.put(TaskType.TASK, task.getId(), task.getStatus());
+            lastId = Integer.max(lastId, task.getId());
+        }
+        for (Subtask subtask : subtasks.values()) {
+            statusIndex.put(TaskType.SUBTASK, subtask.getId(), subtask.getStatus());
+            lastId = Integer.max(lastId, subtask.getId());
+        }
 
-        Optional<Instant> minInstant = subtasksByEpic.stream().
-                filter(sub -> sub.getStatus() != TaskStatus.DONE).map(Subtask::getStartTime).
-                filter(Objects::nonNull).min(Instant::compareTo);
-        Optional<Instant> maxInstant = subtasksByEpic.stream().
-                filter(sub -> sub.getStatus() != TaskStatus.DONE).map(Subtask::getEndTime).
-                filter(Objects::nonNull).max(Instant::compareTo);
+        epicAggregates.clear();
+        for (Integer epicId : epics.keySet()) {
+            epicAggregates.put(epicId, new EpicAggregate());
+        }
+        for (Subtask subtask : subtasks.values()) {
+            EpicAggregate aggregate = epicAggregates.get(subtask.getEpicId());
+            if (aggregate != null) {
+                aggregate.add(subtask);
+            }
+        }
+        for (Epic epic : epics.values()) {
+            EpicAggregate aggregate = epicAggregates.get(epic.getId());
+            applyEpicStatus(epic, aggregate.getSubtasksStatus());
+            applyEpicTime(epic, aggregate);
+            statusIndex.put(TaskType.EPIC, epic.getId(), epic.getStatus());
+            lastId = Integer.max(lastId, epic.getId());
+        }
 
-        epics.get(epicId).setStartTime(minInstant.orElse(null));
-        epics.get(epicId).setEndTime(maxInstant.orElse(null));
+        prioritizedTasks.clear();
+        prioritizedTasks.addAll(tasks.values());
+        prioritizedTasks.addAll(subtasks.values());
+
+        intersectionEngine.clear();
+        long runStart = 0;
+        long runEnd = Long.MIN_VALUE;
+        for (Task task : prioritizedTasks) {
+            if (task.getStartTime() == null) {
+                break;
+            }
+            long start = intervalStart(task);
+            long end = intervalEnd(task);
+            if (start >= runEnd) {
+                if (runEnd != Long.MIN_VALUE) {
+                    intersectionEngine.tryReserve(runStart, runEnd);
+                }
+                runStart = start;
+                runEnd = end;
+            } else {
+                runEnd = Math.max(runEnd, end);
+            }
+        }
+        if (runEnd != Long.MIN_VALUE) {
+            intersectionEngine.tryReserve(runStart, runEnd);
+        }
     }
 
     /**
-     * Проверить пересечения
+     * Проверить пересечения и занять время задачи
      *
      * @param task Добаляемая задача
      */
     protected void checkForIntersection(Task task) {
-        if (task.getStartTime() == null) {
+        if (task.getStartTime() == null || applyingBatch) {
             return;
         }
-        var time = task.getStartTime().toEpochMilli() - programStartTime;
-        var result = isIntervalAvailable(time, task.getDuration());
-        if (!result) {
+        if (!intersectionEngine.tryReserve(intervalStart(task), intervalEnd(task))) {
             throw new IntersectionDetectedException("Пересечение между задачами");
         }
     }
 
     /**
-     * Проверить временную сетку на наличие свободных интервалов
+     * Очистка занятых интервалов
      *
-     * @param startTime Время начала задачи в милисекундах от начала работы программы
-     * @param duration  Продолжительность задачи в минутах
-     * @return Результат наличия свободныйх интервалов
+     * @param task Задача
      */
-    protected boolean isIntervalAvailable(long startTime, long duration) {
-        long newStart = startTime / MINUTE_IN_MILLIS / MINUTES_INTERVAL;
-        // Количество 15-минутных интервалов, занимаемых задачей
-        long numIntervals = duration == MINUTES_INTERVAL ? 1 : duration / MINUTES_INTERVAL + 1;
-        for (long i = newStart; i < newStart + numIntervals; i++) {
-            if (!gridWithIntervals.getOrDefault(i, false)) {
-                return false; // Интервал занят
-            }
+    protected void clearIntervals(Task task) {
+        if (task.getStartTime() == null || applyingBatch) {
+            return;
+        }
+        intersectionEngine.release(intervalStart(task), intervalEnd(task));
+    }
+
+    /**
+     * Очистка занятых интервалов удаляемых задач.
+     * Если запланированных по времени задач не осталось, сетка очищается целиком
+     *
+     * @param removedTasks Удаляемые задачи
+     */
+    protected void clearIntervals(Collection<? extends Task> removedTasks) {
+        if (!prioritizedTasks.hasScheduled()) {
+            intersectionEngine.clear();
+            return;
         }
-        for (long i = newStart; i < newStart + numIntervals; i++) {
-            gridWithIntervals.put(i, false); // Заняли интервал
+        for (Task task : removedTasks) {
+            clearIntervals(task);
         }
-        return true;
     }
 
     /**
-     * Очистка занятых интервалов
+     * Удалить все {@link Subtask} эпика из менеджера, не затрагивая остальные подзадачи
      *
-     * @param task Задача
+     * @param epic Эпик
      */
-    protected void clearIntervals(Task task) {
-        if (task.getStartTime() == null) {
+    protected void removeSubtasksOfEpic(Epic epic) {
+        IntHashSet subtaskIds = epic.getSubtasks();
+        inMemoryHistoryManager.removeAll(subtaskIds);
+        for (PrimitiveIterator.OfInt iterator = subtaskIds.iterator(); iterator.hasNext(); ) {
+            int subtaskId = iterator.nextInt();
+            Subtask subtask = subtasks.remove(subtaskId);
+            touch(subtaskId);
+            if (subtask != null) {
+                prioritizedTasks.removeById(subtaskId);
+                clearIntervals(subtask);
+            }
+        }
+        subtaskIds.clear();
+        aggregateOf(epic.getId()).clear();
+    }
+
+    /**
+     * Удалить задачи из списка приоритетов.
+     * Если удаляемых задач больше, чем остающихся, список перестраивается из остающихся задач
+     *
+     * @param removedTasks   Удаляемые задачи
+     * @param remainingTasks Все задачи, которые остаются в списке
+     */
+    protected void removeFromPrioritizedTasks(Collection<? extends Task> removedTasks,
+                                              Collection<? extends Task> remainingTasks) {
+        if (removedTasks.size() < remainingTasks.size()) {
+            for (Task task : removedTasks) {
+                prioritizedTasks.removeById(task.getId());
+            }
             return;
         }
-        long newStart = (task.getStartTime().toEpochMilli() - programStartTime)
-                / MINUTE_IN_MILLIS / MINUTES_INTERVAL;
-        long numIntervals = task.getDuration() == MINUTES_INTERVAL
-                ? 1 : task.getDuration() / MINUTES_INTERVAL + 1;
+        prioritizedTasks.clear();
+        prioritizedTasks.addAll(remainingTasks);
+    }
 
-        for (long i = newStart; i < newStart + numIntervals; i++) {
-            gridWithIntervals.put(i, true);
+    /**
+     * Перенести занятое время со старой версии задачи на новую.
+     * При пересечении время старой версии остаётся занятым
+     *
+     * @param oldTask Текущая версия задачи
+     * @param newTask Новая версия задачи
+     */
+    protected void replaceIntervals(Task oldTask, Task newTask) {
+        clearIntervals(oldTask);
+        try {
+            checkForIntersection(newTask);
+        } catch (IntersectionDetectedException e) {
+            checkForIntersection(oldTask);
+            throw e;
         }
     }
 
+    /**
+     * Начало занятого задачей промежутка в милисекундах
+     */
+    private static long intervalStart(Task task) {
+        return task.getStartTime().toEpochMilli();
+    }
+
+    /**
+     * Конец занятого задачей промежутка в милисекундах.
+     * Задача без продолжительности занимает одну минуту
+     */
+    private static long intervalEnd(Task task) {
+        return intervalStart(task) + Math.max(task.getDuration(), 1) * MINUTE_IN_MILLIS;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -532,14 +1017,14 @@ public class InMemoryTaskManager implements TaskManager {
         return lastId == that.lastId && programStartTime == that.programStartTime
                 && Objects.equals(epics, that.epics) && Objects.equals(subtasks, that.subtasks)
                 && Objects.equals(tasks, that.tasks) && Objects.equals(inMemoryHistoryManager,
-                that.inMemoryHistoryManager) && Objects.equals(gridWithIntervals,
-                that.gridWithIntervals) && Objects.equals(prioritizedTasks, that.prioritizedTasks);
+                that.inMemoryHistoryManager) && Objects.equals(intersectionEngine,
+                that.intersectionEngine) && Objects.equals(prioritizedTasks, that.prioritizedTasks);
     }
 
     @Override
     public int hashCode() {
         return Objects.hash(lastId, epics, subtasks, tasks,
-                inMemoryHistoryManager, gridWithIntervals, prioritizedTasks, programStartTime);
+                inMemoryHistoryManager, intersectionEngine, prioritizedTasks, programStartTime);
     }
 
     @Override
@@ -549,7 +1034,7 @@ public class InMemoryTaskManager implements TaskManager {
                 + ", epics.size()=" + epics.size()
                 + ", subtasks=" + subtasks.size()
                 + ", tasks=" + tasks.size()
-                + ", gridWithIntervals=" + gridWithIntervals.size()
+                + ", intersectionEngine=" + intersectionEngine
                 + ", prioritizedTasks=" + prioritizedTasks.size()
                 + ", programStartTime=" + programStartTime
                 + '}';
@@ -0,0 +1,39 @@
+package kanban.manager;
+
+/**
+ * Механизм проверки пересечений задач по времени.
+ * Промежутки задаются в милисекундах UNIX-времени как полуинтервалы [start, end)
+ */
+public interface IntersectionEngine {
+
+    /**
+     * Занять промежуток, если он ни с чем не пересекается
+     *
+     * @param start Начало промежутка (включительно)
+     * @param end   Конец промежутка (не включительно)
+     * @return true - если промежуток был свободен и теперь занят
+     */
+    boolean tryReserve(long start, long end);
+
+    /**
+     * Освободить промежуток
+     *
+     * @param start Начало промежутка (включительно)
+     * @param end   Конец промежутка (не включительно)
+     */
+    void release(long start, long end);
+
+    /**
+     * Проверить, свободен ли промежуток
+     *
+     * @param start Начало промежутка (включительно)
+     * @param end   Конец промежутка (не включительно)
+     * @return true - если промежуток ни с чем не пересекается
+     */
+    boolean isFree(long start, long end);
+
+    /**
+     * Освободить все промежутки
+     */
+    void clear();
+}
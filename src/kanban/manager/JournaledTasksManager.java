@@ -0,0 +1,158 @@
+package kanban.manager;
+
+import kanban.models.Task;
+import kanban.models.TaskType;
+import kanban.util.IntHashSet;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PrimitiveIterator;
+
+/**
+ * Менеджер задач, который после изменения не переписывает файл, а дописывает короткие записи в журнал.
+ * Когда журнал становится длиннее доски, состояние целиком сохраняется в файл (контрольная точка),
+ * а журнал очищается, поэтому стоимость сохранения одного изменения не зависит от размера доски
+ */
+public class JournaledTasksManager extends FileBackedTasksManager {
+
+    /**
+     * Минимальное количество записей журнала между контрольными точками
+     */
+    public static final int DEFAULT_CHECKPOINT_INTERVAL = 1_000;
+
+    private final int checkpointInterval;
+
+    /**
+     * Id задач, изменённых после последней записи в журнал
+     */
+    private final IntHashSet unsavedIds = new IntHashSet();
+
+    /**
+     * Удаления всех задач типа после последней записи в журнал
+     */
+    private final List<TaskType> clearedTypes = new ArrayList<>();
+
+    /**
+     * Количество записей журнала после последней контрольной точки
+     */
+    private int journalSize;
+
+    protected JournaledTasksManager(String path, int checkpointInterval) {
+        super(path);
+        if (checkpointInterval < 1) {
+            throw new IllegalArgumentException("Интервал контрольных точек должен быть положительным");
+        }
+        this.checkpointInterval = checkpointInterval;
+    }
+
+    /**
+     * Восстановить менеджер из последней контрольной точки и журнала
+     *
+     * @param file Путь к файлу
+     * @return Объект менеджера
+     */
+    public static JournaledTasksManager loadFromFile(File file) {
+        return loadFromFile(file, DEFAULT_CHECKPOINT_INTERVAL);
+    }
+
+    /**
+     * Восстановить менеджер из последней контрольной точки и журнала
+     *
+     * @param file               Путь к файлу
+     * @param checkpointInterval Минимальное количество записей журнала между контрольными точками
+     * @return Объект менеджера
+     */
+    public static JournaledTasksManager loadFromFile(File file, int checkpointInterval) {
+        JournaledTasksManager tasksManager = new JournaledTasksManager(file.getAbsolutePath(), checkpointInterval);
+        tasksManager.restore();
+        tasksManager.checkpoint();
+        return tasksManager;
+    }
+
+    /**
+     * Сохранить состояние в файл целиком и очистить журнал
+     */
+    public void checkpoint() {
+        unsavedIds.clear();
+        clearedTypes.clear();
+        super.save();
+        journalSize = 0;
+    }
+
+    /**
+     * @return Количество записей журнала после последней контрольной точки
+     */
+    public int getJournalSize() {
+        return journalSize;
+    }
+
+    /**
+     * Дописать в журнал изменения после последней записи
+     */
+    @Override
+    protected void save() {
+        if (unsavedIds.isEmpty() && clearedTypes.isEmpty()) {
+            return;
+        }
+        List<String> records = new ArrayList<>(clearedTypes.size() + unsavedIds.size());
+        for (TaskType type : clearedTypes) {
+            records.add(TaskJournal.clear(type));
+        }
+        for (PrimitiveIterator.OfInt iterator = unsavedIds.iterator(); iterator.hasNext(); ) {
+            records.add(record(iterator.nextInt()));
+        }
+        unsavedIds.clear();
+        clearedTypes.clear();
+        append(records);
+    }
+
+    @Override
+    protected void touch(int id) {
+        super.touch(id);
+        unsavedIds.add(id);
+    }
+
+    @Override
+    public void clearEpics() {
+        clearedTypes.add(TaskType.EPIC);
+        super.clearEpics();
+    }
+
+    @Override
+    public void clearSubtasks() {
+        clearedTypes.add(TaskType.SUBTASK);
+        super.clearSubtasks();
+    }
+
+    @Override
+    public void clearTasks() {
+        clearedTypes.add(TaskType.TASK);
+        super.clearTasks();
+    }
+
+    /**
+     * Получить запись журнала с текущим состоянием задачи
+     *
+     * @param id Id задачи
+     * @return Запись
+     */
+    private String record(int id) {
+        Task task = tasks.get(id);
+        if (task == null) {
+            task = epics.get(id);
+        }
+        if (task == null) {
+            task = subtasks.get(id);
+        }
+        return task == null ? TaskJournal.delete(id) : TaskJournal.put(task);
+    }
+
+    private void append(List<String> records) {
+        TaskJournal.append(TaskJournal.pathOf(getPath()), records);
+        journalSize += records.size();
+        if (journalSize >= Math.max(checkpointInterval, tasks.size() + epics.size() + subtasks.size())) {
+            checkpoint();
+        }
+    }
+}
@@ -18,7 +18,39 @@ public class Managers {
         return FileBackedTasksManager.loadFromFile(new File("resources/data_at_server.csv"));
     }
 
+    public static TaskManager getJournaledFileManager(){
+        return JournaledTasksManager.loadFromFile(new File("resources/data_at_server.csv"));
+    }
+
+    /**
+     * Сегментированный менеджер при загрузке переносит задачи в сегменты и переписывает файл без них,
+     * поэтому у него свой файл, а не общий с {@link #getFileManager()}
+     */
+    public static SegmentedTasksManager getSegmentedFileManager(){
+        return SegmentedTasksManager.loadFromFile(new File("resources/data_segmented.csv"));
+    }
+
+    public static WriteBehindTasksManager getWriteBehindFileManager(){
+        return WriteBehindTasksManager.loadFromFile(new File("resources/data_at_server.csv"));
+    }
+
+    /**
+     * Менеджер на отображаемых в память файлах при загрузке переносит задачи в файл записей
+     * и переписывает файл без них, поэтому у него свой файл, а не общий с {@link #getFileManager()}
+     */
+    public static MappedTasksManager getMappedFileManager(){
+        return MappedTasksManager.loadFromFile(new File("resources/data_mapped.csv"));
+    }
+
     public static HttpTaskManager getHttpTaskManager(){
         return new HttpTaskManager("http://localhost:8078");
     }
+
+    public static DebouncedHttpTaskManager getDebouncedHttpTaskManager(){
+        return new DebouncedHttpTaskManager("http://localhost:8078", DebouncedHttpTaskManager.DEFAULT_WINDOW_MILLIS);
+    }
+
+    public static TaskManager getConcurrentManager(TaskManager taskManager){
+        return new ConcurrentTaskManager(taskManager);
+    }
 }
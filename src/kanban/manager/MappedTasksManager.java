@@ -0,0 +1,206 @@
+package kanban.manager;
+
+import kanban.models.Task;
+import kanban.models.TaskType;
+import kanban.util.IntHashSet;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.Set;
+
+/**
+ * Менеджер задач, который хранит задачи в записях фиксированного размера, отображённых в память
+ * ({@link TaskRecordStore}), а названия и описания - в куче строк рядом с ними.
+ * Изменение статуса или времени задачи переписывает на месте одну запись, страницы на диск сбрасывает
+ * операционная система. Чтобы дождаться записи на диск, нужно вызвать {@link #force()}.
+ * Основной файл хранит только заголовок и историю просмотров, просмотры дописываются в журнал просмотров
+ */
+public class MappedTasksManager extends FileBackedTasksManager implements AutoCloseable {
+
+    private static final String RECORDS_EXTENSION = ".records";
+    private static final String HEAP_EXTENSION = ".heap";
+
+    private TaskRecordStore store;
+
+    /**
+     * Id задач, изменённых после последнего сохранения
+     */
+    private final IntHashSet unsavedIds = new IntHashSet();
+
+    /**
+     * Типы, все записи которых нужно освободить при следующем сохранении
+     */
+    private final Set<TaskType> clearedTypes = EnumSet.noneOf(TaskType.class);
+
+    /**
+     * После восстановления нужно переписать хранилище целиком
+     */
+    private boolean migrate;
+
+    protected MappedTasksManager(String path) {
+        super(path);
+        try {
+            store = new TaskRecordStore(getRecordsPath(), getHeapPath());
+        } catch (IOException e) {
+            throw new ManagerSaveException(e.getMessage());
+        }
+    }
+
+    /**
+     * Восстановить менеджер из основного файла и хранилища записей.
+     * Если в основном файле есть задачи, например это обычный снимок {@link FileBackedTasksManager},
+     * они переносятся в записи, а основной файл переписывается без задач
+     *
+     * @param file Путь к основному файлу
+     * @return Объект менеджера
+     */
+    public static MappedTasksManager loadFromFile(File file) {
+        MappedTasksManager tasksManager = new MappedTasksManager(file.getAbsolutePath());
+        tasksManager.restore();
+        return tasksManager;
+    }
+
+    /**
+     * Прочитать основной файл и все записи хранилища
+     */
+    @Override
+    protected void readSnapshot(Set<Integer> history) throws IOException {
+        super.readSnapshot(history);
+        migrate |= !tasks.isEmpty() || !epics.isEmpty() || !subtasks.isEmpty();
+        store.load(this::putRestored);
+        lastId = Integer.max(lastId, store.getLastId());
+    }
+
+    /**
+     * Восстановить состояние. Хранилище переписывается целиком, если задачи были в основном файле
+     * или в журнале изменений, либо если в куче строк накопилось много мусора.
+     * Новое хранилище пишется рядом с текущим и заменяет его только после сброса на диск,
+     * а основной файл переписывается без задач только после этого, поэтому при сбое задачи остаются
+     * хотя бы в одном из мест
+     */
+    @Override
+    protected void restore() {
+        migrate = Files.exists(TaskJournal.pathOf(getPath()));
+        super.restore();
+        if (migrate || store.hasHeapGarbage()) {
+            try {
+                store.close();
+                TaskRecordStore.replace(getRecordsPath(), getHeapPath(),
+                        List.of(tasks.values(), epics.values(), subtasks.values()), lastId);
+                store = new TaskRecordStore(getRecordsPath(), getHeapPath());
+            } catch (IOException e) {
+                throw new ManagerSaveException(e.getMessage());
+            }
+            writeSnapshot(List.of(), List.of(), List.of(), historyIds(inMemoryHistoryManager), true);
+            migrate = false;
+        }
+    }
+
+    /**
+     * Переписать записи изменённых задач. Основной файл не переписывается:
+     * история просмотров сохраняется в журнал просмотров
+     */
+    @Override
+    protected void save() {
+        try {
+            for (TaskType type : clearedTypes) {
+                store.removeType(type);
+            }
+            clearedTypes.clear();
+
+            for (PrimitiveIterator.OfInt iterator = unsavedIds.iterator(); iterator.hasNext(); ) {
+                int id = iterator.nextInt();
+                Task task = findTask(id);
+                if (task != null) {
+                    store.put(task);
+                } else {
+                    store.remove(id);
+                }
+            }
+            unsavedIds.clear();
+            store.setLastId(lastId);
+        } catch (IOException e) {
+            throw new ManagerSaveException(e.getMessage());
+        }
+    }
+
+    @Override
+    protected void touch(int id) {
+        super.touch(id);
+        unsavedIds.add(id);
+    }
+
+    @Override
+    public void clearEpics() {
+        clearedTypes.add(TaskType.EPIC);
+        clearedTypes.add(TaskType.SUBTASK);
+        super.clearEpics();
+    }
+
+    @Override
+    public void clearSubtasks() {
+        clearedTypes.add(TaskType.SUBTASK);
+        super.clearSubtasks();
+    }
+
+    @Override
+    public void clearTasks() {
+        clearedTypes.add(TaskType.TASK);
+        super.clearTasks();
+    }
+
+    /**
+     * Дождаться записи изменённых страниц и кучи строк на диск
+     */
+    public void force() {
+        try {
+            store.force();
+        } catch (IOException e) {
+            throw new ManagerSaveException(e.getMessage());
+        }
+    }
+
+    /**
+     * Сбросить данные на диск и закрыть файлы хранилища. Повторный вызов ничего не делает
+     */
+    @Override
+    public void close() {
+        if (!store.isOpen()) {
+            return;
+        }
+        try {
+            store.force();
+            store.close();
+        } catch (IOException e) {
+            throw new ManagerSaveException(e.getMessage());
+        }
+    }
+
+    /**
+     * @return Путь к файлу записей
+     */
+    public Path getRecordsPath() {
+        return getPath().resolveSibling(getPath().getFileName() + RECORDS_EXTENSION);
+    }
+
+    /**
+     * @return Путь к куче строк
+     */
+    public Path getHeapPath() {
+        return getPath().resolveSibling(getPath().getFileName() + HEAP_EXTENSION);
+    }
+
+    private Task findTask(int id) {
+        Task task = tasks.get(id);
+        if (task != null) {
+            return task;
+        }
+        task = epics.get(id);
+        return task != null ? task : subtasks.get(id);
+    }
+}
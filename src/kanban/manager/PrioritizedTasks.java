@@ -0,0 +1,251 @@
+package kanban.manager;
+
+import kanban.models.Task;
+import kanban.util.IntHashMap;
+
+import java.time.Instant;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * Список задач в порядке приоритета.
+ * Задачи упорядочены по ключу (время начала, id), задачи без времени идут в конце в порядке id,
+ * то есть в порядке создания. Порядок совпадает с {@link #ORDER}
+ */
+public class PrioritizedTasks extends AbstractSet<Task> {
+
+    /**
+     * Порядок приоритета: по времени начала, задачи без времени в конце, при равном времени - по id
+     */
+    static final Comparator<Task> ORDER = Comparator
+            .comparing(Task::getStartTime, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparingInt(Task::getId);
+
+    /**
+     * Ключ задачи в упорядоченном списке
+     */
+    private static final class Key implements Comparable<Key> {
+
+        /**
+         * Время начала, null - у задачи без времени
+         */
+        private final Instant startTime;
+        private final int id;
+
+        private Key(Instant startTime, int id) {
+            this.startTime = startTime;
+            this.id = id;
+        }
+
+        @Override
+        public int compareTo(Key other) {
+            if (startTime != other.startTime) {
+                if (startTime == null) {
+                    return 1;
+                }
+                if (other.startTime == null) {
+                    return -1;
+                }
+                int result = startTime.compareTo(other.startTime);
+                if (result != 0) {
+                    return result;
+                }
+            }
+            return Integer.compare(id, other.id);
+        }
+    }
+
+    private final NavigableMap<Key, Task> ordered = new TreeMap<>();
+
+    /**
+     * Количество задач без времени начала, они лежат в конце {@link #ordered}
+     */
+    private int unscheduledCount;
+
+    /**
+     * Ключи задач по id, чтобы удалять задачу даже после изменения её времени
+     */
+    private final IntHashMap<Key> keysById = new IntHashMap<>();
+
+    /**
+     * Добавить задачу. Задача с тем же id заменяется
+     *
+     * @param task Задача
+     * @return true - всегда
+     */
+    @Override
+    public boolean add(Task task) {
+        removeById(task.getId());
+        Key key = new Key(task.getStartTime(), task.getId());
+        ordered.put(key, task);
+        keysById.put(task.getId(), key);
+        if (key.startTime == null) {
+            unscheduledCount++;
+        }
+        return true;
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends Task> tasks) {
+        for (Task task : tasks) {
+            add(task);
+        }
+        return !tasks.isEmpty();
+    }
+
+    /**
+     * Удалить задачу по id
+     *
+     * @param id Id задачи
+     * @return Удалённая задача, null - если не найдена
+     */
+    public Task removeById(int id) {
+        Key key = keysById.remove(id);
+        if (key == null) {
+            return null;
+        }
+        if (key.startTime == null) {
+            unscheduledCount--;
+        }
+        return ordered.remove(key);
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (!(o instanceof Task)) {
+            return false;
+        }
+        return removeById(((Task) o).getId()) != null;
+    }
+
+    /**
+     * Получить задачу по id
+     *
+     * @param id Id задачи
+     * @return Задача, null - если не найдена
+     */
+    public Task getById(int id) {
+        Key key = keysById.get(id);
+        return key == null ? null : ordered.get(key);
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        if (!(o instanceof Task)) {
+            return false;
+        }
+        return Objects.equals(getById(((Task) o).getId()), o);
+    }
+
+    @Override
+    public int size() {
+        return ordered.size();
+    }
+
+    @Override
+    public void clear() {
+        ordered.clear();
+        unscheduledCount = 0;
+        keysById.clear();
+    }
+
+    /**
+     * Проверить, есть ли задачи со временем начала
+     *
+     * @return true - если есть хотя бы одна такая задача
+     */
+    public boolean hasScheduled() {
+        return ordered.size() > unscheduledCount;
+    }
+
+    /**
+     * Получить задачи, начинающиеся в промежутке [from, to)
+     *
+     * @param from Начало промежутка (включительно)
+     * @param to   Конец промежутка (не включительно)
+     * @return Задачи в порядке приоритета
+     */
+    public List<Task> getBetween(Instant from, Instant to) {
+        if (from.compareTo(to) >= 0) {
+            return new ArrayList<>();
+        }
+        return new ArrayList<>(window(from, to).values());
+    }
+
+    /**
+     * Получить количество задач, начинающихся в промежутке [from, to)
+     *
+     * @param from Начало промежутка (включительно)
+     * @param to   Конец промежутка (не включительно)
+     * @return Количество задач
+     */
+    public int countBetween(Instant from, Instant to) {
+        if (from.compareTo(to) >= 0) {
+            return 0;
+        }
+        return window(from, to).size();
+    }
+
+    /**
+     * Получить следующую страницу задач со временем начала после курсора
+     *
+     * @param startTime Время начала последней полученной задачи, null - с начала списка
+     * @param id        Id последней полученной задачи
+     * @param limit     Максимальный размер страницы
+     * @return Задачи в порядке приоритета
+     */
+    public List<Task> getAfter(Instant startTime, int id, int limit) {
+        List<Task> page = new ArrayList<>(Math.min(Math.max(limit, 0), size()));
+        var tail = startTime == null ? ordered : ordered.tailMap(new Key(startTime, id), false);
+        for (Map.Entry<Key, Task> entry : tail.entrySet()) {
+            if (page.size() >= limit || entry.getKey().startTime == null) {
+                break;
+            }
+            page.add(entry.getValue());
+        }
+        return page;
+    }
+
+    private NavigableMap<Key, Task> window(Instant from, Instant to) {
+        return ordered.subMap(new Key(from, Integer.MIN_VALUE), true, new Key(to, Integer.MIN_VALUE), false);
+    }
+
+    @Override
+    public Iterator<Task> iterator() {
+        return new Iterator<>() {
+            private final Iterator<Task> iterator = ordered.values().iterator();
+            private Task last;
+
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public Task next() {
+                last = iterator.next();
+                return last;
+            }
+
+            @Override
+            public void remove() {
+                if (last == null) {
+                    throw new IllegalStateException();
+                }
+                iterator.remove();
+                if (keysById.remove(last.getId()).startTime == null) {
+                    unscheduledCount--;
+                }
+                last = null;
+            }
+        };
+    }
+}
@@ -0,0 +1,90 @@
+package kanban.manager;
+
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * Проверка пересечений на упорядоченной таблице непересекающихся промежутков.
+ * Не ограничена по горизонту, проверка и занятие выполняются за O(log n)
+ * независимо от продолжительности задачи
+ */
+public class RangeIntersectionEngine implements IntersectionEngine {
+
+    /**
+     * Занятые промежутки: начало - конец
+     */
+    private final NavigableMap<Long, Long> ranges = new TreeMap<>();
+
+    @Override
+    public boolean tryReserve(long start, long end) {
+        if (!isFree(start, end)) {
+            return false;
+        }
+        ranges.put(start, end);
+        return true;
+    }
+
+    @Override
+    public void release(long start, long end) {
+        Map.Entry<Long, Long> lower = ranges.lowerEntry(start);
+        if (lower != null && lower.getValue() > start) {
+            ranges.put(lower.getKey(), start);
+            if (lower.getValue() > end) {
+                ranges.put(end, lower.getValue());
+                return;
+            }
+        }
+        NavigableMap<Long, Long> covered = ranges.subMap(start, true, end, false);
+        Map.Entry<Long, Long> last = covered.lastEntry();
+        covered.clear();
+        if (last != null && last.getValue() > end) {
+            ranges.put(end, last.getValue());
+        }
+    }
+
+    @Override
+    public boolean isFree(long start, long end) {
+        Map.Entry<Long, Long> floor = ranges.floorEntry(start);
+        if (floor != null && floor.getValue() > start) {
+            return false;
+        }
+        Long next = ranges.higherKey(start);
+        return next == null || next >= end;
+    }
+
+    @Override
+    public void clear() {
+        ranges.clear();
+    }
+
+    /**
+     * Получить количество занятых промежутков
+     *
+     * @return Количество промежутков
+     */
+    public int size() {
+        return ranges.size();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        RangeIntersectionEngine that = (RangeIntersectionEngine) o;
+        return Objects.equals(ranges, that.ranges);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(ranges);
+    }
+
+    @Override
+    public String toString() {
+        return "RangeIntersectionEngine{"
+                + "ranges=" + ranges.size()
+                + '}';
+    }
+}
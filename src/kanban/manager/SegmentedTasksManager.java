@@ -0,0 +1,396 @@
+package kanban.manager;
+
+import kanban.models.Task;
+import kanban.models.TaskType;
+import kanban.util.CsvRow;
+import kanban.util.IntHashMap;
+import kanban.util.IntHashSet;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.Set;
+
+/**
+ * Менеджер задач, который хранит задачи в сегментах: отдельных csv файлах по типу задачи и диапазону id.
+ * Сегмент с номером n содержит задачи одного типа с id от n * segmentSize до (n + 1) * segmentSize - 1.
+ * После изменения переписываются только изменённые сегменты, каждый через временный файл и переименование,
+ * поэтому объём записи на одно изменение ограничен размером сегмента, а сбой не оставляет обрезанных файлов.
+ * Если изменение затрагивает несколько сегментов, например удаление эпика с подзадачами, перед переименованиями
+ * записывается файл фиксации со списком сегментов. Сбой до его записи оставляет все сегменты прежними,
+ * после - восстановление доводит переименования до конца, поэтому подзадачи не остаются без эпика.
+ * Основной файл хранит только заголовок и историю просмотров, просмотры дописываются в журнал просмотров
+ */
+public class SegmentedTasksManager extends FileBackedTasksManager {
+
+    /**
+     * Количество id в одном сегменте по умолчанию
+     */
+    public static final int DEFAULT_SEGMENT_SIZE = 1_024;
+
+    private static final String SEGMENTS_EXTENSION = ".segments";
+    private static final String SEGMENT_EXTENSION = ".csv";
+    private static final String TEMP_EXTENSION = ".tmp";
+    static final String COMMIT_FILE = "commit";
+    static final String COMMIT_PUT = "put ";
+    static final String COMMIT_DELETE = "delete ";
+    private static final TaskType[] TYPES = TaskType.values();
+
+    private final int segmentSize;
+    private final Path segmentsPath;
+
+    /**
+     * Номера изменённых сегментов по типам задач
+     */
+    private final IntHashSet[] dirtySegments = new IntHashSet[TYPES.length];
+
+    /**
+     * Типы, все сегменты которых нужно переписать, например после удаления всех задач типа
+     */
+    private final Set<TaskType> rewrittenTypes = EnumSet.noneOf(TaskType.class);
+
+    /**
+     * После восстановления нужно перенести задачи из основного файла или переразбить сегменты
+     */
+    private boolean migrate;
+
+    protected SegmentedTasksManager(String path, int segmentSize) {
+        super(path);
+        if (segmentSize < 1) {
+            throw new IllegalArgumentException("Размер сегмента должен быть положительным");
+        }
+        this.segmentSize = segmentSize;
+        this.segmentsPath = getPath().resolveSibling(getPath().getFileName() + SEGMENTS_EXTENSION);
+        for (int i = 0; i < dirtySegments.length; i++) {
+            dirtySegments[i] = new IntHashSet();
+        }
+    }
+
+    /**
+     * Восстановить менеджер из основного файла и сегментов
+     *
+     * @param file Путь к основному файлу
+     * @return Объект менеджера
+     */
+    public static SegmentedTasksManager loadFromFile(File file) {
+        return loadFromFile(file, DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * Восстановить менеджер из основного файла и сегментов.
+     * Если в основном файле есть задачи, например это обычный снимок {@link FileBackedTasksManager},
+     * они переносятся в сегменты, а основной файл переписывается без задач
+     *
+     * @param file        Путь к основному файлу
+     * @param segmentSize Количество id в одном сегменте. При смене размера сегменты переписываются
+     * @return Объект менеджера
+     */
+    public static SegmentedTasksManager loadFromFile(File file, int segmentSize) {
+        SegmentedTasksManager tasksManager = new SegmentedTasksManager(file.getAbsolutePath(), segmentSize);
+        tasksManager.restore();
+        return tasksManager;
+    }
+
+    /**
+     * Прочитать основной файл и все сегменты. Сегменты эпиков читаются раньше сегментов подзадач,
+     * чтобы подзадачи сразу связывались со своими эпиками
+     */
+    @Override
+    protected void readSnapshot(Set<Integer> history) throws IOException {
+        super.readSnapshot(history);
+        boolean snapshotHasTasks = !tasks.isEmpty() || !epics.isEmpty() || !subtasks.isEmpty();
+
+        boolean segmentsMatch = true;
+        if (Files.isDirectory(segmentsPath)) {
+            recoverCommit();
+            CsvRow row = new CsvRow();
+            for (TaskType type : TYPES) {
+                for (Path segment : listSegments(type)) {
+                    try (BufferedReader reader = Files.newBufferedReader(segment)) {
+                        String line;
+                        while ((line = CsvRow.readRecord(reader)) != null) {
+                            if (line.isEmpty()) {
+                                continue;
+                            }
+                            row.parse(line);
+                            Task task = decodeCsv(row);
+                            segmentsMatch &= segmentOf(task.getId()) == segmentNumber(segment);
+                            putRestored(task);
+                        }
+                    }
+                }
+            }
+        } else {
+            Files.createDirectories(segmentsPath);
+        }
+
+        migrate = snapshotHasTasks || !segmentsMatch;
+    }
+
+    /**
+     * Восстановить состояние. Если задачи были в основном файле или сегменты другого размера,
+     * все сегменты переписываются, а основной файл сохраняется без задач
+     */
+    @Override
+    protected void restore() {
+        super.restore();
+        if (migrate) {
+            Collections.addAll(rewrittenTypes, TYPES);
+            flushSegments();
+            writeSnapshot(List.of(), List.of(), List.of(), historyIds(inMemoryHistoryManager), true);
+            migrate = false;
+        }
+    }
+
+    /**
+     * Переписать изменённые сегменты. Основной файл не переписывается:
+     * история просмотров сохраняется в журнал просмотров
+     */
+    @Override
+    protected void save() {
+        flushSegments();
+    }
+
+    @Override
+    protected void touch(int id) {
+        super.touch(id);
+        int segment = segmentOf(id);
+        if (tasks.containsKey(id)) {
+            dirtySegments[TaskType.TASK.ordinal()].add(segment);
+        } else if (epics.containsKey(id)) {
+            dirtySegments[TaskType.EPIC.ordinal()].add(segment);
+        } else if (subtasks.containsKey(id)) {
+            dirtySegments[TaskType.SUBTASK.ordinal()].add(segment);
+        } else {
+            for (IntHashSet dirty : dirtySegments) {
+                dirty.add(segment);
+            }
+        }
+    }
+
+    @Override
+    public void clearEpics() {
+        rewrittenTypes.add(TaskType.EPIC);
+        rewrittenTypes.add(TaskType.SUBTASK);
+        super.clearEpics();
+    }
+
+    @Override
+    public void clearSubtasks() {
+        rewrittenTypes.add(TaskType.SUBTASK);
+        super.clearSubtasks();
+    }
+
+    @Override
+    public void clearTasks() {
+        rewrittenTypes.add(TaskType.TASK);
+        super.clearTasks();
+    }
+
+    /**
+     * @return Путь к каталогу с сегментами
+     */
+    public Path getSegmentsPath() {
+        return segmentsPath;
+    }
+
+    /**
+     * Получить путь к сегменту
+     *
+     * @param type    Тип задач
+     * @param segment Номер сегмента
+     * @return Путь к файлу сегмента
+     */
+    public Path segmentPath(TaskType type, int segment) {
+        return segmentsPath.resolve(type + "-" + segment + SEGMENT_EXTENSION);
+    }
+
+    private void flushSegments() {
+        try {
+            for (TaskType type : rewrittenTypes) {
+                IntHashSet dirty = dirtySegments[type.ordinal()];
+                for (Path segment : listSegments(type)) {
+                    dirty.add(segmentNumber(segment));
+                }
+                for (Task task : tasksOf(type).values()) {
+                    dirty.add(segmentOf(task.getId()));
+                }
+            }
+            rewrittenTypes.clear();
+
+            List<Path> puts = new ArrayList<>();
+            List<Path> deletes = new ArrayList<>();
+            for (TaskType type : TYPES) {
+                IntHashSet dirty = dirtySegments[type.ordinal()];
+                for (PrimitiveIterator.OfInt iterator = dirty.iterator(); iterator.hasNext(); ) {
+                    int segment = iterator.nextInt();
+                    (writeSegment(type, segment) ? puts : deletes).add(segmentPath(type, segment));
+                }
+            }
+            commit(puts, deletes);
+            for (IntHashSet dirty : dirtySegments) {
+                dirty.clear();
+            }
+        } catch (IOException e) {
+            throw new ManagerSaveException(e.getMessage());
+        }
+    }
+
+    /**
+     * Заменить сегменты записанными временными файлами и удалить опустевшие сегменты.
+     * Одна замена атомарна сама по себе, для нескольких сначала записывается файл фиксации
+     *
+     * @param puts    Сегменты, для которых записан временный файл
+     * @param deletes Сегменты, которые нужно удалить
+     */
+    private void commit(List<Path> puts, List<Path> deletes) throws IOException {
+        if (puts.size() + deletes.size() <= 1) {
+            apply(puts, deletes);
+            return;
+        }
+        Path commitPath = commitPath();
+        Path tempPath = commitPath.resolveSibling(COMMIT_FILE + TEMP_EXTENSION);
+        try (Writer writer = Files.newBufferedWriter(tempPath)) {
+            for (Path segment : puts) {
+                writer.write(COMMIT_PUT + segment.getFileName() + '\n');
+            }
+            for (Path segment : deletes) {
+                writer.write(COMMIT_DELETE + segment.getFileName() + '\n');
+            }
+        }
+        Files.move(tempPath, commitPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        apply(puts, deletes);
+        Files.delete(commitPath);
+    }
+
+    /**
+     * Довести до конца прерванную фиксацию и удалить временные файлы незафиксированных изменений
+     */
+    private void recoverCommit() throws IOException {
+        Path commitPath = commitPath();
+        if (Files.exists(commitPath)) {
+            List<Path> puts = new ArrayList<>();
+            List<Path> deletes = new ArrayList<>();
+            for (String line : Files.readAllLines(commitPath)) {
+                if (line.startsWith(COMMIT_PUT)) {
+                    puts.add(segmentsPath.resolve(line.substring(COMMIT_PUT.length())));
+                } else if (line.startsWith(COMMIT_DELETE)) {
+                    deletes.add(segmentsPath.resolve(line.substring(COMMIT_DELETE.length())));
+                }
+            }
+            apply(puts, deletes);
+            Files.delete(commitPath);
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(segmentsPath, "*" + TEMP_EXTENSION)) {
+            for (Path temp : stream) {
+                Files.delete(temp);
+            }
+        }
+    }
+
+    /**
+     * Переименовать временные файлы в сегменты и удалить сегменты. Временного файла может уже не быть,
+     * если его переименовали до сбоя, поэтому повторное применение ничего не меняет
+     */
+    private static void apply(List<Path> puts, List<Path> deletes) throws IOException {
+        for (Path segment : puts) {
+            Path tempPath = tempPathOf(segment);
+            if (Files.exists(tempPath)) {
+                Files.move(tempPath, segment, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+        }
+        for (Path segment : deletes) {
+            Files.deleteIfExists(segment);
+        }
+    }
+
+    /**
+     * @return Путь к файлу фиксации
+     */
+    Path commitPath() {
+        return segmentsPath.resolve(COMMIT_FILE);
+    }
+
+    static Path tempPathOf(Path segment) {
+        return segment.resolveSibling(segment.getFileName() + TEMP_EXTENSION);
+    }
+
+    /**
+     * Записать сегмент во временный файл
+     *
+     * @param type    Тип задач
+     * @param segment Номер сегмента
+     * @return false - если сегмент пуст и его нужно удалить
+     */
+    private boolean writeSegment(TaskType type, int segment) throws IOException {
+        IntHashMap<? extends Task> source = tasksOf(type);
+        Path segmentPath = segmentPath(type, segment);
+        long from = (long) segment * segmentSize;
+
+        List<Task> segmentTasks = new ArrayList<>();
+        for (long id = from; id < from + segmentSize; id++) {
+            Task task = source.get((int) id);
+            if (task != null) {
+                segmentTasks.add(task);
+            }
+        }
+        if (segmentTasks.isEmpty()) {
+            return false;
+        }
+
+        try (Writer writer = Files.newBufferedWriter(tempPathOf(segmentPath))) {
+            for (Task task : segmentTasks) {
+                task.appendCsv(writer);
+                writer.write('\n');
+            }
+        }
+        return true;
+    }
+
+    private IntHashMap<? extends Task> tasksOf(TaskType type) {
+        switch (type) {
+            case EPIC:
+                return epics;
+            case SUBTASK:
+                return subtasks;
+            default:
+                return tasks;
+        }
+    }
+
+    private int segmentOf(int id) {
+        return Math.floorDiv(id, segmentSize);
+    }
+
+    /**
+     * Получить сегменты типа по возрастанию номера. Недописанные временные файлы пропускаются
+     */
+    private List<Path> listSegments(TaskType type) throws IOException {
+        List<Path> segments = new ArrayList<>();
+        if (!Files.isDirectory(segmentsPath)) {
+            return segments;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(segmentsPath, type + "-*" + SEGMENT_EXTENSION)) {
+            for (Path segment : stream) {
+                segments.add(segment);
+            }
+        }
+        segments.sort((first, second) -> Integer.compare(segmentNumber(first), segmentNumber(second)));
+        return segments;
+    }
+
+    private static int segmentNumber(Path segment) {
+        String name = segment.getFileName().toString();
+        return Integer.parseInt(name.substring(name.indexOf('-') + 1, name.length() - SEGMENT_EXTENSION.length()));
+    }
+}
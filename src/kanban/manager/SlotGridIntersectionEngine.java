@@ -0,0 +1,92 @@
+package kanban.manager;
+
+import kanban.util.SlotBitmap;
+
+import java.util.Objects;
+
+import static kanban.util.MathConsts.MINUTE_IN_MILLIS;
+
+/**
+ * Проверка пересечений на сетке 15-минутных интервалов.
+ * Сетка ограничена по горизонту, интервалы вне сетки считаются занятыми
+ */
+public class SlotGridIntersectionEngine implements IntersectionEngine {
+
+    private final long origin;
+    private final SlotBitmap grid;
+
+    /**
+     * @param origin Начало сетки в милисекундах UNIX-времени
+     * @param slots  Количество интервалов в сетке
+     */
+    public SlotGridIntersectionEngine(long origin, int slots) {
+        this.origin = origin;
+        this.grid = new SlotBitmap(slots);
+    }
+
+    @Override
+    public boolean tryReserve(long start, long end) {
+        long from = firstSlot(start);
+        long to = from + slotsCount(start, end);
+        if (!grid.contains(from) || to > grid.size()) {
+            return false; // Интервал вне сетки считается занятым
+        }
+        return grid.tryOccupy((int) from, (int) to);
+    }
+
+    @Override
+    public void release(long start, long end) {
+        long first = firstSlot(start);
+        long from = Math.max(0, first);
+        long to = Math.min(grid.size(), first + slotsCount(start, end));
+        if (from < to) {
+            grid.release((int) from, (int) to);
+        }
+    }
+
+    @Override
+    public boolean isFree(long start, long end) {
+        long from = firstSlot(start);
+        long to = from + slotsCount(start, end);
+        return grid.contains(from) && to <= grid.size() && grid.isRangeFree((int) from, (int) to);
+    }
+
+    @Override
+    public void clear() {
+        grid.clear();
+    }
+
+    private long firstSlot(long start) {
+        return (start - origin) / MINUTE_IN_MILLIS / InMemoryTaskManager.MINUTES_INTERVAL;
+    }
+
+    /**
+     * Количество 15-минутных интервалов, занимаемых задачей
+     */
+    private static long slotsCount(long start, long end) {
+        long duration = (end - start) / MINUTE_IN_MILLIS;
+        return duration == InMemoryTaskManager.MINUTES_INTERVAL
+                ? 1 : duration / InMemoryTaskManager.MINUTES_INTERVAL + 1;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        SlotGridIntersectionEngine that = (SlotGridIntersectionEngine) o;
+        return origin == that.origin && Objects.equals(grid, that.grid);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(origin, grid);
+    }
+
+    @Override
+    public String toString() {
+        return "SlotGridIntersectionEngine{"
+                + "origin=" + origin
+                + ", grid=" + grid
+                + '}';
+    }
+}
@@ -0,0 +1,15 @@
+package kanban.manager;
+
+/**
+ * Формат файла со снимком состояния {@link FileBackedTasksManager}
+ */
+public enum SnapshotFormat {
+    /**
+     * Текстовый csv: строка на задачу, пустая строка и история просмотров
+     */
+    CSV,
+    /**
+     * Двоичный формат {@link BinarySnapshot}: компактнее и быстрее загружается, допускает запятые в текстах
+     */
+    BINARY
+}
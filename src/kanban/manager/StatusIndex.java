@@ -0,0 +1,117 @@
+package kanban.manager;
+
+import kanban.models.TaskStatus;
+import kanban.models.TaskType;
+import kanban.util.IntHashSet;
+import kanban.util.IntIntHashMap;
+
+/**
+ * Индекс id задач по типу и статусу.
+ * Запросы по статусу выполняются за время, пропорциональное размеру результата
+ */
+public class StatusIndex {
+
+    private static final TaskStatus[] STATUSES = TaskStatus.values();
+    private static final TaskType[] TYPES = TaskType.values();
+
+    /**
+     * Множества id для каждой пары (тип, статус), номер - {@link #code(TaskType, TaskStatus)}
+     */
+    private final IntHashSet[] ids = new IntHashSet[TYPES.length * STATUSES.length];
+
+    /**
+     * Номер множества, в котором сейчас находится задача
+     */
+    private final IntIntHashMap codes = new IntIntHashMap();
+
+    public StatusIndex() {
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = new IntHashSet();
+        }
+    }
+
+    /**
+     * Добавить задачу в индекс или перенести её при смене статуса.
+     * Задача без статуса считается новой
+     *
+     * @param type   Тип задачи
+     * @param id     Id задачи
+     * @param status Статус задачи
+     */
+    public void put(TaskType type, int id, TaskStatus status) {
+        int code = code(type, status == null ? TaskStatus.NEW : status);
+        int previous = codes.get(id, -1);
+        if (previous == code) {
+            return;
+        }
+        if (previous >= 0) {
+            ids[previous].removeInt(id);
+        }
+        codes.put(id, code);
+        ids[code].add(id);
+    }
+
+    /**
+     * Удалить задачу из индекса
+     *
+     * @param id Id задачи
+     */
+    public void remove(int id) {
+        int previous = codes.remove(id, -1);
+        if (previous >= 0) {
+            ids[previous].removeInt(id);
+        }
+    }
+
+    /**
+     * Удалить из индекса все задачи указанного типа
+     *
+     * @param type Тип задачи
+     */
+    public void clear(TaskType type) {
+        for (TaskStatus status : STATUSES) {
+            IntHashSet set = ids[code(type, status)];
+            if (set.size() == codes.size()) {
+                codes.clear();
+            } else {
+                for (var iterator = set.iterator(); iterator.hasNext(); ) {
+                    codes.remove(iterator.nextInt(), -1);
+                }
+            }
+            set.clear();
+        }
+    }
+
+    public void clear() {
+        codes.clear();
+        for (IntHashSet set : ids) {
+            set.clear();
+        }
+    }
+
+    /**
+     * Получить id задач с указанным типом и статусом. Множество нельзя изменять
+     *
+     * @param type   Тип задачи
+     * @param status Статус задачи
+     * @return Множество id в порядке получения статуса
+     */
+    public IntHashSet get(TaskType type, TaskStatus status) {
+        return ids[code(type, status)];
+    }
+
+    public int count(TaskType type, TaskStatus status) {
+        return ids[code(type, status)].size();
+    }
+
+    private static int code(TaskType type, TaskStatus status) {
+        return type.ordinal() * STATUSES.length + status.ordinal();
+    }
+
+    @Override
+    public String toString() {
+        return "StatusIndex{"
+                + "size=" + codes.size()
+                + '}';
+    }
+}
@@ -0,0 +1,152 @@
+package kanban.manager;
+
+import kanban.models.Epic;
+import kanban.models.Subtask;
+import kanban.models.Task;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Набор изменений задач, эпиков и подзадач, который применяется к менеджеру целиком
+ * через {@link TaskManager#applyBatch(TaskBatch)}. Операции применяются в порядке добавления
+ */
+public class TaskBatch {
+
+    /**
+     * Тип операции
+     */
+    enum OperationType {
+        ADD_TASK,
+        ADD_EPIC,
+        ADD_SUBTASK,
+        UPDATE_TASK,
+        UPDATE_EPIC,
+        UPDATE_SUBTASK,
+        DELETE_TASK,
+        DELETE_EPIC,
+        DELETE_SUBTASK
+    }
+
+    /**
+     * Операция над одной задачей
+     */
+    static final class Operation {
+        private final OperationType type;
+        private final Task task;
+        private final int id;
+        private final Epic parent;
+
+        private Operation(OperationType type, Task task, int id, Epic parent) {
+            this.type = type;
+            this.task = task;
+            this.id = id;
+            this.parent = parent;
+        }
+
+        OperationType getType() {
+            return type;
+        }
+
+        /**
+         * @return Задача для добавления или обновления, null - для удаления
+         */
+        Task getTask() {
+            return task;
+        }
+
+        /**
+         * @return Id задачи для обновления или удаления
+         */
+        int getId() {
+            return id;
+        }
+
+        /**
+         * @return Эпик из этого же набора, к которому добавляется подзадача, либо null
+         */
+        Epic getParent() {
+            return parent;
+        }
+    }
+
+    private final List<Operation> operations = new ArrayList<>();
+
+    public TaskBatch addTask(Task task) {
+        return add(OperationType.ADD_TASK, task, task.getId(), null);
+    }
+
+    public TaskBatch addEpic(Epic epic) {
+        return add(OperationType.ADD_EPIC, epic, epic.getId(), null);
+    }
+
+    /**
+     * Добавить подзадачу к эпику, указанному в подзадаче
+     *
+     * @param subtask Подзадача
+     * @return Этот набор
+     */
+    public TaskBatch addSubtask(Subtask subtask) {
+        return add(OperationType.ADD_SUBTASK, subtask, subtask.getId(), null);
+    }
+
+    /**
+     * Добавить подзадачу к эпику, который добавляется раньше в этом же наборе и ещё не имеет id
+     *
+     * @param subtask Подзадача
+     * @param epic    Эпик
+     * @return Этот набор
+     */
+    public TaskBatch addSubtask(Subtask subtask, Epic epic) {
+        return add(OperationType.ADD_SUBTASK, subtask, subtask.getId(), epic);
+    }
+
+    public TaskBatch updateTask(Task task) {
+        return add(OperationType.UPDATE_TASK, task, task.getId(), null);
+    }
+
+    public TaskBatch updateEpic(Epic epic) {
+        return add(OperationType.UPDATE_EPIC, epic, epic.getId(), null);
+    }
+
+    public TaskBatch updateSubtask(Subtask subtask) {
+        return add(OperationType.UPDATE_SUBTASK, subtask, subtask.getId(), null);
+    }
+
+    public TaskBatch deleteTask(int taskId) {
+        return add(OperationType.DELETE_TASK, null, taskId, null);
+    }
+
+    public TaskBatch deleteEpic(int epicId) {
+        return add(OperationType.DELETE_EPIC, null, epicId, null);
+    }
+
+    public TaskBatch deleteSubtask(int subtaskId) {
+        return add(OperationType.DELETE_SUBTASK, null, subtaskId, null);
+    }
+
+    public int size() {
+        return operations.size();
+    }
+
+    public boolean isEmpty() {
+        return operations.isEmpty();
+    }
+
+    List<Operation> getOperations() {
+        return Collections.unmodifiableList(operations);
+    }
+
+    private TaskBatch add(OperationType type, Task task, int id, Epic parent) {
+        operations.add(new Operation(type, task, id, parent));
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return "TaskBatch{"
+                + "operations=" + operations.size()
+                + '}';
+    }
+}
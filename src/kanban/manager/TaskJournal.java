@@ -0,0 +1,116 @@
+package kanban.manager;
+
+import kanban.models.Task;
+import kanban.models.TaskType;
+import kanban.util.CsvRow;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Журналы, которые дописываются в файлы рядом со снимком: журнал изменений и журнал просмотров.
+ * Каждая запись журнала изменений - одна csv запись: тип записи, запятая и данные записи,
+ * запись журнала просмотров - id просмотренной задачи.
+ * Записи идемпотентны, поэтому журнал можно применять к снимку, который уже содержит часть изменений
+ */
+final class TaskJournal {
+
+    /**
+     * Состояние задачи после изменения, данные - csv строка задачи
+     */
+    static final char PUT = 'P';
+
+    /**
+     * Удаление задачи, данные - id
+     */
+    static final char DELETE = 'D';
+
+    /**
+     * Удаление всех задач типа, данные - тип. Удаление эпиков удаляет и подзадачи
+     */
+    static final char CLEAR = 'C';
+
+    private static final String EXTENSION = ".journal";
+    private static final String HISTORY_EXTENSION = ".history";
+
+    private TaskJournal() {
+    }
+
+    /**
+     * Получить путь к журналу по пути к снимку
+     *
+     * @param snapshotPath Путь к снимку
+     * @return Путь к журналу
+     */
+    static Path pathOf(Path snapshotPath) {
+        return snapshotPath.resolveSibling(snapshotPath.getFileName() + EXTENSION);
+    }
+
+    /**
+     * Получить путь к журналу просмотров по пути к снимку
+     *
+     * @param snapshotPath Путь к снимку
+     * @return Путь к журналу просмотров
+     */
+    static Path historyPathOf(Path snapshotPath) {
+        return snapshotPath.resolveSibling(snapshotPath.getFileName() + HISTORY_EXTENSION);
+    }
+
+    static String put(Task task) {
+        return PUT + "," + task.toCsvString();
+    }
+
+    static String delete(int id) {
+        return DELETE + "," + id;
+    }
+
+    static String clear(TaskType type) {
+        return CLEAR + "," + type;
+    }
+
+    /**
+     * Дописать записи в конец журнала одной операцией записи
+     *
+     * @param journalPath Путь к журналу
+     * @param records     Записи
+     */
+    static void append(Path journalPath, List<String> records) {
+        StringBuilder builder = new StringBuilder();
+        for (String record : records) {
+            builder.append(record).append('\n');
+        }
+        try {
+            Files.write(journalPath, builder.toString().getBytes(StandardCharsets.UTF_8),
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new ManagerSaveException(e.getMessage());
+        }
+    }
+
+    /**
+     * Прочитать записи журнала. Недописанная последняя запись, например после сбоя, отбрасывается
+     *
+     * @param journalPath Путь к журналу
+     * @return Записи в порядке добавления, пустой список - если журнала нет
+     */
+    static List<String> read(Path journalPath) throws IOException {
+        List<String> records = new ArrayList<>();
+        if (!Files.exists(journalPath)) {
+            return records;
+        }
+        String content = Files.readString(journalPath);
+        int start = 0;
+        for (int end = CsvRow.indexOfRecordEnd(content, 0); end >= 0; end = CsvRow.indexOfRecordEnd(content, start)) {
+            if (end > start) {
+                records.add(content.substring(start, end));
+            }
+            start = end + 1;
+        }
+        return records;
+    }
+}
@@ -3,6 +3,8 @@ package kanban.manager;
 import kanban.models.Epic;
 import kanban.models.Subtask;
 import kanban.models.Task;
+import kanban.models.TaskStatus;
+import kanban.models.TaskType;
 
 import java.time.Instant;
 import java.util.List;
@@ -174,6 +176,106 @@ public interface TaskManager {
      */
     Set<Task> getPrioritizedTasks();
 
+    /**
+     * Получить задачи с указанным статусом
+     *
+     * @param status Статус
+     * @return Список задач
+     */
+    List<Task> getTasksByStatus(TaskStatus status);
+
+    /**
+     * Получить эпики с указанным статусом
+     *
+     * @param status Статус
+     * @return Список эпиков
+     */
+    List<Epic> getEpicsByStatus(TaskStatus status);
+
+    /**
+     * Получить подзадачи с указанным статусом
+     *
+     * @param status Статус
+     * @return Список подзадач
+     */
+    List<Subtask> getSubtasksByStatus(TaskStatus status);
+
+    /**
+     * Получить количество задач указанного типа с указанным статусом
+     *
+     * @param type   Тип задачи
+     * @param status Статус
+     * @return Количество задач
+     */
+    int countByStatus(TaskType type, TaskStatus status);
+
+    /**
+     * Получить подзадачи эпика с указанным статусом
+     *
+     * @param epicId Id эпика
+     * @param status Статус
+     * @return Список подзадач, пустой - если эпика нет
+     */
+    List<Subtask> getSubtasksByEpicAndStatus(int epicId, TaskStatus status);
+
+    /**
+     * Получить количество подзадач эпика с указанным статусом
+     *
+     * @param epicId Id эпика
+     * @param status Статус
+     * @return Количество подзадач
+     */
+    int countSubtasksByEpicAndStatus(int epicId, TaskStatus status);
+
+    /**
+     * Применить набор изменений целиком.
+     * Пересечения проверяются сразу для всего набора, каждый затронутый эпик пересчитывается один раз
+     *
+     * @param batch Набор изменений
+     * @return Для каждой операции - id затронутой задачи, либо -1, если операция не выполнена
+     * @throws IntersectionDetectedException если задачи набора пересекаются между собой или с другими задачами,
+     *                                       в этом случае ни одна операция не применяется
+     */
+    List<Integer> applyBatch(TaskBatch batch);
+
+    /**
+     * Получить неизменяемый снимок задач, эпиков и подзадач.
+     * Снимок не меняется при дальнейших изменениях менеджера, повторный вызов без изменений
+     * возвращает тот же снимок
+     *
+     * @return Снимок состояния
+     */
+    TaskManagerSnapshot getSnapshot();
+
+    /**
+     * Получить задачи, начинающиеся в промежутке [from, to), в порядке приоритета
+     *
+     * @param from Начало промежутка (включительно)
+     * @param to   Конец промежутка (не включительно)
+     * @return Список задач
+     */
+    List<Task> getPrioritizedTasks(Instant from, Instant to);
+
+    /**
+     * Получить следующую страницу задач со временем начала после курсора.
+     * Курсор - время начала и id последней полученной задачи
+     *
+     * @param startTime Время начала последней полученной задачи, null - с начала списка
+     * @param id        Id последней полученной задачи
+     * @param limit     Максимальный размер страницы
+     * @return Список задач
+     */
+    List<Task> getPrioritizedTasksAfter(Instant startTime, int id, int limit);
+
+    /**
+     * Получить количество задач, начинающихся в промежутке [from, to)
+     *
+     * @param from Начало промежутка (включительно)
+     * @param to   Конец промежутка (не включительно)
+     * @return Количество задач
+     */
+    int countPrioritizedTasks(Instant from, Instant to);
+
     /**
      * Вывести список задач в порядке приоритета
      */
@@ -184,6 +286,14 @@ public interface TaskManager {
      */
     Map<Long, Boolean> getGridWithIntervals();
 
+    /**
+     * Проверить, свободен ли интервал временной сетки
+     *
+     * @param slot Номер 15-минутного интервала от начала работы программы
+     * @return true - если интервал входит в сетку и свободен
+     */
+    boolean isTimeSlotFree(long slot);
+
     /**
      * Получить время работы программы по UNIX в милисекундах
      * @return Время работы программы
@@ -0,0 +1,161 @@
+package kanban.manager;
+
+import kanban.models.Epic;
+import kanban.models.Subtask;
+import kanban.models.Task;
+import kanban.util.PersistentIntMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Неизменяемое состояние менеджера задач на момент публикации.
+ * Снимки разных версий разделяют неизменённые данные, поэтому получение снимка ничего не копирует.
+ * Задачи в снимке - копии, сделанные при изменении, их нельзя изменять.
+ * Состав эпиков лежит в отдельной неизменяемой таблице, а id подзадач эпика в снимке - представление
+ * этой таблицы только для чтения. Изменение подзадачи создаёт только новую копию её эпика без копирования id,
+ * а чтение эпиков ничего не собирает и не копирует
+ */
+public final class TaskManagerSnapshot {
+
+    static final TaskManagerSnapshot EMPTY = new TaskManagerSnapshot(0, 0,
+            PersistentIntMap.empty(), PersistentIntMap.empty(), PersistentIntMap.empty(), PersistentIntMap.empty());
+
+    private final long version;
+    private final int lastId;
+    private final PersistentIntMap<Task> tasks;
+    private final PersistentIntMap<Epic> epics;
+    private final PersistentIntMap<Subtask> subtasks;
+
+    /**
+     * Id эпика - id его подзадач. Значение вложенной таблицы - сам id подзадачи
+     */
+    private final PersistentIntMap<PersistentIntMap<Integer>> epicSubtasks;
+
+    /**
+     * Задачи и подзадачи в порядке приоритета, собираются при первом запросе.
+     * Снимок неизменяемый, поэтому гонка двух первых запросов лишь соберёт список дважды
+     */
+    private volatile List<Task> prioritizedTasks;
+
+    TaskManagerSnapshot(long version, int lastId, PersistentIntMap<Task> tasks, PersistentIntMap<Epic> epics,
+                        PersistentIntMap<Subtask> subtasks, PersistentIntMap<PersistentIntMap<Integer>> epicSubtasks) {
+        this.version = version;
+        this.lastId = lastId;
+        this.tasks = tasks;
+        this.epics = epics;
+        this.subtasks = subtasks;
+        this.epicSubtasks = epicSubtasks;
+    }
+
+    /**
+     * Получить версию снимка. Версия растёт при каждом изменении состояния
+     *
+     * @return Версия
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    public int getLastId() {
+        return lastId;
+    }
+
+    public Task getTask(int taskId) {
+        return tasks.get(taskId);
+    }
+
+    public Epic getEpic(int epicId) {
+        return epics.get(epicId);
+    }
+
+    public Subtask getSubtask(int subtaskId) {
+        return subtasks.get(subtaskId);
+    }
+
+    public Collection<Task> getTasks() {
+        return tasks.values();
+    }
+
+    public Collection<Epic> getEpics() {
+        return epics.values();
+    }
+
+    public Collection<Subtask> getSubtasks() {
+        return subtasks.values();
+    }
+
+    /**
+     * Получить задачи и подзадачи в порядке приоритета, как {@link TaskManager#getPrioritizedTasks()}.
+     * Список собирается один раз на снимок, повторные вызовы ничего не копируют
+     *
+     * @return Неизменяемый список задач
+     */
+    public List<Task> getPrioritizedTasks() {
+        List<Task> result = prioritizedTasks;
+        if (result == null) {
+            Task[] ordered = new Task[tasks.size() + subtasks.size()];
+            int index = 0;
+            for (Task task : tasks.values()) {
+                ordered[index++] = task;
+            }
+            for (Subtask subtask : subtasks.values()) {
+                ordered[index++] = subtask;
+            }
+            Arrays.sort(ordered, PrioritizedTasks.ORDER);
+            result = Collections.unmodifiableList(Arrays.asList(ordered));
+            prioritizedTasks = result;
+        }
+        return result;
+    }
+
+    /**
+     * Получить подзадачи эпика
+     *
+     * @param epicId Id эпика
+     * @return Список подзадач, пустой - если эпика нет
+     */
+    public List<Subtask> getSubtasksByEpic(int epicId) {
+        PersistentIntMap<Integer> ids = subtaskIds(epicId);
+        List<Subtask> result = new ArrayList<>(ids.size());
+        for (Integer id : ids.values()) {
+            result.add(subtasks.get(id));
+        }
+        return result;
+    }
+
+    private PersistentIntMap<Integer> subtaskIds(int epicId) {
+        PersistentIntMap<Integer> ids = epicSubtasks.get(epicId);
+        return ids == null ? PersistentIntMap.empty() : ids;
+    }
+
+    PersistentIntMap<Task> tasks() {
+        return tasks;
+    }
+
+    PersistentIntMap<Epic> epics() {
+        return epics;
+    }
+
+    PersistentIntMap<Subtask> subtasks() {
+        return subtasks;
+    }
+
+    PersistentIntMap<PersistentIntMap<Integer>> epicSubtasks() {
+        return epicSubtasks;
+    }
+
+    @Override
+    public String toString() {
+        return "TaskManagerSnapshot{"
+                + "version=" + version
+                + ", lastId=" + lastId
+                + ", tasks=" + tasks.size()
+                + ", epics=" + epics.size()
+                + ", subtasks=" + subtasks.size()
+                + '}';
+    }
+}
@@ -0,0 +1,407 @@
+package kanban.manager;
+
+import kanban.models.Epic;
+import kanban.models.Subtask;
+import kanban.models.Task;
+import kanban.models.TaskStatus;
+import kanban.models.TaskType;
+import kanban.util.IntHashMap;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Хранилище задач из двух файлов: записей фиксированного размера, отображённых в память,
+ * и кучи строк, в конец которой дописываются названия и описания.
+ * <pre>
+ * заголовок (16 байт): "KNBR", версия, наибольший id, размер записи
+ * запись (56 байт):    id, тип (0 - свободна), статус, 2 байта резерва, начало в мс ({@link Long#MIN_VALUE} - нет),
+ *                      длительность, id эпика, длина названия, смещение названия, смещение описания,
+ *                      длина описания, 4 байта резерва
+ * </pre>
+ * Изменение статуса, времени или эпика переписывает одну запись на месте, сброс страниц на диск остаётся
+ * операционной системе. Новые строки дописываются в кучу, старые остаются мусором до переписывания хранилища,
+ * которое пишет новые файлы рядом и заменяет ими текущие ({@link #replace})
+ */
+final class TaskRecordStore implements AutoCloseable {
+
+    static final int VERSION = 1;
+
+    private static final int MAGIC = 0x4B4E4252;
+    private static final int HEADER_SIZE = 16;
+    private static final int LAST_ID_OFFSET = 8;
+    private static final int RECORD_SIZE = 56;
+    private static final int INITIAL_CAPACITY = 1_024;
+
+    private static final int ID = 0;
+    private static final int TYPE = 4;
+    private static final int STATUS = 5;
+    private static final int START_TIME = 8;
+    private static final int DURATION = 16;
+    private static final int EPIC_ID = 24;
+    private static final int NAME_LENGTH = 28;
+    private static final int NAME_OFFSET = 32;
+    private static final int DESCRIPTION_OFFSET = 40;
+    private static final int DESCRIPTION_LENGTH = 48;
+
+    private static final byte FREE = 0;
+    private static final long NO_START_TIME = Long.MIN_VALUE;
+    private static final TaskType[] TYPES = TaskType.values();
+    private static final TaskStatus[] STATUSES = TaskStatus.values();
+
+    private final FileChannel recordsChannel;
+    private final FileChannel heapChannel;
+    private MappedByteBuffer records;
+    private int capacity;
+
+    /**
+     * Количество записей, которые хоть раз занимались. Записи дальше свободны
+     */
+    private int usedSlots;
+
+    private final IntHashMap<Integer> slotsById = new IntHashMap<>();
+    private final Deque<Integer> freeSlots = new ArrayDeque<>();
+
+    /**
+     * Строки, записанные в кучу для каждой занятой записи, чтобы не дописывать неизменённые строки
+     */
+    private String[] names;
+    private String[] descriptions;
+
+    private long heapSize;
+    private long liveHeapBytes;
+
+    /**
+     * Открыть хранилище, создав файлы, если их нет. Если прошлое переписывание хранилища прервано,
+     * оно сначала завершается или откатывается
+     *
+     * @param recordsPath Путь к файлу записей
+     * @param heapPath    Путь к куче строк
+     */
+    TaskRecordStore(Path recordsPath, Path heapPath) throws IOException {
+        recover(recordsPath, heapPath);
+        recordsChannel = FileChannel.open(recordsPath, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        heapChannel = FileChannel.open(heapPath, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        heapSize = heapChannel.size();
+
+        long size = recordsChannel.size();
+        if (size == 0) {
+            map(INITIAL_CAPACITY);
+            records.putInt(0, MAGIC);
+            records.putInt(4, VERSION);
+            records.putInt(LAST_ID_OFFSET, 0);
+            records.putInt(12, RECORD_SIZE);
+        } else {
+            map((int) ((size - HEADER_SIZE) / RECORD_SIZE));
+            if (records.getInt(0) != MAGIC || records.getInt(4) != VERSION || records.getInt(12) != RECORD_SIZE) {
+                close();
+                throw new ManagerSaveException("Неизвестный формат файла записей: " + recordsPath);
+            }
+        }
+        names = new String[capacity];
+        descriptions = new String[capacity];
+        indexSlots();
+    }
+
+    int getLastId() {
+        return records.getInt(LAST_ID_OFFSET);
+    }
+
+    void setLastId(int lastId) {
+        records.putInt(LAST_ID_OFFSET, lastId);
+    }
+
+    int size() {
+        return slotsById.size();
+    }
+
+    long getHeapSize() {
+        return heapSize;
+    }
+
+    /**
+     * @return Куча заметно больше живых строк, и хранилище стоит переписать
+     */
+    boolean hasHeapGarbage() {
+        return heapSize > 2 * liveHeapBytes + INITIAL_CAPACITY * RECORD_SIZE;
+    }
+
+    /**
+     * Прочитать все задачи. Подзадачи передаются после задач и эпиков, чтобы эпики уже были на месте
+     *
+     * @param sink Получатель задач
+     */
+    void load(Consumer<Task> sink) throws IOException {
+        List<Subtask> loadedSubtasks = new ArrayList<>();
+        for (int slot = 0; slot < usedSlots; slot++) {
+            int offset = offset(slot);
+            byte type = records.get(offset + TYPE);
+            if (type == FREE) {
+                continue;
+            }
+            Task task;
+            switch (TYPES[type - 1]) {
+                case EPIC:
+                    task = new Epic();
+                    break;
+                case SUBTASK:
+                    task = new Subtask();
+                    ((Subtask) task).setEpicId(records.getInt(offset + EPIC_ID));
+                    loadedSubtasks.add((Subtask) task);
+                    break;
+                default:
+                    task = new Task();
+                    break;
+            }
+            task.setId(records.getInt(offset + ID));
+            task.setStatus(STATUSES[records.get(offset + STATUS)]);
+            long startTime = records.getLong(offset + START_TIME);
+            task.setStartTime(startTime == NO_START_TIME ? null : Instant.ofEpochMilli(startTime));
+            task.setDuration(records.getLong(offset + DURATION));
+            names[slot] = readString(records.getLong(offset + NAME_OFFSET), records.getInt(offset + NAME_LENGTH));
+            descriptions[slot] = readString(records.getLong(offset + DESCRIPTION_OFFSET),
+                    records.getInt(offset + DESCRIPTION_LENGTH));
+            task.setName(names[slot]);
+            task.setDescription(descriptions[slot]);
+            if (!(task instanceof Subtask)) {
+                sink.accept(task);
+            }
+        }
+        for (Subtask subtask : loadedSubtasks) {
+            sink.accept(subtask);
+        }
+    }
+
+    /**
+     * Записать задачу на место её прежней записи или в свободную запись.
+     * В кучу дописываются только изменившиеся строки
+     *
+     * @param task Задача любого типа
+     */
+    void put(Task task) throws IOException {
+        Integer existing = slotsById.get(task.getId());
+        int slot = existing != null ? existing : allocate(task.getId());
+        int offset = offset(slot);
+
+        if (existing == null || !Objects.equals(names[slot], task.getName())) {
+            liveHeapBytes -= existing == null ? 0 : records.getInt(offset + NAME_LENGTH);
+            byte[] bytes = bytesOf(task.getName());
+            records.putLong(offset + NAME_OFFSET, append(bytes));
+            records.putInt(offset + NAME_LENGTH, bytes.length);
+            names[slot] = task.getName();
+            liveHeapBytes += bytes.length;
+        }
+        if (existing == null || !Objects.equals(descriptions[slot], task.getDescription())) {
+            liveHeapBytes -= existing == null ? 0 : records.getInt(offset + DESCRIPTION_LENGTH);
+            byte[] bytes = bytesOf(task.getDescription());
+            records.putLong(offset + DESCRIPTION_OFFSET, append(bytes));
+            records.putInt(offset + DESCRIPTION_LENGTH, bytes.length);
+            descriptions[slot] = task.getDescription();
+            liveHeapBytes += bytes.length;
+        }
+
+        records.putInt(offset + ID, task.getId());
+        records.put(offset + STATUS, (byte) task.getStatus().ordinal());
+        records.putLong(offset + START_TIME,
+                task.getStartTime() == null ? NO_START_TIME : task.getStartTime().toEpochMilli());
+        records.putLong(offset + DURATION, task.getDuration());
+        records.putInt(offset + EPIC_ID, task instanceof Subtask ? ((Subtask) task).getEpicId() : 0);
+        records.put(offset + TYPE, (byte) (typeOf(task).ordinal() + 1));
+    }
+
+    /**
+     * Освободить запись задачи
+     *
+     * @param id Id задачи
+     */
+    void remove(int id) {
+        Integer slot = slotsById.remove(id);
+        if (slot != null) {
+            free(slot);
+        }
+    }
+
+    /**
+     * Освободить записи всех задач типа
+     *
+     * @param type Тип задач
+     */
+    void removeType(TaskType type) {
+        byte code = (byte) (type.ordinal() + 1);
+        for (int slot = 0; slot < usedSlots; slot++) {
+            int offset = offset(slot);
+            if (records.get(offset + TYPE) == code) {
+                slotsById.remove(records.getInt(offset + ID));
+                free(slot);
+            }
+        }
+    }
+
+    /**
+     * Переписать хранилище целиком, не трогая текущие файлы до конца записи: задачи записываются
+     * в новые временные файлы, которые сбрасываются на диск и переименовываются на место текущих.
+     * Переименование файла записей - момент фиксации: если процесс прервётся до него, при открытии
+     * временные файлы удаляются и остаётся прежнее хранилище, если после - открытие доделывает
+     * переименование кучи. Хранилище по этим путям должно быть закрыто
+     *
+     * @param recordsPath Путь к файлу записей
+     * @param heapPath    Путь к куче строк
+     * @param all         Задачи всех типов
+     * @param lastId      Наибольший id
+     */
+    static void replace(Path recordsPath, Path heapPath, Collection<? extends Collection<? extends Task>> all,
+                        int lastId) throws IOException {
+        Path tempRecords = tempPathOf(recordsPath);
+        Path tempHeap = tempPathOf(heapPath);
+        Files.deleteIfExists(tempRecords);
+        Files.deleteIfExists(tempHeap);
+        try (TaskRecordStore store = new TaskRecordStore(tempRecords, tempHeap)) {
+            for (Collection<? extends Task> tasks : all) {
+                for (Task task : tasks) {
+                    store.put(task);
+                }
+            }
+            store.setLastId(lastId);
+            store.force();
+        }
+        Files.move(tempRecords, recordsPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        Files.move(tempHeap, heapPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Завершить или откатить {@link #replace}, прерванный сбоем
+     */
+    private static void recover(Path recordsPath, Path heapPath) throws IOException {
+        Path tempHeap = tempPathOf(heapPath);
+        if (Files.deleteIfExists(tempPathOf(recordsPath))) {
+            Files.deleteIfExists(tempHeap);
+        } else if (Files.exists(tempHeap)) {
+            Files.move(tempHeap, heapPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+
+    static Path tempPathOf(Path path) {
+        return path.resolveSibling(path.getFileName() + ".tmp");
+    }
+
+    /**
+     * Сбросить записи и кучу на диск
+     */
+    void force() throws IOException {
+        heapChannel.force(false);
+        records.force();
+    }
+
+    /**
+     * @return true - если файлы хранилища ещё не закрыты
+     */
+    boolean isOpen() {
+        return heapChannel.isOpen();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            heapChannel.close();
+        } finally {
+            recordsChannel.close();
+        }
+    }
+
+    private void indexSlots() {
+        for (int slot = 0; slot < capacity; slot++) {
+            int offset = offset(slot);
+            if (records.get(offset + TYPE) != FREE) {
+                slotsById.put(records.getInt(offset + ID), slot);
+                liveHeapBytes += records.getInt(offset + NAME_LENGTH) + records.getInt(offset + DESCRIPTION_LENGTH);
+                usedSlots = slot + 1;
+            }
+        }
+        for (int slot = usedSlots - 1; slot >= 0; slot--) {
+            if (records.get(offset(slot) + TYPE) == FREE) {
+                freeSlots.push(slot);
+            }
+        }
+    }
+
+    private int allocate(int id) throws IOException {
+        Integer slot = freeSlots.poll();
+        if (slot == null) {
+            if (usedSlots == capacity) {
+                map(capacity * 2);
+                names = Arrays.copyOf(names, capacity);
+                descriptions = Arrays.copyOf(descriptions, capacity);
+            }
+            slot = usedSlots++;
+        }
+        slotsById.put(id, slot);
+        return slot;
+    }
+
+    private void free(int slot) {
+        int offset = offset(slot);
+        liveHeapBytes -= records.getInt(offset + NAME_LENGTH) + records.getInt(offset + DESCRIPTION_LENGTH);
+        records.put(offset + TYPE, FREE);
+        names[slot] = null;
+        descriptions[slot] = null;
+        freeSlots.push(slot);
+    }
+
+    private void map(int newCapacity) throws IOException {
+        capacity = newCapacity;
+        records = recordsChannel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) capacity * RECORD_SIZE);
+    }
+
+    private long append(byte[] bytes) throws IOException {
+        long position = heapSize;
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining()) {
+            heapChannel.write(buffer, position + buffer.position());
+        }
+        heapSize += bytes.length;
+        return position;
+    }
+
+    private String readString(long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (heapChannel.read(buffer, position + buffer.position()) < 0) {
+                throw new ManagerSaveException("Куча строк оборвана");
+            }
+        }
+        return new String(buffer.array(), StandardCharsets.UTF_8);
+    }
+
+    private static byte[] bytesOf(String value) {
+        return value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static TaskType typeOf(Task task) {
+        if (task instanceof Subtask) {
+            return TaskType.SUBTASK;
+        }
+        return task instanceof Epic ? TaskType.EPIC : TaskType.TASK;
+    }
+
+    private static int offset(int slot) {
+        return HEADER_SIZE + slot * RECORD_SIZE;
+    }
+}
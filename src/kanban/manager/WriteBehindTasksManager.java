@@ -0,0 +1,377 @@
+package kanban.manager;
+
+import kanban.models.Task;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Менеджер задач с отложенной записью. Изменение только запоминает неизменяемый снимок состояния
+ * и сразу возвращает управление, а файл записывает фоновый поток. Все изменения, сделанные между
+ * двумя записями, попадают в файл одной записью. Просмотры, как и у {@link FileBackedTasksManager},
+ * только дописываются в журнал просмотров и не вызывают записи файла.
+ * Перед завершением работы нужно вызвать {@link #close()}, иначе последние изменения могут не попасть в файл
+ */
+public class WriteBehindTasksManager extends FileBackedTasksManager implements AutoCloseable {
+
+    /**
+     * Когда данные сбрасываются на диск после записи файла
+     */
+    public enum Durability {
+        /**
+         * Запись начинается сразу после изменения, а изменения, сделанные во время записи,
+         * попадают в следующую запись. Данные сбрасываются на диск после каждой записи
+         */
+        GROUP_COMMIT,
+        /**
+         * Запись не чаще раза в интервал записи, данные сбрасываются на диск после каждой записи
+         */
+        FSYNC_EACH_WRITE,
+        /**
+         * Запись не чаще раза в интервал записи, данные сбрасываются на диск не чаще раза в интервал сброса
+         */
+        FSYNC_INTERVAL,
+        /**
+         * Запись не чаще раза в интервал записи, сброс на диск остаётся операционной системе
+         */
+        NO_FSYNC
+    }
+
+    public static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 50;
+    public static final long DEFAULT_FSYNC_INTERVAL_MILLIS = 1_000;
+
+    /**
+     * Пауза перед повтором записи, которая завершилась ошибкой
+     */
+    private static final long RETRY_DELAY_MILLIS = 1_000;
+
+    private final Durability durability;
+    private final long flushIntervalNanos;
+    private final long fsyncIntervalNanos;
+    private final Thread flusher;
+
+    /**
+     * Монитор, под которым передаются снимки между потоками
+     */
+    private final Object monitor = new Object();
+
+    /**
+     * Последний не записанный снимок, null - если всё записано
+     */
+    private Pending pending;
+
+    /**
+     * Номер последнего изменения
+     */
+    private long markedVersion;
+
+    /**
+     * Номер последнего записанного изменения
+     */
+    private long writtenVersion;
+
+    /**
+     * Номер изменения, которое ждёт {@link #flush()}
+     */
+    private long requestedVersion;
+
+    /**
+     * Записанные данные ещё не сброшены на диск
+     */
+    private boolean unsynced;
+    private long lastFsyncNanos = System.nanoTime();
+    private boolean closed;
+    private ManagerSaveException failure;
+
+    protected WriteBehindTasksManager(String path, Durability durability,
+                                      long flushIntervalMillis, long fsyncIntervalMillis) {
+        super(path);
+        if (flushIntervalMillis < 0 || fsyncIntervalMillis < 0) {
+            throw new IllegalArgumentException("Интервалы записи и сброса не могут быть отрицательными");
+        }
+        this.durability = durability;
+        this.flushIntervalNanos = durability == Durability.GROUP_COMMIT
+                ? 0 : TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+        this.fsyncIntervalNanos = TimeUnit.MILLISECONDS.toNanos(fsyncIntervalMillis);
+        this.flusher = new Thread(this::runFlusher, "write-behind-" + getPath().getFileName());
+        this.flusher.setDaemon(true);
+    }
+
+    /**
+     * Восстановить менеджер из файла. Запись раз в {@value #DEFAULT_FLUSH_INTERVAL_MILLIS} мс,
+     * сброс на диск раз в {@value #DEFAULT_FSYNC_INTERVAL_MILLIS} мс
+     *
+     * @param file Путь к файлу
+     * @return Объект менеджера
+     */
+    public static WriteBehindTasksManager loadFromFile(File file) {
+        return loadFromFile(file, Durability.FSYNC_INTERVAL,
+                DEFAULT_FLUSH_INTERVAL_MILLIS, DEFAULT_FSYNC_INTERVAL_MILLIS);
+    }
+
+    /**
+     * Восстановить менеджер из файла
+     *
+     * @param file                Путь к файлу
+     * @param durability          Когда сбрасывать данные на диск
+     * @param flushIntervalMillis Минимальный интервал между записями файла, для {@link Durability#GROUP_COMMIT}
+     *                            не используется
+     * @param fsyncIntervalMillis Минимальный интервал между сбросами на диск, используется только
+     *                            для {@link Durability#FSYNC_INTERVAL}
+     * @return Объект менеджера
+     */
+    public static WriteBehindTasksManager loadFromFile(File file, Durability durability,
+                                                       long flushIntervalMillis, long fsyncIntervalMillis) {
+        WriteBehindTasksManager tasksManager = new WriteBehindTasksManager(file.getAbsolutePath(), durability,
+                flushIntervalMillis, fsyncIntervalMillis);
+        tasksManager.restore();
+        tasksManager.flusher.start();
+        return tasksManager;
+    }
+
+    public Durability getDurability() {
+        return durability;
+    }
+
+    /**
+     * Запомнить текущее состояние для фоновой записи. Снимок строится только по изменённым задачам,
+     * а история запоминается ссылкой на её версию, поэтому вызов не зависит от размера доски
+     * и истории и не обращается к диску
+     */
+    @Override
+    protected void save() {
+        Pending state = new Pending(getSnapshot(), inMemoryHistoryManager.getSnapshot());
+        synchronized (monitor) {
+            if (!closed) {
+                pending = state;
+                markedVersion++;
+                monitor.notifyAll();
+                return;
+            }
+        }
+        write(state, durability != Durability.NO_FSYNC);
+    }
+
+    /**
+     * Снимок записывает фоновый поток, а журнал просмотров дописывает вызывающий, поэтому журнал
+     * после записи снимка не удаляется: в нём могут быть просмотры, сделанные после снимка.
+     * Просмотры, которые уже вошли в снимок, при восстановлении повторяются без изменения порядка истории,
+     * а размер журнала ограничивает его сжатие при просмотре
+     */
+    @Override
+    protected void discardJournals() throws IOException {
+        Files.deleteIfExists(TaskJournal.pathOf(getPath()));
+    }
+
+    /**
+     * Дождаться записи всех изменений, сделанных до вызова. Данные сбрасываются на диск,
+     * если это не запрещено режимом {@link Durability#NO_FSYNC}
+     *
+     * @throws ManagerSaveException если последняя запись завершилась ошибкой
+     */
+    public void flush() {
+        synchronized (monitor) {
+            long target = markedVersion;
+            requestedVersion = Math.max(requestedVersion, target);
+            monitor.notifyAll();
+            while ((writtenVersion < target || unsynced) && failure == null && flusher.isAlive()) {
+                try {
+                    monitor.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new ManagerSaveException("Ожидание записи прервано");
+                }
+            }
+            throwFailure();
+        }
+    }
+
+    /**
+     * Записать все изменения и остановить фоновый поток.
+     * Изменения после закрытия записываются сразу в вызывающем потоке
+     *
+     * @throws ManagerSaveException если последняя запись завершилась ошибкой
+     */
+    @Override
+    public void close() {
+        synchronized (monitor) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            monitor.notifyAll();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ManagerSaveException("Ожидание записи прервано");
+        }
+        synchronized (monitor) {
+            throwFailure();
+        }
+    }
+
+    private void throwFailure() {
+        if (failure != null) {
+            ManagerSaveException exception = failure;
+            failure = null;
+            throw exception;
+        }
+    }
+
+    private void runFlusher() {
+        while (true) {
+            Pending state;
+            long version;
+            boolean fsync;
+            synchronized (monitor) {
+                try {
+                    if (!awaitWork()) {
+                        return;
+                    }
+                } catch (InterruptedException e) {
+                    return;
+                }
+                state = pending;
+                pending = null;
+                version = markedVersion;
+                fsync = shouldFsync();
+            }
+
+            ManagerSaveException error = null;
+            try {
+                if (state != null) {
+                    write(state, fsync);
+                } else {
+                    forceFile();
+                }
+            } catch (ManagerSaveException e) {
+                error = e;
+            }
+
+            synchronized (monitor) {
+                if (error != null) {
+                    failure = error;
+                    if (pending == null) {
+                        pending = state;
+                    }
+                    monitor.notifyAll();
+                    if (closed) {
+                        return;
+                    }
+                    try {
+                        monitor.wait(RETRY_DELAY_MILLIS);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                } else {
+                    writtenVersion = Math.max(writtenVersion, version);
+                    failure = null;
+                    if (fsync || state == null) {
+                        unsynced = false;
+                        lastFsyncNanos = System.nanoTime();
+                    } else {
+                        unsynced = durability == Durability.FSYNC_INTERVAL;
+                    }
+                }
+                monitor.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Ждать, пока не наступит время записи или отложенного сброса на диск. Вызывается под монитором
+     *
+     * @return false - если менеджер закрыт и записывать больше нечего
+     */
+    private boolean awaitWork() throws InterruptedException {
+        long dirtySince = System.nanoTime();
+        while (true) {
+            boolean urgent = closed || requestedVersion > writtenVersion
+                    || (unsynced && requestedVersion == writtenVersion && requestedVersion > 0);
+            if (pending != null) {
+                long left = flushIntervalNanos - (System.nanoTime() - dirtySince);
+                if (urgent || left <= 0) {
+                    return true;
+                }
+                TimeUnit.NANOSECONDS.timedWait(monitor, left);
+            } else if (unsynced) {
+                long left = fsyncIntervalNanos - (System.nanoTime() - lastFsyncNanos);
+                if (urgent || left <= 0) {
+                    return true;
+                }
+                TimeUnit.NANOSECONDS.timedWait(monitor, left);
+            } else if (closed) {
+                return false;
+            } else {
+                monitor.wait();
+                dirtySince = System.nanoTime();
+            }
+        }
+    }
+
+    /**
+     * Решить, сбрасывать ли данные на диск после записи. Вызывается под монитором
+     */
+    private boolean shouldFsync() {
+        switch (durability) {
+            case GROUP_COMMIT:
+            case FSYNC_EACH_WRITE:
+                return true;
+            case FSYNC_INTERVAL:
+                return closed || requestedVersion >= markedVersion
+                        || System.nanoTime() - lastFsyncNanos >= fsyncIntervalNanos;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Записать снимок. Задачи записываются по возрастанию id, то есть в порядке добавления,
+     * как их хранит менеджер
+     */
+    private void write(Pending state, boolean fsync) {
+        TaskManagerSnapshot snapshot = state.snapshot;
+        writeSnapshot(sortedById(snapshot.getTasks()), sortedById(snapshot.getEpics()),
+                sortedById(snapshot.getSubtasks()), state.history.ids(), fsync);
+    }
+
+    private static <T extends Task> List<T> sortedById(Collection<T> values) {
+        List<T> sorted = new ArrayList<>(values);
+        sorted.sort(Comparator.comparingInt(Task::getId));
+        return sorted;
+    }
+
+    /**
+     * Сбросить на диск уже записанный файл
+     */
+    private void forceFile() {
+        try (FileChannel channel = FileChannel.open(getPath(), StandardOpenOption.WRITE)) {
+            channel.force(true);
+        } catch (IOException e) {
+            throw new ManagerSaveException(e.getMessage());
+        }
+    }
+
+    /**
+     * Состояние, которое нужно записать: снимок задач и история просмотров
+     */
+    private static final class Pending {
+        private final TaskManagerSnapshot snapshot;
+        private final HistorySnapshot history;
+
+        private Pending(TaskManagerSnapshot snapshot, HistorySnapshot history) {
+            this.snapshot = snapshot;
+            this.history = history;
+        }
+    }
+}
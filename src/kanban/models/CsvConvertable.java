@@ -1,15 +1,53 @@
 package kanban.models;
 
+import kanban.util.CsvRow;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
 public interface CsvConvertable {
     /**
      * Конвертация объекта в csv-строку
      * @return csv-строка
      */
-    String toCsvString();
+    default String toCsvString() {
+        StringBuilder builder = new StringBuilder();
+        try {
+            appendCsv(builder);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Записать поля объекта в csv без перевода строки. Строки и числа пишутся прямо в получатель,
+     * поэтому запись в переиспользуемый буфер, например {@link kanban.util.CsvWriter}, не создаёт объектов
+     * @param out Получатель
+     */
+    void appendCsv(Appendable out) throws IOException;
 
     /**
      * Сериализация объекта из csv-строки
      * @param csvString csv-строка
      */
-    void fromScsString(String csvString);
+    default void fromScsString(String csvString) {
+        fromCsvRow(CsvRow.of(csvString));
+    }
+
+    /**
+     * Сериализация объекта из csv записи в буфере, например {@link java.nio.CharBuffer}
+     * @param csv Запись без перевода строки
+     * @param row Переиспользуемый объект для разбора записи
+     */
+    default void fromCsv(CharSequence csv, CsvRow row) {
+        row.parse(csv);
+        fromCsvRow(row);
+    }
+
+    /**
+     * Сериализация объекта из уже разобранной csv-строки
+     * @param row Поля csv-строки
+     */
+    void fromCsvRow(CsvRow row);
 }
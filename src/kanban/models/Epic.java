@@ -1,12 +1,14 @@
 package kanban.models;
 
+import kanban.util.IntHashSet;
+
+import java.io.IOException;
 import java.time.Instant;
-import java.util.ArrayList;
 import java.util.Objects;
 
 public class Epic extends Task {
 
-    private ArrayList<Integer> subtasksIDs = new ArrayList<>();
+    private IntHashSet subtasksIDs = new IntHashSet();
 
     protected Instant endTime;
 
@@ -20,9 +22,23 @@ public class Epic extends Task {
     }
 
     public Epic(Epic other) {
+        this(other, new IntHashSet(other.subtasksIDs));
+    }
+
+    /**
+     * Копия эпика с другим набором подзадач
+     *
+     * @param other       Эпик
+     * @param subtasksIDs Id подзадач копии, не копируются
+     */
+    public Epic(Epic other, IntHashSet subtasksIDs) {
         this(other.name, other.description);
-        this.subtasksIDs = new ArrayList<>(other.subtasksIDs);
+        this.subtasksIDs = subtasksIDs;
         this.id = other.id;
+        this.status = other.status;
+        this.startTime = other.startTime;
+        this.duration = other.duration;
+        this.endTime = other.endTime;
     }
 
     public Epic(String name, String description) {
@@ -30,7 +46,7 @@ public class Epic extends Task {
         this.description = description;
     }
 
-    public ArrayList<Integer> getSubtasks() {
+    public IntHashSet getSubtasks() {
         return subtasksIDs;
     }
 
@@ -63,16 +79,8 @@ public class Epic extends Task {
     }
 
     @Override
-    public String toCsvString() {
-        return String.join(",", Integer.toString(id), TaskType.EPIC.toString(),
-                name, status.toString(), description,
-                (startTime == null ? "null" : Long.toString(startTime.toEpochMilli())),
-                Long.toString(duration));
-    }
-
-    @Override
-    public void fromScsString(String csvString) {
-        super.fromScsString(csvString);
+    public void appendCsv(Appendable out) throws IOException {
+        appendCsv(out, TaskType.EPIC);
     }
 
     @Override
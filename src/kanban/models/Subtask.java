@@ -1,5 +1,9 @@
 package kanban.models;
 
+import kanban.util.CsvRow;
+import kanban.util.CsvWriter;
+
+import java.io.IOException;
 import java.time.Instant;
 import java.util.Objects;
 
@@ -41,6 +45,8 @@ public class Subtask extends Task {
         this.epicId = other.epicId;
         this.id = other.id;
         this.description = other.description;
+        this.startTime = other.startTime;
+        this.duration = other.duration;
     }
 
     public int getEpicId() {
@@ -79,22 +85,15 @@ public class Subtask extends Task {
     }
 
     @Override
-    public String toCsvString() {
-        return String.join(",", Integer.toString(id), TaskType.SUBTASK.toString(),
-                name, status.toString(), description,
-                (startTime == null ? "null" : Long.toString(startTime.toEpochMilli())),
-                Long.toString(duration), Integer.toString(epicId));
+    public void appendCsv(Appendable out) throws IOException {
+        appendCsv(out, TaskType.SUBTASK);
+        out.append(',');
+        CsvWriter.appendNumber(out, epicId);
     }
 
     @Override
-    public void fromScsString(String csvString) {
-        String[] data = csvString.split(",", 8);
-        this.id = Integer.parseInt(data[0]);
-        this.name = data[2];
-        this.status = TaskStatus.valueOf(data[3]);
-        this.description = data[4];
-        this.startTime = Objects.equals(data[5], "null") ? null : Instant.ofEpochMilli(Long.parseLong(data[5]));
-        this.duration = Long.parseLong(data[6]);
-        this.epicId = Integer.parseInt(data[7].trim());
+    public void fromCsvRow(CsvRow row) {
+        super.fromCsvRow(row);
+        this.epicId = row.getInt(7);
     }
 }
@@ -1,5 +1,9 @@
 package kanban.models;
 
+import kanban.util.CsvRow;
+import kanban.util.CsvWriter;
+
+import java.io.IOException;
 import java.time.Instant;
 import java.util.Objects;
 
@@ -7,6 +11,7 @@ public class Task implements CsvConvertable {
 
     private static final long MILLIS_IN_SECOND = 1_000;
     private static final long SECOND_IN_MINUTES = 60;
+    private static final TaskStatus[] STATUSES = TaskStatus.values();
 
     protected int id = -1;
     protected String name;
@@ -117,21 +122,40 @@ public class Task implements CsvConvertable {
     }
 
     @Override
-    public String toCsvString() {
-        return String.join(",", Integer.toString(id), TaskType.TASK.toString(),
-                name, status.toString(), description,
-                (startTime == null ? "null" : Long.toString(startTime.toEpochMilli())), Long.toString(duration));
+    public void appendCsv(Appendable out) throws IOException {
+        appendCsv(out, TaskType.TASK);
+    }
+
+    /**
+     * Записать общие поля задачи в csv
+     *
+     * @param out  Получатель
+     * @param type Тип задачи во втором поле
+     */
+    protected void appendCsv(Appendable out, TaskType type) throws IOException {
+        CsvWriter.appendNumber(out, id);
+        out.append(',').append(type.name()).append(',');
+        CsvWriter.appendField(out, name);
+        out.append(',').append(status.name()).append(',');
+        CsvWriter.appendField(out, description);
+        out.append(',');
+        if (startTime == null) {
+            out.append("null");
+        } else {
+            CsvWriter.appendNumber(out, startTime.toEpochMilli());
+        }
+        out.append(',');
+        CsvWriter.appendNumber(out, duration);
     }
 
     @Override
-    public void fromScsString(String csvString) {
-        String[] data = csvString.split(",", 7);
-        this.id = Integer.parseInt(data[0]);
-        this.name = data[2];
-        this.status = TaskStatus.valueOf(data[3]);
-        this.description = data[4];
-        this.startTime = Objects.equals(data[5], "null") ? null : Instant.ofEpochMilli(Long.parseLong(data[5]));
-        this.duration = Long.parseLong(data[6]);
+    public void fromCsvRow(CsvRow row) {
+        this.id = row.getInt(0);
+        this.name = row.get(2);
+        this.status = row.getEnum(3, STATUSES);
+        this.description = row.get(4);
+        this.startTime = row.equalsAt(5, "null") ? null : Instant.ofEpochMilli(row.getLong(5));
+        this.duration = row.getLong(6);
     }
 
     public String getDescription() {
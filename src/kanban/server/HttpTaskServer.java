@@ -17,8 +17,12 @@ import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
+import kanban.manager.DebouncedHttpTaskManager;
 import kanban.manager.IntersectionDetectedException;
+import kanban.manager.ManagerSaveException;
 import kanban.manager.Managers;
 import kanban.manager.TaskManager;
 import kanban.models.*;
@@ -33,9 +37,12 @@ import static kanban.models.ContentType.TEXT;
 public class HttpTaskServer {
 
     private static final int PORT = 8080;
+    private static final int THREADS = Runtime.getRuntime().availableProcessors();
     private static final Charset DEFAULT_CHARSET = StandardCharsets.UTF_8;
     private final HttpServer httpServer;
-    static TaskManager taskManager = Managers.getHttpTaskManager();
+    private final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    private static final DebouncedHttpTaskManager kvManager = Managers.getDebouncedHttpTaskManager();
+    static TaskManager taskManager = Managers.getConcurrentManager(kvManager);
 
     public static TaskManager getTaskManager() {
         return taskManager;
@@ -43,6 +50,12 @@ public class HttpTaskServer {
 
     public void stop() {
         httpServer.stop(1);
+        executor.shutdown();
+        try {
+            kvManager.flush();
+        } catch (ManagerSaveException e) {
+            e.printStackTrace();
+        }
     }
 
     private static final Gson gson = new GsonBuilder()
@@ -55,6 +68,7 @@ public class HttpTaskServer {
 
             httpServer.bind(new InetSocketAddress(PORT), 0);
             httpServer.createContext("/tasks", new TasksHandler());
+            httpServer.setExecutor(executor);
 
             httpServer.start();
 
@@ -74,8 +88,7 @@ public class HttpTaskServer {
             if ((path.equals("/tasks/")
                     || (path.equals("/tasks")))
                     && method.equals("GET")) {
-                List<Task> prioritizedTasks = new ArrayList<>(taskManager.getPrioritizedTasks());
-                writeResponse(exchange, gson.toJson(prioritizedTasks), HTTP_OK, JSON);
+                writeResponse(exchange, gson.toJson(taskManager.getPrioritizedTasks()), HTTP_OK, JSON);
             } else if (path.equals("/tasks/task/")
                     || path.equals("/tasks/task")) {
                 if (method.equals("GET")) {
@@ -150,7 +163,7 @@ public class HttpTaskServer {
                 switch (type) {
                     case TASK:
                         if (id == -1) {
-                            writeResponse(exchange, gson.toJson(taskManager.getTasks()), HTTP_OK, JSON);
+                            writeResponse(exchange, gson.toJson(taskManager.getSnapshot().getTasks()), HTTP_OK, JSON);
                             return;
                         }
                         Task task = taskManager.getTaskById(id);
@@ -163,7 +176,7 @@ public class HttpTaskServer {
                         break;
                     case EPIC:
                         if (id == -1) {
-                            writeResponse(exchange, gson.toJson(taskManager.getEpics()), HTTP_OK, JSON);
+                            writeResponse(exchange, gson.toJson(taskManager.getSnapshot().getEpics()), HTTP_OK, JSON);
                             return;
                         }
                         Epic epic = taskManager.getEpicById(id);
@@ -176,7 +189,7 @@ public class HttpTaskServer {
                         break;
                     case SUBTASK:
                         if (id == -1) {
-                            writeResponse(exchange, gson.toJson(taskManager.getSubtasks()), HTTP_OK, JSON);
+                            writeResponse(exchange, gson.toJson(taskManager.getSnapshot().getSubtasks()), HTTP_OK, JSON);
                             return;
                         }
                         Subtask subtask = taskManager.getSubtaskById(id);
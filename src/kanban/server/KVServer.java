@@ -6,13 +6,20 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.net.InetSocketAddress;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpServer;
+import kanban.util.KeyValueFrames;
 
 /**
  * Постман: https://www.getpostman.com/collections/a83b61d9e1c81c10575c
+ * <p>
+ * Кроме /save/{key} и /load/{key} есть пакетные /save-batch и /load-batch, которые за один запрос
+ * сохраняют или читают несколько ключей. Тело пакетных запросов и ответа записано в формате {@link KeyValueFrames}.
+ * Пакет применяется целиком под одной блокировкой: другие запросы видят либо все его значения, либо ни одного.
+ * Пара без значения в /save-batch удаляет ключ
  */
 public class KVServer {
     public static final int PORT = 8078;
@@ -31,6 +38,8 @@ public class KVServer {
         server.createContext("/register", this::register);
         server.createContext("/save", this::save);
         server.createContext("/load", this::load);
+        server.createContext("/save-batch", this::saveBatch);
+        server.createContext("/load-batch", this::loadBatch);
     }
 
     private void load(HttpExchange h) throws IOException {
@@ -48,7 +57,15 @@ public class KVServer {
                     h.sendResponseHeaders(400, 0);
                     return;
                 }
-                String response = data.get(key);
+                String response;
+                synchronized (data) {
+                    response = data.get(key);
+                }
+                if (response == null) {
+                    System.out.println("Значения для ключа " + key + " нет");
+                    h.sendResponseHeaders(404, 0);
+                    return;
+                }
                 if (response.isEmpty()) {
                     System.out.println("Value для отправки пустой.");
                     h.sendResponseHeaders(400, 0);
@@ -57,7 +74,7 @@ public class KVServer {
                 h.sendResponseHeaders(200, 0);
 
                 try (OutputStream os = h.getResponseBody()) {
-                    os.write(response.getBytes());
+                    os.write(response.getBytes(UTF_8));
                 }
             }
         } finally {
@@ -86,7 +103,9 @@ public class KVServer {
                     h.sendResponseHeaders(400, 0);
                     return;
                 }
-                data.put(key, value);
+                synchronized (data) {
+                    data.put(key, value);
+                }
                 System.out.println("Значение для ключа " + key + " успешно обновлено!");
                 h.sendResponseHeaders(200, 0);
             } else {
@@ -98,6 +117,103 @@ public class KVServer {
         }
     }
 
+    /**
+     * Сохранить все пары из тела запроса, ключи пар без значения удалить.
+     * Если хотя бы у одной пары пустой ключ или пустое значение, не применяется ни одна
+     */
+    private void saveBatch(HttpExchange h) throws IOException {
+        try {
+            System.out.println("\n/save-batch");
+            if (!hasAuth(h)) {
+                System.out.println("Запрос неавторизован, нужен параметр в query API_TOKEN со значением апи-ключа");
+                h.sendResponseHeaders(403, 0);
+                return;
+            }
+            if (!h.getRequestMethod().equals("POST")) {
+                System.out.println("/save-batch ждёт POST-запрос, а получил: " + h.getRequestMethod());
+                h.sendResponseHeaders(405, 0);
+                return;
+            }
+            Map<String, String> values = readFrames(h);
+            if (values == null) {
+                return;
+            }
+            for (Map.Entry<String, String> entry : values.entrySet()) {
+                if (entry.getKey().isEmpty() || entry.getValue() != null && entry.getValue().isEmpty()) {
+                    System.out.println("Пустой key или value для ключа '" + entry.getKey() + "', пакет не сохранён");
+                    h.sendResponseHeaders(400, 0);
+                    return;
+                }
+            }
+            synchronized (data) {
+                for (Map.Entry<String, String> entry : values.entrySet()) {
+                    if (entry.getValue() == null) {
+                        data.remove(entry.getKey());
+                    } else {
+                        data.put(entry.getKey(), entry.getValue());
+                    }
+                }
+            }
+            System.out.println("Значения для " + values.size() + " ключей успешно обновлены!");
+            h.sendResponseHeaders(200, 0);
+        } finally {
+            h.close();
+        }
+    }
+
+    /**
+     * Вернуть значения ключей из тела запроса в том же порядке. Для ключа без значения
+     * в ответе стоит пара без значения
+     */
+    private void loadBatch(HttpExchange h) throws IOException {
+        try {
+            System.out.println("\n/load-batch");
+            if (!hasAuth(h)) {
+                System.out.println("Запрос неавторизован, нужен параметр в query API_TOKEN со значением апи-ключа");
+                h.sendResponseHeaders(403, 0);
+                return;
+            }
+            if (!h.getRequestMethod().equals("POST")) {
+                System.out.println("/load-batch ждёт POST-запрос, а получил: " + h.getRequestMethod());
+                h.sendResponseHeaders(405, 0);
+                return;
+            }
+            Map<String, String> keys = readFrames(h);
+            if (keys == null) {
+                return;
+            }
+            Map<String, String> values = new LinkedHashMap<>();
+            synchronized (data) {
+                for (String key : keys.keySet()) {
+                    values.put(key, data.get(key));
+                }
+            }
+            byte[] response = KeyValueFrames.write(values);
+            h.getResponseHeaders().add("Content-Type", "application/octet-stream");
+            h.sendResponseHeaders(200, response.length);
+            try (OutputStream os = h.getResponseBody()) {
+                os.write(response);
+            }
+        } finally {
+            h.close();
+        }
+    }
+
+    /**
+     * Прочитать пары из тела пакетного запроса
+     *
+     * @return Пары, null - если тело не в формате {@link KeyValueFrames}, ответ 400 уже отправлен
+     */
+    private Map<String, String> readFrames(HttpExchange h) throws IOException {
+        try {
+            return KeyValueFrames.read(h.getRequestBody());
+        } catch (IOException e) {
+            System.out.println("Тело пакетного запроса не разобрано: " + e.getMessage());
+            h.sendResponseHeaders(400, 0);
+            return null;
+        }
+    }
+
     private void register(HttpExchange h) throws IOException {
         try {
             System.out.println("\n/register");
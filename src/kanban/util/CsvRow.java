@@ -0,0 +1,324 @@
+package kanban.util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Строка csv, разбитая на поля за один проход без регулярных выражений.
+ * Хранятся только границы полей, а числа и перечисления читаются прямо из строки без копирования полей.
+ * Поле в кавычках может содержать запятые, переводы строк и удвоенные кавычки.
+ * Строкой может быть любая {@link CharSequence}, например {@link java.nio.CharBuffer}:
+ * она не копируется, поэтому её нельзя менять, пока поля читаются. Объект можно переиспользовать для следующих строк
+ */
+public final class CsvRow {
+
+    private static final char SEPARATOR = ',';
+    private static final char QUOTE = '"';
+    private static final int DEFAULT_FIELDS = 8;
+
+    /**
+     * Состояния поиска конца записи: начало поля, поле без кавычек, поле в кавычках
+     * и кавычка внутри поля в кавычках, которая либо закрывает поле, либо удвоена
+     */
+    private static final int FIELD_START = 0;
+    private static final int UNQUOTED = 1;
+    private static final int QUOTED = 2;
+    private static final int QUOTE_IN_QUOTED = 3;
+
+    private CharSequence line = "";
+
+    /**
+     * Поле i занимает символы с starts[i] по ends[i] - 1, у поля в кавычках - без самих кавычек
+     */
+    private int[] starts = new int[DEFAULT_FIELDS];
+    private int[] ends = new int[DEFAULT_FIELDS];
+
+    /**
+     * В поле есть удвоенные кавычки, и его нужно раскодировать перед чтением
+     */
+    private boolean[] escaped = new boolean[DEFAULT_FIELDS];
+    private int size;
+
+    /**
+     * Разобрать строку в новый объект
+     *
+     * @param line Строка
+     * @return Разобранная строка
+     */
+    public static CsvRow of(CharSequence line) {
+        CsvRow row = new CsvRow();
+        row.parse(line);
+        return row;
+    }
+
+    /**
+     * Прочитать одну csv запись. Если поле в кавычках содержит перевод строки, запись занимает несколько строк.
+     * Поле считается полем в кавычках, только если кавычка - его первый символ, как в {@link #parse(CharSequence)},
+     * поэтому кавычки внутри полей старых файлов, где поля не экранировались, не склеивают записи.
+     * Строки читаются через {@link BufferedReader#readLine()}, поэтому переводы строк внутри поля
+     * читаются как '\n' независимо от того, были ли они "\r\n" или "\r"
+     *
+     * @param reader Источник
+     * @return Запись без завершающего перевода строки, null - если строки закончились
+     */
+    public static String readRecord(BufferedReader reader) throws IOException {
+        String line = reader.readLine();
+        if (line == null) {
+            return null;
+        }
+        int state = scan(FIELD_START, line);
+        if (state != QUOTED) {
+            return line;
+        }
+        StringBuilder record = new StringBuilder(line);
+        while (state == QUOTED && (line = reader.readLine()) != null) {
+            record.append('\n').append(line);
+            state = scan(state, line);
+        }
+        return record.toString();
+    }
+
+    /**
+     * Найти перевод строки, которым заканчивается csv запись. Переводы строк внутри полей в кавычках пропускаются
+     *
+     * @param text Текст из нескольких записей
+     * @param from Начало записи
+     * @return Позиция перевода строки, -1 - если запись не закончена
+     */
+    public static int indexOfRecordEnd(CharSequence text, int from) {
+        int state = FIELD_START;
+        for (int i = from; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\n' && state != QUOTED) {
+                return i;
+            }
+            state = next(state, c);
+        }
+        return -1;
+    }
+
+    private static int scan(int state, CharSequence line) {
+        for (int i = 0; i < line.length(); i++) {
+            state = next(state, line.charAt(i));
+        }
+        return state;
+    }
+
+    /**
+     * Состояние разбора записи после символа. Кавычка открывает поле, только если стоит в его начале,
+     * удвоенная кавычка внутри поля в кавычках его не закрывает
+     *
+     * @param state Состояние до символа
+     * @param c     Символ
+     * @return Состояние после символа
+     */
+    private static int next(int state, char c) {
+        switch (state) {
+            case QUOTED:
+                return c == QUOTE ? QUOTE_IN_QUOTED : QUOTED;
+            case QUOTE_IN_QUOTED:
+                if (c == QUOTE) {
+                    return QUOTED;
+                }
+                return c == SEPARATOR || c == '\n' ? FIELD_START : UNQUOTED;
+            case FIELD_START:
+                if (c == QUOTE) {
+                    return QUOTED;
+                }
+                return c == SEPARATOR || c == '\n' ? FIELD_START : UNQUOTED;
+            default:
+                return c == SEPARATOR || c == '\n' ? FIELD_START : UNQUOTED;
+        }
+    }
+
+    /**
+     * Разобрать строку, заменив предыдущую
+     *
+     * @param line Строка
+     * @throws IllegalArgumentException если кавычка поля не закрыта
+     */
+    public void parse(CharSequence line) {
+        this.line = line;
+        size = 0;
+        int length = line.length();
+        int position = 0;
+        while (true) {
+            if (size == starts.length) {
+                starts = Arrays.copyOf(starts, size * 2);
+                ends = Arrays.copyOf(ends, size * 2);
+                escaped = Arrays.copyOf(escaped, size * 2);
+            }
+            if (position < length && line.charAt(position) == QUOTE) {
+                position = parseQuoted(position + 1);
+            } else {
+                int end = indexOf(SEPARATOR, position);
+                starts[size] = position;
+                ends[size] = end;
+                escaped[size] = false;
+                position = end;
+            }
+            size++;
+            if (position >= length) {
+                return;
+            }
+            position++;
+        }
+    }
+
+    /**
+     * Разобрать поле в кавычках
+     *
+     * @param start Символ после открывающей кавычки
+     * @return Позиция запятой после поля или конец строки
+     */
+    private int parseQuoted(int start) {
+        boolean hasEscapes = false;
+        int end = start;
+        while (true) {
+            int quote = indexOf(QUOTE, end);
+            if (quote == line.length()) {
+                throw new IllegalArgumentException("Незакрытая кавычка в строке: " + line);
+            }
+            if (quote + 1 < line.length() && line.charAt(quote + 1) == QUOTE) {
+                hasEscapes = true;
+                end = quote + 2;
+            } else {
+                end = quote;
+                break;
+            }
+        }
+        starts[size] = start;
+        ends[size] = end;
+        escaped[size] = hasEscapes;
+        return indexOf(SEPARATOR, end + 1);
+    }
+
+    private int indexOf(char c, int from) {
+        int length = line.length();
+        for (int i = from; i < length; i++) {
+            if (line.charAt(i) == c) {
+                return i;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * @return Количество полей
+     */
+    public int size() {
+        return size;
+    }
+
+    public String get(int index) {
+        int start = start(index);
+        if (!escaped[index]) {
+            return line.subSequence(start, ends[index]).toString();
+        }
+        StringBuilder value = new StringBuilder(ends[index] - start);
+        for (int i = start; i < ends[index]; i++) {
+            char c = line.charAt(i);
+            value.append(c);
+            if (c == QUOTE) {
+                i++;
+            }
+        }
+        return value.toString();
+    }
+
+    /**
+     * Прочитать поле как int. Пробелы по краям поля игнорируются
+     *
+     * @param index Номер поля
+     * @return Значение
+     * @throws NumberFormatException если поле не число
+     */
+    public int getInt(int index) {
+        int begin = trimStart(index);
+        return Integer.parseInt(line, begin, trimEnd(index, begin), 10);
+    }
+
+    /**
+     * Прочитать поле как long. Пробелы по краям поля игнорируются
+     *
+     * @param index Номер поля
+     * @return Значение
+     * @throws NumberFormatException если поле не число
+     */
+    public long getLong(int index) {
+        int begin = trimStart(index);
+        return Long.parseLong(line, begin, trimEnd(index, begin), 10);
+    }
+
+    /**
+     * Найти значение перечисления по имени в поле
+     *
+     * @param index  Номер поля
+     * @param values Значения перечисления
+     * @return Значение
+     * @throws IllegalArgumentException если значения с таким именем нет
+     */
+    public <E extends Enum<E>> E getEnum(int index, E[] values) {
+        for (E value : values) {
+            if (equalsAt(index, value.name())) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Неизвестное значение: " + get(index));
+    }
+
+    /**
+     * Проверить, совпадает ли поле со строкой
+     *
+     * @param index Номер поля
+     * @param value Строка
+     * @return true - если совпадает
+     */
+    public boolean equalsAt(int index, String value) {
+        int start = start(index);
+        if (escaped[index]) {
+            return get(index).equals(value);
+        }
+        if (ends[index] - start != value.length()) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (line.charAt(start + i) != value.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return Поле пустое
+     */
+    public boolean isEmpty(int index) {
+        return ends[index] == start(index);
+    }
+
+    private int start(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Нет поля " + index + " в строке: " + line);
+        }
+        return starts[index];
+    }
+
+    private int trimStart(int index) {
+        int begin = start(index);
+        int end = ends[index];
+        while (begin < end && Character.isWhitespace(line.charAt(begin))) {
+            begin++;
+        }
+        return begin;
+    }
+
+    private int trimEnd(int index, int begin) {
+        int end = ends[index];
+        while (end > begin && Character.isWhitespace(line.charAt(end - 1))) {
+            end--;
+        }
+        return end;
+    }
+}
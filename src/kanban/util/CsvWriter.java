@@ -0,0 +1,200 @@
+package kanban.util;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Переиспользуемый буфер для записи csv в канал в UTF-8.
+ * Символы копируются в один буфер символов, кодируются в один буфер байтов и пишутся в канал,
+ * поэтому запись строк и чисел не создаёт объектов. Методы {@link #appendField} и {@link #appendNumber}
+ * пишут поле в любой {@link Appendable}.
+ * Объект не потокобезопасен: одновременно он пишет только в один канал
+ */
+public final class CsvWriter implements Appendable, Flushable {
+
+    private static final int DEFAULT_CAPACITY = 8_192;
+    private static final char SEPARATOR = ',';
+    private static final char QUOTE = '"';
+
+    private final CharBuffer chars;
+    private final ByteBuffer bytes;
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+    private WritableByteChannel channel;
+
+    public CsvWriter() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity Размер буфера в символах, не меньше двух, чтобы поместилась суррогатная пара
+     */
+    public CsvWriter(int capacity) {
+        if (capacity < 2) {
+            throw new IllegalArgumentException("Размер буфера должен быть не меньше двух символов");
+        }
+        chars = CharBuffer.allocate(capacity);
+        // в байтовый буфер должен помещаться хотя бы один закодированный символ
+        bytes = ByteBuffer.allocate((int) Math.ceil(capacity * encoder.maxBytesPerChar()));
+    }
+
+    /**
+     * Записать строковое поле. Поле с запятой, кавычкой или переводом строки берётся в кавычки,
+     * кавычки внутри удваиваются
+     *
+     * @param out   Получатель
+     * @param value Значение, null записывается как "null"
+     */
+    public static void appendField(Appendable out, CharSequence value) throws IOException {
+        if (value == null || !needsQuotes(value)) {
+            out.append(value);
+            return;
+        }
+        out.append(QUOTE);
+        int from = 0;
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) == QUOTE) {
+                out.append(value, from, i + 1).append(QUOTE);
+                from = i + 1;
+            }
+        }
+        out.append(value, from, value.length()).append(QUOTE);
+    }
+
+    /**
+     * Записать число без создания строки
+     *
+     * @param out   Получатель
+     * @param value Число
+     */
+    public static void appendNumber(Appendable out, long value) throws IOException {
+        // отрицательные числа покрывают весь диапазон, включая Long.MIN_VALUE
+        long negative = value;
+        if (value < 0) {
+            out.append('-');
+        } else {
+            negative = -value;
+        }
+        long divisor = 1;
+        while (negative / divisor <= -10) {
+            divisor *= 10;
+        }
+        for (; divisor > 0; divisor /= 10) {
+            out.append((char) ('0' - negative / divisor));
+            negative %= divisor;
+        }
+    }
+
+    private static boolean needsQuotes(CharSequence value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == SEPARATOR || c == QUOTE || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Начать запись в канал
+     *
+     * @param channel Канал
+     */
+    public void open(WritableByteChannel channel) {
+        this.channel = channel;
+        chars.clear();
+        bytes.clear();
+        encoder.reset();
+    }
+
+    /**
+     * Дописать остаток буфера в канал и отсоединиться от него. Канал не закрывается
+     */
+    public void finish() throws IOException {
+        chars.flip();
+        encode(true);
+        while (encoder.flush(bytes).isOverflow()) {
+            drain();
+        }
+        drain();
+        channel = null;
+    }
+
+    @Override
+    public CsvWriter append(CharSequence csq) throws IOException {
+        if (csq == null) {
+            return append("null");
+        }
+        return append(csq, 0, csq.length());
+    }
+
+    @Override
+    public CsvWriter append(CharSequence csq, int start, int end) throws IOException {
+        if (csq == null) {
+            return append("null", start, end);
+        }
+        while (start < end) {
+            if (!chars.hasRemaining()) {
+                flush();
+            }
+            int count = Math.min(chars.remaining(), end - start);
+            if (csq instanceof String) {
+                chars.put((String) csq, start, start + count);
+            } else {
+                for (int i = start; i < start + count; i++) {
+                    chars.put(csq.charAt(i));
+                }
+            }
+            start += count;
+        }
+        return this;
+    }
+
+    @Override
+    public CsvWriter append(char c) throws IOException {
+        if (!chars.hasRemaining()) {
+            flush();
+        }
+        chars.put(c);
+        return this;
+    }
+
+    /**
+     * Закодировать накопленные символы и записать байты в канал.
+     * Половина суррогатной пары в конце буфера остаётся до следующей записи
+     */
+    @Override
+    public void flush() throws IOException {
+        chars.flip();
+        encode(false);
+        drain();
+        chars.compact();
+    }
+
+    private void encode(boolean endOfInput) throws IOException {
+        while (true) {
+            CoderResult result = encoder.encode(chars, bytes, endOfInput);
+            if (result.isUnderflow()) {
+                return;
+            }
+            if (result.isOverflow()) {
+                drain();
+            } else {
+                result.throwException();
+            }
+        }
+    }
+
+    private void drain() throws IOException {
+        bytes.flip();
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+        bytes.clear();
+    }
+}
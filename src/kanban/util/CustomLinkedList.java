@@ -56,8 +56,11 @@ public class CustomLinkedList<T> {
         if (elem == null) return;
 
         if (elem.equals(head)) {
-            if(size == 1){
+            if (size == 1) {
                 head = null;
+                tail = null;
+                elem.data = null;
+                size--;
                 return;
             }
             head.next.prev = null;
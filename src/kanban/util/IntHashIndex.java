@@ -0,0 +1,211 @@
+package kanban.util;
+
+import java.util.Arrays;
+
+/**
+ * Основа хеш-таблиц с ключами типа int без упаковки.
+ * Ключи хранятся плотно в порядке добавления, а открытая адресация с линейным пробированием
+ * хранит только номера позиций. Удалённые позиции остаются дырами до ближайшего уплотнения,
+ * поэтому порядок обхода совпадает с порядком добавления
+ */
+abstract class IntHashIndex {
+
+    private static final int DEFAULT_CAPACITY = 8;
+    private static final int GOLDEN_RATIO = 0x9E3779B9;
+
+    /**
+     * Ключи в порядке добавления
+     */
+    protected int[] keys;
+
+    /**
+     * Признак удалённой позиции
+     */
+    private boolean[] removed;
+
+    /**
+     * Таблица открытой адресации: номер позиции + 1, 0 - пустая ячейка
+     */
+    private int[] table;
+
+    /**
+     * Количество занятых позиций, включая удалённые
+     */
+    protected int count;
+
+    protected int size;
+
+    protected IntHashIndex(int expectedSize) {
+        int capacity = Math.max(DEFAULT_CAPACITY, Integer.highestOneBit(Math.max(expectedSize, 1) - 1) << 1);
+        keys = new int[capacity];
+        removed = new boolean[capacity];
+        table = new int[capacity * 2];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Найти позицию ключа
+     *
+     * @param key Ключ
+     * @return Позиция, -1 - если ключа нет
+     */
+    protected int find(int key) {
+        int mask = table.length - 1;
+        for (int slot = home(key, mask); ; slot = (slot + 1) & mask) {
+            int position = table[slot] - 1;
+            if (position < 0) {
+                return -1;
+            }
+            if (keys[position] == key) {
+                return position;
+            }
+        }
+    }
+
+    /**
+     * Добавить отсутствующий ключ
+     *
+     * @param key Ключ
+     * @return Позиция нового ключа
+     */
+    protected int insert(int key) {
+        if (count == keys.length) {
+            rehash(size * 4 >= keys.length * 3 ? keys.length * 2 : keys.length);
+        }
+        int position = count++;
+        keys[position] = key;
+        place(position);
+        size++;
+        return position;
+    }
+
+    /**
+     * Удалить ключ
+     *
+     * @param key Ключ
+     * @return Позиция удалённого ключа, -1 - если ключа нет
+     */
+    protected int delete(int key) {
+        int mask = table.length - 1;
+        int slot = home(key, mask);
+        while (true) {
+            int position = table[slot] - 1;
+            if (position < 0) {
+                return -1;
+            }
+            if (keys[position] == key) {
+                break;
+            }
+            slot = (slot + 1) & mask;
+        }
+        int position = table[slot] - 1;
+        table[slot] = 0;
+        for (int next = (slot + 1) & mask; table[next] != 0; next = (next + 1) & mask) {
+            int nextHome = home(keys[table[next] - 1], mask);
+            if (((next - nextHome) & mask) >= ((next - slot) & mask)) {
+                table[slot] = table[next];
+                table[next] = 0;
+                slot = next;
+            }
+        }
+        removed[position] = true;
+        size--;
+        if (position == count - 1) {
+            count--;
+            removed[position] = false;
+        }
+        return position;
+    }
+
+    protected void clearIndex() {
+        clearValues(0, count);
+        Arrays.fill(table, 0);
+        Arrays.fill(removed, 0, count, false);
+        count = 0;
+        size = 0;
+    }
+
+    /**
+     * Найти следующую неудалённую позицию
+     *
+     * @param position Позиция, с которой начинается поиск
+     * @return Позиция, либо {@link #count}, если таких позиций нет
+     */
+    protected int nextLive(int position) {
+        while (position < count && removed[position]) {
+            position++;
+        }
+        return position;
+    }
+
+    /**
+     * Изменить размер хранилища значений
+     *
+     * @param capacity Новый размер
+     */
+    protected abstract void resizeValues(int capacity);
+
+    /**
+     * Перенести значение при уплотнении
+     *
+     * @param from Старая позиция
+     * @param to   Новая позиция
+     */
+    protected abstract void moveValue(int from, int to);
+
+    /**
+     * Освободить значения на позициях [from, to)
+     *
+     * @param from Первая позиция (включительно)
+     * @param to   Последняя позиция (не включительно)
+     */
+    protected abstract void clearValues(int from, int to);
+
+    private void rehash(int capacity) {
+        int live = 0;
+        for (int position = 0; position < count; position++) {
+            if (!removed[position]) {
+                if (live != position) {
+                    keys[live] = keys[position];
+                    moveValue(position, live);
+                }
+                live++;
+            }
+        }
+        clearValues(live, count);
+        count = live;
+        if (capacity != keys.length) {
+            keys = Arrays.copyOf(keys, capacity);
+            resizeValues(capacity);
+            table = new int[capacity * 2];
+            removed = new boolean[capacity];
+        } else {
+            Arrays.fill(table, 0);
+            Arrays.fill(removed, false);
+        }
+        for (int position = 0; position < count; position++) {
+            place(position);
+        }
+    }
+
+    private void place(int position) {
+        int mask = table.length - 1;
+        int slot = home(keys[position], mask);
+        while (table[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = position + 1;
+    }
+
+    private static int home(int key, int mask) {
+        int hash = key * GOLDEN_RATIO;
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+}
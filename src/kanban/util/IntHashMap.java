@@ -0,0 +1,288 @@
+package kanban.util;
+
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Хеш-таблица с ключами типа int. Поиск не упаковывает ключ и не создаёт объектов,
+ * обход идёт в порядке добавления ключей. Значения null не допускаются
+ *
+ * @param <V> Тип значений
+ */
+public class IntHashMap<V> extends IntHashIndex {
+
+    private Object[] values;
+    private int modCount;
+
+    public IntHashMap() {
+        this(0);
+    }
+
+    /**
+     * @param expectedSize Ожидаемое количество элементов
+     */
+    public IntHashMap(int expectedSize) {
+        super(expectedSize);
+        values = new Object[keys.length];
+    }
+
+    /**
+     * Получить значение по ключу
+     *
+     * @param key Ключ
+     * @return Значение, null - если ключа нет
+     */
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        int position = find(key);
+        return position < 0 ? null : (V) values[position];
+    }
+
+    public boolean containsKey(int key) {
+        return find(key) >= 0;
+    }
+
+    /**
+     * Добавить или заменить значение
+     *
+     * @param key   Ключ
+     * @param value Значение, не null
+     * @return Предыдущее значение, null - если ключа не было
+     */
+    @SuppressWarnings("unchecked")
+    public V put(int key, V value) {
+        Objects.requireNonNull(value, "Значение не может быть null");
+        int position = find(key);
+        if (position >= 0) {
+            V previous = (V) values[position];
+            values[position] = value;
+            return previous;
+        }
+        modCount++;
+        int newPosition = insert(key);
+        values[newPosition] = value;
+        return null;
+    }
+
+    /**
+     * Добавить все значения из таблицы
+     *
+     * @param map Таблица
+     */
+    public void putAll(Map<Integer, ? extends V> map) {
+        for (Map.Entry<Integer, ? extends V> entry : map.entrySet()) {
+            put(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Удалить значение по ключу
+     *
+     * @param key Ключ
+     * @return Удалённое значение, null - если ключа не было
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(int key) {
+        int position = delete(key);
+        if (position < 0) {
+            return null;
+        }
+        modCount++;
+        V previous = (V) values[position];
+        values[position] = null;
+        return previous;
+    }
+
+    public void clear() {
+        modCount++;
+        clearIndex();
+    }
+
+    /**
+     * Представление значений в порядке добавления ключей
+     *
+     * @return Значения
+     */
+    public Collection<V> values() {
+        return new Values();
+    }
+
+    /**
+     * Представление ключей в порядке добавления. Ключи упаковываются при обходе
+     *
+     * @return Ключи
+     */
+    public Set<Integer> keySet() {
+        return new KeySet();
+    }
+
+    /**
+     * Представление таблицы в виде {@link Map} только для чтения, например для сериализации
+     *
+     * @return Таблица
+     */
+    public Map<Integer, V> asMap() {
+        return new MapView();
+    }
+
+    @Override
+    protected void resizeValues(int capacity) {
+        values = Arrays.copyOf(values, capacity);
+    }
+
+    @Override
+    protected void moveValue(int from, int to) {
+        values[to] = values[from];
+    }
+
+    @Override
+    protected void clearValues(int from, int to) {
+        Arrays.fill(values, from, to, null);
+    }
+
+    /**
+     * Итератор по позициям таблицы
+     */
+    private abstract class PositionIterator<E> implements Iterator<E> {
+        private int next = nextLive(0);
+        private int last = -1;
+        private int expectedModCount = modCount;
+
+        @Override
+        public boolean hasNext() {
+            return next < count;
+        }
+
+        @Override
+        public E next() {
+            if (expectedModCount != modCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (next >= count) {
+                throw new NoSuchElementException();
+            }
+            last = next;
+            next = nextLive(next + 1);
+            return element(last);
+        }
+
+        @Override
+        public void remove() {
+            if (last < 0) {
+                throw new IllegalStateException();
+            }
+            if (expectedModCount != modCount) {
+                throw new ConcurrentModificationException();
+            }
+            IntHashMap.this.remove(keys[last]);
+            expectedModCount = modCount;
+            last = -1;
+        }
+
+        protected abstract E element(int position);
+    }
+
+    private final class Values extends AbstractCollection<V> {
+        @Override
+        public Iterator<V> iterator() {
+            return new PositionIterator<>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                protected V element(int position) {
+                    return (V) values[position];
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    private final class KeySet extends AbstractSet<Integer> {
+        @Override
+        public Iterator<Integer> iterator() {
+            return new PositionIterator<>() {
+                @Override
+                protected Integer element(int position) {
+                    return keys[position];
+                }
+            };
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return o instanceof Integer && containsKey((Integer) o);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    private final class MapView extends AbstractMap<Integer, V> {
+        @Override
+        public Set<Entry<Integer, V>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<Integer, V>> iterator() {
+                    return new PositionIterator<>() {
+                        @Override
+                        @SuppressWarnings("unchecked")
+                        protected Entry<Integer, V> element(int position) {
+                            return new SimpleImmutableEntry<>(keys[position], (V) values[position]);
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return size;
+                }
+            };
+        }
+
+        @Override
+        public V get(Object key) {
+            return key instanceof Integer ? IntHashMap.this.get((Integer) key) : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return key instanceof Integer && IntHashMap.this.containsKey((Integer) key);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        return asMap().equals(((IntHashMap<?>) o).asMap());
+    }
+
+    @Override
+    public int hashCode() {
+        return asMap().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return asMap().toString();
+    }
+}
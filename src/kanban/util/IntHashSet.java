@@ -0,0 +1,173 @@
+package kanban.util;
+
+import com.google.gson.annotations.JsonAdapter;
+
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * Множество чисел типа int. Проверка и удаление выполняются за O(1) без упаковки,
+ * обход идёт в порядке добавления. В JSON записывается массивом
+ */
+@JsonAdapter(IntHashSetAdapter.class)
+public class IntHashSet extends AbstractSet<Integer> {
+
+    private final Index index;
+    private int modCount;
+
+    /**
+     * Хеш-индекс без значений
+     */
+    private static final class Index extends IntHashIndex {
+        private Index(int expectedSize) {
+            super(expectedSize);
+        }
+
+        @Override
+        protected void resizeValues(int capacity) {
+        }
+
+        @Override
+        protected void moveValue(int from, int to) {
+        }
+
+        @Override
+        protected void clearValues(int from, int to) {
+        }
+    }
+
+    public IntHashSet() {
+        this(0);
+    }
+
+    /**
+     * @param expectedSize Ожидаемое количество элементов
+     */
+    public IntHashSet(int expectedSize) {
+        index = new Index(expectedSize);
+    }
+
+    public IntHashSet(Collection<Integer> values) {
+        this(values.size());
+        addAll(values);
+    }
+
+    /**
+     * Добавить число
+     *
+     * @param value Число
+     * @return true - если числа ещё не было
+     */
+    public boolean add(int value) {
+        if (index.find(value) >= 0) {
+            return false;
+        }
+        modCount++;
+        index.insert(value);
+        return true;
+    }
+
+    @Override
+    public boolean add(Integer value) {
+        return add(value.intValue());
+    }
+
+    public boolean contains(int value) {
+        return index.find(value) >= 0;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof Integer && contains(((Integer) o).intValue());
+    }
+
+    /**
+     * Удалить число
+     *
+     * @param value Число
+     * @return true - если число было в множестве
+     */
+    public boolean removeInt(int value) {
+        if (index.delete(value) < 0) {
+            return false;
+        }
+        modCount++;
+        return true;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        return o instanceof Integer && removeInt((Integer) o);
+    }
+
+    @Override
+    public void clear() {
+        modCount++;
+        index.clearIndex();
+    }
+
+    @Override
+    public int size() {
+        return index.size();
+    }
+
+    /**
+     * Получить числа в порядке добавления
+     *
+     * @return Массив чисел
+     */
+    public int[] toIntArray() {
+        int[] result = new int[size()];
+        int i = 0;
+        for (PrimitiveIterator.OfInt iterator = iterator(); iterator.hasNext(); ) {
+            result[i++] = iterator.nextInt();
+        }
+        return result;
+    }
+
+    /**
+     * Итератор в порядке добавления. {@link PrimitiveIterator.OfInt#nextInt()} не упаковывает числа
+     */
+    @Override
+    public PrimitiveIterator.OfInt iterator() {
+        return new PrimitiveIterator.OfInt() {
+            private int next = index.nextLive(0);
+            private int last = -1;
+            private int expectedModCount = modCount;
+
+            @Override
+            public boolean hasNext() {
+                return next < index.count;
+            }
+
+            @Override
+            public int nextInt() {
+                if (expectedModCount != modCount) {
+                    throw new ConcurrentModificationException();
+                }
+                if (next >= index.count) {
+                    throw new NoSuchElementException();
+                }
+                last = next;
+                next = index.nextLive(next + 1);
+                return index.keys[last];
+            }
+
+            @Override
+            public void remove() {
+                if (last < 0) {
+                    throw new IllegalStateException();
+                }
+                if (expectedModCount != modCount) {
+                    throw new ConcurrentModificationException();
+                }
+                removeInt(index.keys[last]);
+                expectedModCount = modCount;
+                last = -1;
+            }
+        };
+    }
+}
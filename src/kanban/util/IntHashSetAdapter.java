@@ -0,0 +1,40 @@
+package kanban.util;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.PrimitiveIterator;
+
+public class IntHashSetAdapter extends TypeAdapter<IntHashSet> {
+
+    @Override
+    public void write(JsonWriter jsonWriter, IntHashSet set) throws IOException {
+        if (set == null) {
+            jsonWriter.nullValue();
+            return;
+        }
+        jsonWriter.beginArray();
+        for (PrimitiveIterator.OfInt iterator = set.iterator(); iterator.hasNext(); ) {
+            jsonWriter.value(iterator.nextInt());
+        }
+        jsonWriter.endArray();
+    }
+
+    @Override
+    public IntHashSet read(JsonReader jsonReader) throws IOException {
+        if (jsonReader.peek() == JsonToken.NULL) {
+            jsonReader.nextNull();
+            return null;
+        }
+        IntHashSet set = new IntHashSet();
+        jsonReader.beginArray();
+        while (jsonReader.hasNext()) {
+            set.add(jsonReader.nextInt());
+        }
+        jsonReader.endArray();
+        return set;
+    }
+}
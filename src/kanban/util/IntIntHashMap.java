@@ -0,0 +1,91 @@
+package kanban.util;
+
+import java.util.Arrays;
+
+/**
+ * Хеш-таблица с ключами и значениями типа int. Ни поиск, ни изменение не упаковывают
+ * ни ключ, ни значение. Отсутствие ключа обозначается значением по умолчанию, которое передаёт вызывающий
+ */
+public class IntIntHashMap extends IntHashIndex {
+
+    private int[] values;
+
+    public IntIntHashMap() {
+        this(0);
+    }
+
+    /**
+     * @param expectedSize Ожидаемое количество элементов
+     */
+    public IntIntHashMap(int expectedSize) {
+        super(expectedSize);
+        values = new int[keys.length];
+    }
+
+    /**
+     * Получить значение по ключу
+     *
+     * @param key          Ключ
+     * @param defaultValue Значение, если ключа нет
+     * @return Значение
+     */
+    public int get(int key, int defaultValue) {
+        int position = find(key);
+        return position < 0 ? defaultValue : values[position];
+    }
+
+    public boolean containsKey(int key) {
+        return find(key) >= 0;
+    }
+
+    /**
+     * Добавить или заменить значение
+     *
+     * @param key   Ключ
+     * @param value Значение
+     */
+    public void put(int key, int value) {
+        int position = find(key);
+        if (position < 0) {
+            position = insert(key);
+        }
+        values[position] = value;
+    }
+
+    /**
+     * Удалить значение по ключу
+     *
+     * @param key          Ключ
+     * @param defaultValue Значение, если ключа нет
+     * @return Удалённое значение
+     */
+    public int remove(int key, int defaultValue) {
+        int position = delete(key);
+        return position < 0 ? defaultValue : values[position];
+    }
+
+    public void clear() {
+        clearIndex();
+    }
+
+    @Override
+    protected void resizeValues(int capacity) {
+        values = Arrays.copyOf(values, capacity);
+    }
+
+    @Override
+    protected void moveValue(int from, int to) {
+        values[to] = values[from];
+    }
+
+    @Override
+    protected void clearValues(int from, int to) {
+    }
+
+    @Override
+    public String toString() {
+        return "IntIntHashMap{"
+                + "size=" + size
+                + '}';
+    }
+}
@@ -0,0 +1,204 @@
+package kanban.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Формат тела пакетных запросов KV сервера: несколько пар ключ-значение в одном теле.
+ * <pre>
+ * int    количество пар
+ * int    длина ключа в байтах, затем ключ в UTF-8
+ * int    длина значения в байтах, затем значение в UTF-8, -1 - если значения нет
+ * </pre>
+ * Числа записываются в big-endian. Длины стоят перед данными, поэтому ключи и значения
+ * могут содержать любые символы и не экранируются, а значения можно читать потоком, не собирая их в строки
+ */
+public final class KeyValueFrames {
+
+    private static final int NO_VALUE = -1;
+
+    private KeyValueFrames() {
+    }
+
+    /**
+     * Записать пары в тело запроса
+     *
+     * @param values Пары в порядке записи, null в значении - если значения нет
+     * @return Тело запроса
+     */
+    public static byte[] write(Map<String, String> values) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(values.size());
+            for (Map.Entry<String, String> entry : values.entrySet()) {
+                writeBytes(out, entry.getKey().getBytes(UTF_8));
+                if (entry.getValue() == null) {
+                    out.writeInt(NO_VALUE);
+                } else {
+                    writeBytes(out, entry.getValue().getBytes(UTF_8));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Прочитать пары из тела запроса
+     *
+     * @param in Тело запроса
+     * @return Пары в порядке записи, null в значении - если значения нет
+     * @throws IOException если тело обрывается или не соответствует формату
+     */
+    public static Map<String, String> read(InputStream in) throws IOException {
+        Map<String, String> values = new LinkedHashMap<>();
+        read(in, (key, value) -> values.put(key, value == null ? null : readAll(value)));
+        return values;
+    }
+
+    /**
+     * Прочитать пары из тела запроса по одной, не собирая значения в строки.
+     * Значение читается прямо из тела и доступно только внутри вызова consumer,
+     * непрочитанный остаток значения пропускается
+     *
+     * @param in       Тело запроса
+     * @param consumer Получатель пар в порядке записи
+     * @throws IOException если тело обрывается или не соответствует формату, или её бросил consumer
+     */
+    public static void read(InputStream in, ValueConsumer consumer) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        int size = data.readInt();
+        if (size < 0) {
+            throw new IOException("Отрицательное количество пар: " + size);
+        }
+        for (int i = 0; i < size; i++) {
+            String key = readString(data, data.readInt());
+            if (key == null) {
+                throw new IOException("Пара " + i + " без ключа");
+            }
+            int length = data.readInt();
+            if (length == NO_VALUE) {
+                consumer.accept(key, null);
+                continue;
+            }
+            if (length < 0) {
+                throw new IOException("Отрицательная длина: " + length);
+            }
+            BoundedInputStream value = new BoundedInputStream(data, length);
+            consumer.accept(key, new InputStreamReader(value, UTF_8));
+            value.skipRest();
+        }
+        if (data.read() != -1) {
+            throw new IOException("Лишние данные после " + size + " пар");
+        }
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in, int length) throws IOException {
+        if (length == NO_VALUE) {
+            return null;
+        }
+        if (length < 0) {
+            throw new IOException("Отрицательная длина: " + length);
+        }
+        byte[] bytes = in.readNBytes(length);
+        if (bytes.length != length) {
+            throw new EOFException("Тело оборвалось: ждали " + length + " байт, получили " + bytes.length);
+        }
+        return new String(bytes, UTF_8);
+    }
+
+    private static String readAll(Reader value) throws IOException {
+        StringWriter text = new StringWriter();
+        value.transferTo(text);
+        return text.toString();
+    }
+
+    /**
+     * Получатель пар, которые читаются потоком
+     */
+    @FunctionalInterface
+    public interface ValueConsumer {
+
+        /**
+         * @param key   Ключ
+         * @param value Значение, null - если значения нет
+         */
+        void accept(String key, Reader value) throws IOException;
+    }
+
+    /**
+     * Поток из следующих length байт тела. Не читает дальше своего значения и не закрывает тело
+     */
+    private static final class BoundedInputStream extends InputStream {
+        private final InputStream in;
+        private int remaining;
+
+        private BoundedInputStream(InputStream in, int length) {
+            this.in = in;
+            this.remaining = length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining == 0) {
+                return -1;
+            }
+            int b = in.read();
+            if (b == -1) {
+                throw new EOFException("Тело оборвалось: не хватает " + remaining + " байт");
+            }
+            remaining--;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            if (remaining == 0) {
+                return -1;
+            }
+            int read = in.read(buffer, offset, Math.min(length, remaining));
+            if (read == -1) {
+                throw new EOFException("Тело оборвалось: не хватает " + remaining + " байт");
+            }
+            remaining -= read;
+            return read;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return Math.min(in.available(), remaining);
+        }
+
+        private void skipRest() throws IOException {
+            while (remaining > 0) {
+                long skipped = in.skip(remaining);
+                if (skipped <= 0) {
+                    read();
+                } else {
+                    remaining -= (int) skipped;
+                }
+            }
+        }
+    }
+}
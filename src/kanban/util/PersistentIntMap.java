@@ -0,0 +1,407 @@
+package kanban.util;
+
+import java.util.AbstractCollection;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Неизменяемая таблица с ключами типа int (префиксное дерево с битовыми масками).
+ * Изменение возвращает новую таблицу, которая разделяет с исходной все незатронутые узлы,
+ * поэтому стоит O(log32 n) по времени и памяти. Старые версии остаются корректными и
+ * могут читаться из любых потоков без синхронизации
+ *
+ * @param <V> Тип значений
+ */
+public final class PersistentIntMap<V> {
+
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+
+    private static final PersistentIntMap<?> EMPTY = new PersistentIntMap<>(new Node(0, new Object[0]), 0);
+
+    /**
+     * Узел дерева: бит в маске означает, что в узле есть элемент для соответствующих 5 бит ключа.
+     * Элементы хранятся плотно и являются либо {@link Entry}, либо дочерним {@link Node}
+     */
+    private static final class Node {
+        private final int bitmap;
+        private final Object[] slots;
+
+        private Node(int bitmap, Object[] slots) {
+            this.bitmap = bitmap;
+            this.slots = slots;
+        }
+    }
+
+    private static final class Entry {
+        private final int key;
+        private final Object value;
+
+        private Entry(int key, Object value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+
+    private final Node root;
+    private final int size;
+
+    private PersistentIntMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * Получить пустую таблицу
+     *
+     * @param <V> Тип значений
+     * @return Пустая таблица
+     */
+    @SuppressWarnings("unchecked")
+    public static <V> PersistentIntMap<V> empty() {
+        return (PersistentIntMap<V>) EMPTY;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Получить значение по ключу
+     *
+     * @param key Ключ
+     * @return Значение, null - если ключа нет
+     */
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        Node node = root;
+        int shift = 0;
+        while (true) {
+            int bit = bit(key, shift);
+            if ((node.bitmap & bit) == 0) {
+                return null;
+            }
+            Object slot = node.slots[index(node.bitmap, bit)];
+            if (slot instanceof Entry) {
+                Entry entry = (Entry) slot;
+                return entry.key == key ? (V) entry.value : null;
+            }
+            node = (Node) slot;
+            shift += BITS;
+        }
+    }
+
+    public boolean containsKey(int key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Получить таблицу с добавленным или заменённым значением
+     *
+     * @param key   Ключ
+     * @param value Значение, не null
+     * @return Новая таблица, либо эта же, если значение не изменилось
+     */
+    public PersistentIntMap<V> put(int key, V value) {
+        if (value == null) {
+            throw new NullPointerException("Значение не может быть null");
+        }
+        boolean added = !containsKey(key);
+        Node newRoot = put(root, 0, new Entry(key, value));
+        if (newRoot == root) {
+            return this;
+        }
+        return new PersistentIntMap<>(newRoot, added ? size + 1 : size);
+    }
+
+    /**
+     * Получить таблицу без ключа
+     *
+     * @param key Ключ
+     * @return Новая таблица, либо эта же, если ключа не было
+     */
+    public PersistentIntMap<V> remove(int key) {
+        if (!containsKey(key)) {
+            return this;
+        }
+        Node newRoot = (Node) remove(root, 0, key);
+        return newRoot == null ? empty() : new PersistentIntMap<>(newRoot, size - 1);
+    }
+
+    /**
+     * Представление значений таблицы только для чтения
+     *
+     * @return Значения в порядке ключей дерева
+     */
+    public Collection<V> values() {
+        return new Values<>(root, size);
+    }
+
+    /**
+     * Обойти пары таблицы без создания итератора и упаковки ключей
+     *
+     * @param action Действие над значением и ключом, в порядке ключей дерева
+     */
+    public void forEach(ObjIntConsumer<? super V> action) {
+        forEach(root, action);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V> void forEach(Node node, ObjIntConsumer<? super V> action) {
+        for (Object slot : node.slots) {
+            if (slot instanceof Entry) {
+                Entry entry = (Entry) slot;
+                action.accept((V) entry.value, entry.key);
+            } else {
+                forEach((Node) slot, action);
+            }
+        }
+    }
+
+    /**
+     * Обойти ключи, которые добавлены, удалены или получили другое значение по сравнению с предыдущей версией.
+     * Общие для версий узлы пропускаются без обхода, поэтому для версий, полученных друг из друга
+     * k изменениями, время O(k log32 n), а не O(n)
+     *
+     * @param previous Предыдущая версия таблицы
+     * @param action   Действие над изменившимся ключом, каждый ключ передаётся один раз
+     */
+    public void forEachChangedKey(PersistentIntMap<V> previous, IntConsumer action) {
+        forEachChangedKey(root, previous.root, action);
+    }
+
+    private static void forEachChangedKey(Object current, Object previous, IntConsumer action) {
+        if (current == previous) {
+            return;
+        }
+        if (current instanceof Node && previous instanceof Node) {
+            Node currentNode = (Node) current;
+            Node previousNode = (Node) previous;
+            int bits = currentNode.bitmap | previousNode.bitmap;
+            while (bits != 0) {
+                int bit = Integer.lowestOneBit(bits);
+                bits &= bits - 1;
+                forEachChangedKey(slot(currentNode, bit), slot(previousNode, bit), action);
+            }
+            return;
+        }
+        // Узел с одной стороны и запись или пусто с другой: в поддереве только затронутые ключи
+        // и их соседи, записи неизменённых ключей переносятся между версиями без копирования
+        forEachEntry(current, entry -> {
+            if (findEntry(previous, entry.key) != entry) {
+                action.accept(entry.key);
+            }
+        });
+        forEachEntry(previous, entry -> {
+            if (findEntry(current, entry.key) == null) {
+                action.accept(entry.key);
+            }
+        });
+    }
+
+    private static Object slot(Node node, int bit) {
+        return (node.bitmap & bit) == 0 ? null : node.slots[index(node.bitmap, bit)];
+    }
+
+    private static void forEachEntry(Object slot, Consumer<Entry> action) {
+        if (slot instanceof Entry) {
+            action.accept((Entry) slot);
+        } else if (slot != null) {
+            for (Object child : ((Node) slot).slots) {
+                forEachEntry(child, action);
+            }
+        }
+    }
+
+    private static Entry findEntry(Object slot, int key) {
+        if (slot instanceof Entry) {
+            return ((Entry) slot).key == key ? (Entry) slot : null;
+        }
+        if (slot != null) {
+            for (Object child : ((Node) slot).slots) {
+                Entry entry = findEntry(child, key);
+                if (entry != null) {
+                    return entry;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static Node put(Node node, int shift, Entry entry) {
+        int bit = bit(entry.key, shift);
+        int index = index(node.bitmap, bit);
+        if ((node.bitmap & bit) == 0) {
+            Object[] slots = new Object[node.slots.length + 1];
+            System.arraycopy(node.slots, 0, slots, 0, index);
+            slots[index] = entry;
+            System.arraycopy(node.slots, index, slots, index + 1, node.slots.length - index);
+            return new Node(node.bitmap | bit, slots);
+        }
+        Object slot = node.slots[index];
+        Object newSlot;
+        if (slot instanceof Node) {
+            newSlot = put((Node) slot, shift + BITS, entry);
+        } else {
+            Entry current = (Entry) slot;
+            if (current.key != entry.key) {
+                newSlot = merge(current, entry, shift + BITS);
+            } else if (current.value == entry.value) {
+                newSlot = current;
+            } else {
+                newSlot = entry;
+            }
+        }
+        return newSlot == slot ? node : replace(node, index, newSlot);
+    }
+
+    /**
+     * Удалить ключ из узла
+     *
+     * @return Новый узел, единственный оставшийся {@link Entry} или null, если узел опустел
+     */
+    private static Object remove(Node node, int shift, int key) {
+        int bit = bit(key, shift);
+        int index = index(node.bitmap, bit);
+        Object slot = node.slots[index];
+        Object newSlot = slot instanceof Node ? remove((Node) slot, shift + BITS, key) : null;
+
+        if (newSlot != null) {
+            if (newSlot instanceof Entry && node.slots.length == 1 && shift > 0) {
+                return newSlot;
+            }
+            return replace(node, index, newSlot);
+        }
+        if (node.slots.length == 1) {
+            return null;
+        }
+        if (node.slots.length == 2 && shift > 0) {
+            Object other = node.slots[1 - index];
+            if (other instanceof Entry) {
+                return other;
+            }
+        }
+        Object[] slots = new Object[node.slots.length - 1];
+        System.arraycopy(node.slots, 0, slots, 0, index);
+        System.arraycopy(node.slots, index + 1, slots, index, slots.length - index);
+        return new Node(node.bitmap & ~bit, slots);
+    }
+
+    /**
+     * Создать узел из двух элементов с разными ключами.
+     * Ключи различаются хотя бы в одном бите, поэтому глубина не превышает 7 уровней
+     */
+    private static Node merge(Entry first, Entry second, int shift) {
+        int firstBit = bit(first.key, shift);
+        int secondBit = bit(second.key, shift);
+        if (firstBit == secondBit) {
+            return new Node(firstBit, new Object[]{merge(first, second, shift + BITS)});
+        }
+        Object[] slots = Integer.compareUnsigned(firstBit, secondBit) < 0
+                ? new Object[]{first, second}
+                : new Object[]{second, first};
+        return new Node(firstBit | secondBit, slots);
+    }
+
+    private static Node replace(Node node, int index, Object slot) {
+        Object[] slots = node.slots.clone();
+        slots[index] = slot;
+        return new Node(node.bitmap, slots);
+    }
+
+    private static int bit(int key, int shift) {
+        return 1 << ((key >>> shift) & MASK);
+    }
+
+    private static int index(int bitmap, int bit) {
+        return Integer.bitCount(bitmap & (bit - 1));
+    }
+
+    /**
+     * Представление значений. Не анонимный класс, чтобы его можно было сериализовать в JSON
+     */
+    private static final class Values<V> extends AbstractCollection<V> {
+        private final Node root;
+        private final int size;
+
+        private Values(Node root, int size) {
+            this.root = root;
+            this.size = size;
+        }
+
+        @Override
+        public Iterator<V> iterator() {
+            return new ValueIterator<>(root);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    private static final class ValueIterator<V> implements Iterator<V> {
+        private final Deque<Node> nodes = new ArrayDeque<>();
+        private final Deque<Integer> positions = new ArrayDeque<>();
+        private Entry next;
+
+        private ValueIterator(Node root) {
+            nodes.push(root);
+            positions.push(0);
+            advance();
+        }
+
+        private void advance() {
+            next = null;
+            while (!nodes.isEmpty()) {
+                Node node = nodes.peek();
+                int position = positions.pop();
+                if (position == node.slots.length) {
+                    nodes.pop();
+                    continue;
+                }
+                positions.push(position + 1);
+                Object slot = node.slots[position];
+                if (slot instanceof Entry) {
+                    next = (Entry) slot;
+                    return;
+                }
+                nodes.push((Node) slot);
+                positions.push(0);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            V value = (V) next.value;
+            advance();
+            return value;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "PersistentIntMap{"
+                + "size=" + size
+                + '}';
+    }
+}
@@ -0,0 +1,62 @@
+package kanban.util;
+
+import java.util.Iterator;
+import java.util.PrimitiveIterator;
+
+/**
+ * Представление неизменяемого множества чисел из {@link PersistentIntMap}, где значение - сам ключ,
+ * в виде {@link IntHashSet} только для чтения. Ничего не копирует, поэтому создаётся за O(1).
+ * Обход идёт в порядке ключей дерева, изменение бросает {@link UnsupportedOperationException}
+ */
+public class PersistentIntSetView extends IntHashSet {
+
+    private final PersistentIntMap<Integer> values;
+
+    /**
+     * @param values Таблица, в которой значение каждого ключа равно ключу
+     */
+    public PersistentIntSetView(PersistentIntMap<Integer> values) {
+        this.values = values;
+    }
+
+    @Override
+    public boolean add(int value) {
+        throw new UnsupportedOperationException("Множество только для чтения");
+    }
+
+    @Override
+    public boolean contains(int value) {
+        return values.containsKey(value);
+    }
+
+    @Override
+    public boolean removeInt(int value) {
+        throw new UnsupportedOperationException("Множество только для чтения");
+    }
+
+    @Override
+    public void clear() {
+        throw new UnsupportedOperationException("Множество только для чтения");
+    }
+
+    @Override
+    public int size() {
+        return values.size();
+    }
+
+    @Override
+    public PrimitiveIterator.OfInt iterator() {
+        Iterator<Integer> iterator = values.values().iterator();
+        return new PrimitiveIterator.OfInt() {
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public int nextInt() {
+                return iterator.next();
+            }
+        };
+    }
+}
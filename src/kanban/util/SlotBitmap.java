@@ -0,0 +1,228 @@
+package kanban.util;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Битовая карта занятости временных интервалов.
+ * Один бит на интервал, проверка и изменение диапазонов выполняются по 64 бита за раз
+ */
+public class SlotBitmap {
+
+    private static final int ADDRESS_BITS_PER_WORD = 6;
+    private static final long WORD_MASK = 0xFFFFFFFFFFFFFFFFL;
+
+    /**
+     * Слова битовой карты, установленный бит - интервал занят
+     */
+    private final long[] words;
+
+    /**
+     * Количество интервалов в карте
+     */
+    private final int size;
+
+    /**
+     * Количество занятых интервалов
+     */
+    private int occupiedCount;
+
+    public SlotBitmap(int size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("Размер карты не может быть отрицательным: " + size);
+        }
+        this.size = size;
+        this.words = new long[wordIndex(size - 1) + 1];
+    }
+
+    /**
+     * Получить количество интервалов в карте
+     *
+     * @return Количество интервалов
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Получить количество занятых интервалов
+     *
+     * @return Количество занятых интервалов
+     */
+    public int getOccupiedCount() {
+        return occupiedCount;
+    }
+
+    /**
+     * Проверить, входит ли интервал в карту
+     *
+     * @param slot Номер интервала
+     * @return Результат проверки
+     */
+    public boolean contains(long slot) {
+        return slot >= 0 && slot < size;
+    }
+
+    /**
+     * Проверить, занят ли интервал
+     *
+     * @param slot Номер интервала
+     * @return true - если интервал занят
+     */
+    public boolean isOccupied(int slot) {
+        checkRange(slot, slot + 1);
+        return (words[wordIndex(slot)] & (1L << slot)) != 0;
+    }
+
+    /**
+     * Проверить, свободны ли все интервалы из диапазона
+     *
+     * @param from Первый интервал (включительно)
+     * @param to   Последний интервал (не включительно)
+     * @return true - если все интервалы свободны
+     */
+    public boolean isRangeFree(int from, int to) {
+        checkRange(from, to);
+        if (from == to) {
+            return true;
+        }
+        int startWord = wordIndex(from);
+        int endWord = wordIndex(to - 1);
+        long firstMask = WORD_MASK << from;
+        long lastMask = WORD_MASK >>> -to;
+
+        if (startWord == endWord) {
+            return (words[startWord] & firstMask & lastMask) == 0;
+        }
+        if ((words[startWord] & firstMask) != 0) {
+            return false;
+        }
+        for (int i = startWord + 1; i < endWord; i++) {
+            if (words[i] != 0) {
+                return false;
+            }
+        }
+        return (words[endWord] & lastMask) == 0;
+    }
+
+    /**
+     * Занять диапазон интервалов, если он полностью свободен
+     *
+     * @param from Первый интервал (включительно)
+     * @param to   Последний интервал (не включительно)
+     * @return true - если диапазон был свободен и теперь занят
+     */
+    public boolean tryOccupy(int from, int to) {
+        if (!isRangeFree(from, to)) {
+            return false;
+        }
+        setRange(from, to, true);
+        occupiedCount += to - from;
+        return true;
+    }
+
+    /**
+     * Освободить диапазон интервалов
+     *
+     * @param from Первый интервал (включительно)
+     * @param to   Последний интервал (не включительно)
+     */
+    public void release(int from, int to) {
+        checkRange(from, to);
+        if (from == to) {
+            return;
+        }
+        occupiedCount -= countOccupied(from, to);
+        setRange(from, to, false);
+    }
+
+    /**
+     * Освободить все интервалы
+     */
+    public void clear() {
+        Arrays.fill(words, 0);
+        occupiedCount = 0;
+    }
+
+    /**
+     * Представление карты в виде таблицы "номер интервала - свободен ли интервал".
+     * Представление только для чтения и отражает текущее состояние карты
+     *
+     * @return Таблица интервалов
+     */
+    public Map<Long, Boolean> asMap() {
+        return new SlotMapView(size, slot -> !isOccupied((int) slot));
+    }
+
+    private int countOccupied(int from, int to) {
+        int startWord = wordIndex(from);
+        int endWord = wordIndex(to - 1);
+        long firstMask = WORD_MASK << from;
+        long lastMask = WORD_MASK >>> -to;
+
+        if (startWord == endWord) {
+            return Long.bitCount(words[startWord] & firstMask & lastMask);
+        }
+        int count = Long.bitCount(words[startWord] & firstMask);
+        for (int i = startWord + 1; i < endWord; i++) {
+            count += Long.bitCount(words[i]);
+        }
+        return count + Long.bitCount(words[endWord] & lastMask);
+    }
+
+    private void setRange(int from, int to, boolean value) {
+        int startWord = wordIndex(from);
+        int endWord = wordIndex(to - 1);
+        long firstMask = WORD_MASK << from;
+        long lastMask = WORD_MASK >>> -to;
+
+        if (startWord == endWord) {
+            apply(startWord, firstMask & lastMask, value);
+            return;
+        }
+        apply(startWord, firstMask, value);
+        for (int i = startWord + 1; i < endWord; i++) {
+            words[i] = value ? WORD_MASK : 0;
+        }
+        apply(endWord, lastMask, value);
+    }
+
+    private void apply(int wordIndex, long mask, boolean value) {
+        if (value) {
+            words[wordIndex] |= mask;
+        } else {
+            words[wordIndex] &= ~mask;
+        }
+    }
+
+    private void checkRange(int from, int to) {
+        if (from < 0 || to > size || from > to) {
+            throw new IndexOutOfBoundsException("Диапазон [" + from + ", " + to + ") вне карты размера " + size);
+        }
+    }
+
+    private static int wordIndex(int bitIndex) {
+        return bitIndex >> ADDRESS_BITS_PER_WORD;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        SlotBitmap that = (SlotBitmap) o;
+        return size == that.size && Arrays.equals(words, that.words);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * size + Arrays.hashCode(words);
+    }
+
+    @Override
+    public String toString() {
+        return "SlotBitmap{"
+                + "size=" + size
+                + ", occupiedCount=" + occupiedCount
+                + '}';
+    }
+}
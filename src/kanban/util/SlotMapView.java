@@ -0,0 +1,80 @@
+package kanban.util;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.LongPredicate;
+
+/**
+ * Представление временной сетки в виде таблицы "номер интервала - свободен ли интервал".
+ * Представление только для чтения и не хранит состояние интервалов
+ */
+public class SlotMapView extends AbstractMap<Long, Boolean> {
+
+    private final int size;
+    private final LongPredicate isFree;
+
+    /**
+     * @param size   Количество интервалов в сетке
+     * @param isFree Проверка, свободен ли интервал с указанным номером
+     */
+    public SlotMapView(int size, LongPredicate isFree) {
+        this.size = size;
+        this.isFree = isFree;
+    }
+
+    @Override
+    public Boolean get(Object key) {
+        if (!containsKey(key)) {
+            return null;
+        }
+        return isFree.test((Long) key);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        if (!(key instanceof Long)) {
+            return false;
+        }
+        long slot = (Long) key;
+        return slot >= 0 && slot < size;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Set<Entry<Long, Boolean>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<Long, Boolean>> iterator() {
+                return new Iterator<>() {
+                    private long next = 0;
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < size;
+                    }
+
+                    @Override
+                    public Entry<Long, Boolean> next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        long slot = next++;
+                        return new SimpleImmutableEntry<>(slot, isFree.test(slot));
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+}
@@ -7,6 +7,14 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -46,4 +54,80 @@ class KVTaskClientTest {
         client.put("key", "value78");
         assertEquals(client.load("key"), "value78");
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldPipelineRequestsUnderInFlightLimit() {
+        KVTaskClient limited = new KVTaskClient("http://localhost:8078", 2);
+        List<CompletableFuture<Void>> puts = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            puts.add(limited.putAsync("key" + i, "value" + i));
+        }
+        CompletableFuture.allOf(puts.toArray(new CompletableFuture<?>[0])).join();
+
+        List<CompletableFuture<String>> loads = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            loads.add(limited.loadAsync("key" + i));
+        }
+        for (int i = 0; i < 20; i++) {
+            assertEquals("value" + i, loads.get(i).join());
+        }
+        assertEquals("", limited.loadAsync("missing").join());
+    }
+
+    @Test
+    void shouldFailFutureOnServerError() {
+        CompletionException error = assertThrows(CompletionException.class, () -> client.putAsync("key", "").join());
+        assertInstanceOf(IOException.class, error.getCause());
+    }
+
+    @Test
+    void shouldPutAndLoadBatch() {
+        Map<String, String> values = new LinkedHashMap<>();
+        for (int i = 0; i < 50; i++) {
+            values.put("key" + i, "value,\"" + i + "\"\nстрока");
+        }
+        client.putAll(values);
+
+        List<String> keys = new ArrayList<>(values.keySet());
+        keys.add("missing");
+        Map<String, String> loaded = client.loadAll(keys);
+        assertEquals(keys, new ArrayList<>(loaded.keySet()));
+        assertEquals("", loaded.remove("missing"));
+        assertEquals(values, loaded);
+        assertEquals("value,\"7\"\nстрока", client.load("key7"));
+    }
+
+    @Test
+    void shouldRejectWholeBatchWithEmptyValue() {
+        Map<String, String> values = new LinkedHashMap<>();
+        values.put("first", "value");
+        values.put("second", "");
+        CompletionException error = assertThrows(CompletionException.class,
+                () -> client.putAllAsync(values).join());
+        assertInstanceOf(IOException.class, error.getCause());
+        assertEquals("", client.load("first"));
+    }
+
+    @Test
+    void shouldStreamValues() throws IOException {
+        client.put("key", "значение");
+        try (InputStream body = client.loadStreamAsync("key").join()) {
+            assertEquals("значение", new String(body.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        try (InputStream body = client.loadStreamAsync("missing").join()) {
+            assertEquals(-1, body.read());
+        }
+
+        client.putAll(Map.of("a", "[1,2,3]", "b", "{}"));
+        List<String> keys = new ArrayList<>();
+        List<Character> firstChars = new ArrayList<>();
+        client.loadAllAsync(List.of("b", "missing", "a"), (key, value) -> {
+            keys.add(key);
+            if (value != null) {
+                firstChars.add((char) value.read());
+            }
+        }).join();
+        assertEquals(List.of("b", "missing", "a"), keys);
+        assertEquals(List.of('{', '['), firstChars);
+    }
+}
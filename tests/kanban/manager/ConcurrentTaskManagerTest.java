@@ -0,0 +1,80 @@
+package kanban.manager;
+
+import kanban.models.Subtask;
+import kanban.models.Task;
+import kanban.util.MathConsts;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentTaskManagerTest extends TaskManagerTest<ConcurrentTaskManager> {
+
+    private static final int THREADS = 8;
+    private static final int TASKS_PER_THREAD = 200;
+
+    @Override
+    public ConcurrentTaskManager createManager() {
+        return new ConcurrentTaskManager(new InMemoryTaskManager());
+    }
+
+    @Test
+    public void shouldAssignUniqueIdsFromSeveralThreads() throws Exception {
+        manager.addEpic(epic);
+        Instant now = Instant.now().plusMillis(MathConsts.MINUTE_IN_MILLIS * 100);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<List<Integer>>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            int thread = i;
+            futures.add(executor.submit(() -> {
+                List<Integer> ids = new ArrayList<>();
+                for (int j = 0; j < TASKS_PER_THREAD; j++) {
+                    long minute = (long) (thread * TASKS_PER_THREAD + j) * 20;
+                    Instant startTime = now.plusMillis(MathConsts.MINUTE_IN_MILLIS * minute);
+                    if (j % 2 == 0) {
+                        ids.add(manager.addTask(new Task("task", startTime, 10)));
+                    } else {
+                        Subtask subtask = new Subtask("sub", startTime, 10);
+                        subtask.setEpicId(epic.getId());
+                        ids.add(manager.addSubtaskToEpic(subtask));
+                    }
+                    manager.getTasks();
+                    manager.getPrioritizedTasks();
+                }
+                return ids;
+            }));
+        }
+
+        Set<Integer> ids = new HashSet<>();
+        for (Future<List<Integer>> future : futures) {
+            ids.addAll(future.get());
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(THREADS * TASKS_PER_THREAD, ids.size());
+        assertEquals(THREADS * TASKS_PER_THREAD + 1, manager.getLastId());
+        assertEquals(THREADS * TASKS_PER_THREAD, manager.getPrioritizedTasks().size());
+        assertEquals(THREADS * TASKS_PER_THREAD / 2, epic.getSubtasks().size());
+        assertEquals(THREADS * TASKS_PER_THREAD / 2 * 10, epic.getDuration());
+    }
+
+    @Test
+    public void shouldReturnPrioritizedTasksSnapshot() {
+        manager.addTask(task);
+        Set<Task> prioritizedTasks = manager.getPrioritizedTasks();
+        manager.addTask(new Task("test"));
+
+        assertEquals(1, prioritizedTasks.size());
+        assertEquals(2, manager.getPrioritizedTasks().size());
+    }
+}
@@ -0,0 +1,113 @@
+package kanban.manager;
+
+import kanban.client.KVTaskClient;
+import kanban.models.Task;
+import kanban.models.TaskStatus;
+import kanban.server.KVServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DebouncedHttpTaskManagerTest extends TaskManagerTest<DebouncedHttpTaskManager> {
+
+    private static final String URL = "http://localhost:" + KVServer.PORT;
+
+    protected KVServer server = new KVServer() {{
+        start();
+    }};
+
+    private final AtomicInteger puts = new AtomicInteger();
+
+    DebouncedHttpTaskManagerTest() throws IOException {
+    }
+
+    @Override
+    public DebouncedHttpTaskManager createManager() {
+        return new DebouncedHttpTaskManager(new KVTaskClient(URL) {
+            @Override
+            public CompletableFuture<Void> putAllAsync(Map<String, String> values) {
+                puts.incrementAndGet();
+                return super.putAllAsync(values);
+            }
+        }, 200);
+    }
+
+    @AfterEach
+    public void closeAndStopServer() {
+        try {
+            manager.close();
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Test
+    public void burstShouldCoalesceIntoFewSyncs() {
+        int id = manager.addTask(new Task("Task", "desc", TaskStatus.NEW));
+        for (int i = 0; i < 1_000; i++) {
+            Task updated = new Task("Task" + i, "desc", TaskStatus.values()[i % 3]);
+            updated.setId(id);
+            manager.updateTask(updated);
+        }
+        manager.getTaskById(id);
+        manager.flush();
+
+        assertTrue(puts.get() < 20, "Слишком много запросов: " + puts.get());
+        HttpTaskManager restored = Managers.getHttpTaskManager();
+        restored.load();
+        assertEquals(manager.getTasks(), restored.getTasks());
+        assertEquals(manager.getHistory(), restored.getHistory());
+    }
+
+    @Test
+    public void mutationsShouldNotReachServerBeforeWindow() {
+        manager.addTask(new Task("Task", "desc", TaskStatus.NEW));
+
+        assertEquals(0, puts.get());
+        manager.flush();
+        assertEquals(1, puts.get());
+    }
+
+    @Test
+    public void flushShouldReportServerFailure() {
+        server.stop();
+        manager.addTask(new Task("Task", "desc", TaskStatus.NEW));
+
+        assertThrows(ManagerSaveException.class, manager::flush);
+        assertThrows(ManagerSaveException.class, manager::close);
+    }
+
+    @Test
+    public void flushShouldNotReportFailureRecoveredByRetry() throws InterruptedException {
+        AtomicInteger attempts = new AtomicInteger();
+        AtomicInteger delivered = new AtomicInteger();
+        DebouncedHttpTaskManager flaky = new DebouncedHttpTaskManager(new KVTaskClient(URL) {
+            @Override
+            public CompletableFuture<Void> putAllAsync(Map<String, String> values) {
+                if (attempts.incrementAndGet() == 1) {
+                    return CompletableFuture.failedFuture(new IOException("Сервер недоступен"));
+                }
+                return super.putAllAsync(values).whenComplete((ignored, error) -> delivered.incrementAndGet());
+            }
+        }, 0);
+        try {
+            flaky.addTask(new Task("Task", "desc", TaskStatus.NEW));
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (delivered.get() == 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+            Thread.sleep(100);
+
+            assertEquals(2, attempts.get());
+            assertDoesNotThrow(flaky::flush);
+        } finally {
+            flaky.close();
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package kanban.manager;
+
+import kanban.models.Epic;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Общая часть тестов менеджеров, которые хранят состояние в файле: каждый тест получает новый временный файл
+ */
+public abstract class FileBackedManagerTest<T extends FileBackedTasksManager> extends TaskManagerTest<T> {
+
+    protected File file;
+
+    /**
+     * Открыть проверяемый менеджер над файлом
+     *
+     * @param file Пустой временный файл
+     * @return Менеджер
+     */
+    protected abstract T openManager(File file);
+
+    @Override
+    public T createManager() {
+        try {
+            file = Files.createTempFile(getClass().getSimpleName(), ".csv").toFile();
+            file.deleteOnExit();
+            TaskJournal.pathOf(file.toPath()).toFile().deleteOnExit();
+            TaskJournal.historyPathOf(file.toPath()).toFile().deleteOnExit();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return openManager(file);
+    }
+
+    /**
+     * Проверить, что восстановленный менеджер совпадает с проверяемым
+     */
+    protected void assertRestored(TaskManager restored) {
+        assertEquals(manager.getTasks(), restored.getTasks());
+        assertEquals(manager.getEpics(), restored.getEpics());
+        assertEquals(manager.getSubtasks(), restored.getSubtasks());
+        assertEquals(manager.getHistory(), restored.getHistory());
+        for (Epic restoredEpic : restored.getEpics()) {
+            assertEquals(manager.getSubtasksByEpic(restoredEpic.getId()),
+                    restored.getSubtasksByEpic(restoredEpic.getId()));
+        }
+    }
+}
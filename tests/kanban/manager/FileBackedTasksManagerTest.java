@@ -1,9 +1,17 @@
 package kanban.manager;
 
+import kanban.models.Epic;
+import kanban.models.Subtask;
+import kanban.models.Task;
 import kanban.models.TaskStatus;
+import kanban.util.MathConsts;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -16,12 +24,23 @@ class FileBackedTasksManagerTest extends TaskManagerTest<FileBackedTasksManager>
         try {
             FileWriter writer = new FileWriter(path, false);
             writer.close();
+            deleteJournals();
         } catch (IOException e) {
             e.printStackTrace();
         }
         return (FileBackedTasksManager) FileBackedTasksManager.loadFromFile(new File(path));
     }
 
+    /**
+     * Журналы рядом с файлом не должны переживать тест: иначе просмотры из прошлого теста
+     * попадут в историю следующего, а в resources останутся лишние файлы
+     */
+    @AfterEach
+    public void deleteJournals() throws IOException {
+        Files.deleteIfExists(TaskJournal.pathOf(Path.of(path)));
+        Files.deleteIfExists(TaskJournal.historyPathOf(Path.of(path)));
+    }
+
     @Test
     public void saveAndRestoreData() {
         createEpicThreeSub(TaskStatus.NEW, TaskStatus.DONE, TaskStatus.DONE);
@@ -47,4 +66,164 @@ class FileBackedTasksManagerTest extends TaskManagerTest<FileBackedTasksManager>
         assertEquals(manager.getSubtasks().get(2), newMan.getSubtasks().get(2));
         assertEquals(manager.getHistory(), newMan.getHistory());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void shouldSaveOnceForBatch() {
+        int[] saves = new int[1];
+        FileBackedTasksManager countingManager = new FileBackedTasksManager() {
+            @Override
+            protected void save() {
+                saves[0]++;
+            }
+        };
+        Epic newEpic = new Epic("Epic name", "Epic desc");
+        TaskBatch batch = new TaskBatch().addEpic(newEpic);
+        for (int i = 0; i < 1_000; i++) {
+            batch.addSubtask(new Subtask("Sub name", "Sub desc", TaskStatus.NEW), newEpic);
+        }
+
+        countingManager.applyBatch(batch);
+
+        assertEquals(1, saves[0]);
+        assertEquals(1_000, countingManager.getSubtasks().size());
+        countingManager.deleteEpicById(newEpic.getId());
+        assertEquals(2, saves[0]);
+
+        Instant start = Instant.now().plusMillis(MathConsts.MINUTE_IN_MILLIS * 100);
+        TaskBatch overlapping = new TaskBatch()
+                .addTask(new Task("First", "desc", start, 30))
+                .addTask(new Task("Second", "desc", start.plusMillis(MathConsts.MINUTE_IN_MILLIS * 15), 30));
+        assertThrows(IntersectionDetectedException.class, () -> countingManager.applyBatch(overlapping));
+        assertEquals(2, saves[0]);
+        countingManager.applyBatch(new TaskBatch().deleteTask(12_345));
+        assertEquals(2, saves[0]);
+    }
+
+    @Test
+    public void shouldSaveAndRestoreBinarySnapshot() throws IOException {
+        File binary = File.createTempFile("snapshot", ".bin");
+        binary.deleteOnExit();
+        TaskManager binaryManager = FileBackedTasksManager.loadFromFile(binary, SnapshotFormat.BINARY);
+        int epicId = binaryManager.addEpic(new Epic("Epic, with comma", "Line one,\nline two"));
+        Subtask sub = new Subtask("Sub", "desc", TaskStatus.DONE, Instant.ofEpochMilli(120_000), 45);
+        sub.setEpicId(epicId);
+        binaryManager.addSubtaskToEpic(sub);
+        binaryManager.addTask(new Task("Task", "", TaskStatus.IN_PROGRESS));
+        binaryManager.getSubtaskById(sub.getId());
+
+        FileBackedTasksManager restored = (FileBackedTasksManager) FileBackedTasksManager.loadFromFile(binary);
+        assertEquals(SnapshotFormat.BINARY, restored.getFormat());
+        assertEquals(binaryManager.getTasks(), restored.getTasks());
+        assertEquals(binaryManager.getEpics(), restored.getEpics());
+        assertEquals(binaryManager.getSubtasks(), restored.getSubtasks());
+        assertEquals(binaryManager.getHistory(), restored.getHistory());
+    }
+
+    @Test
+    public void shouldConvertCsvToBinaryAndBack() throws IOException {
+        createEpicThreeSub(TaskStatus.NEW, TaskStatus.DONE, TaskStatus.DONE);
+        for (int i = 0; i < 100; i++) {
+            manager.addTask(new Task("Same name", "Same description", TaskStatus.NEW));
+        }
+        manager.getEpicById(1);
+        File binary = File.createTempFile("snapshot", ".bin");
+        File csv = File.createTempFile("snapshot", ".csv");
+        binary.deleteOnExit();
+        csv.deleteOnExit();
+
+        FileBackedTasksManager.convert(new File(path), binary, SnapshotFormat.BINARY);
+        FileBackedTasksManager.convert(binary, csv, SnapshotFormat.CSV);
+
+        assertTrue(binary.length() * 3 < new File(path).length());
+        TaskManager restored = FileBackedTasksManager.loadFromFile(csv);
+        assertEquals(manager.getTasks(), restored.getTasks());
+        assertEquals(manager.getEpics(), restored.getEpics());
+        assertEquals(manager.getSubtasks(), restored.getSubtasks());
+        assertEquals(manager.getHistory(), restored.getHistory());
+    }
+
+    @Test
+    public void shouldRestoreSnapshotLargerThanOneChunk() {
+        TaskBatch batch = new TaskBatch();
+        for (int i = 0; i < 50; i++) {
+            Epic newEpic = new Epic("Epic" + i, "Epic desc");
+            batch.addEpic(newEpic);
+            for (int j = 0; j < 200; j++) {
+                batch.addSubtask(new Subtask("Sub" + j, "Sub desc", TaskStatus.values()[j % 3]), newEpic);
+            }
+            batch.addTask(new Task("Task" + i, "Task desc", TaskStatus.DONE,
+                    Instant.ofEpochMilli(i * 3_600_000L), 30));
+        }
+        manager.applyBatch(batch);
+        manager.getSubtaskById(5_000);
+        manager.getTaskById(manager.getTasks().get(0).getId());
+
+        TaskManager restored = FileBackedTasksManager.loadFromFile(new File(path));
+        assertEquals(manager.getTasks(), restored.getTasks());
+        assertEquals(manager.getEpics(), restored.getEpics());
+        assertEquals(manager.getSubtasks(), restored.getSubtasks());
+        assertEquals(manager.getHistory(), restored.getHistory());
+        assertEquals(manager.getLastId(), restored.getLastId());
+    }
+
+    @Test
+    public void shouldRestoreNamesWithSeparatorsQuotesAndLineBreaks() {
+        int epicId = manager.addEpic(new Epic("Epic, \"quoted\"", "multi\nline"));
+        Subtask sub = new Subtask("Sub,1", "desc \"x\"\n", TaskStatus.NEW);
+        sub.setEpicId(epicId);
+        manager.addSubtaskToEpic(sub);
+        manager.addTask(new Task("a\n\nb", ",", TaskStatus.DONE));
+        manager.getSubtaskById(sub.getId());
+
+        TaskManager restored = FileBackedTasksManager.loadFromFile(new File(path));
+        assertEquals(manager.getTasks(), restored.getTasks());
+        assertEquals(manager.getEpics(), restored.getEpics());
+        assertEquals(manager.getSubtasks(), restored.getSubtasks());
+        assertEquals(manager.getHistory(), restored.getHistory());
+    }
+
+    @Test
+    public void shouldRebuildIntervalsAndEpicsAfterLoad() throws IOException {
+        try (FileWriter writer = new FileWriter(path, false)) {
+            writer.write("id,type,name,status,description,start_time,duration,epic\n"
+                    + "1,TASK,Task,NEW,desc,0,60\n"
+                    + "2,EPIC,Epic,NEW,desc,null,0\n"
+                    + "3,SUBTASK,Sub,DONE,desc,7200000,30,2\n"
+                    + "4,SUBTASK,Sub,IN_PROGRESS,desc,3600000,15,2\n"
+                    + "\n"
+                    + "null");
+        }
+
+        TaskManager restored = FileBackedTasksManager.loadFromFile(new File(path));
+
+        Epic restoredEpic = restored.getEpics().get(0);
+        assertEquals(TaskStatus.IN_PROGRESS, restoredEpic.getStatus());
+        assertEquals(45, restoredEpic.getDuration());
+        assertEquals(Instant.ofEpochMilli(3_600_000), restoredEpic.getStartTime());
+        assertEquals(4, restored.getLastId());
+        assertThrows(IntersectionDetectedException.class,
+                () -> restored.addTask(new Task("Overlap", "desc", Instant.ofEpochMilli(1_800_000), 15)));
+        assertThrows(IntersectionDetectedException.class,
+                () -> restored.addTask(new Task("Overlap", "desc", Instant.ofEpochMilli(7_500_000), 15)));
+        assertEquals(5, restored.addTask(new Task("Free", "desc", Instant.ofEpochMilli(4_500_000), 15)));
+    }
+
+    @Test
+    public void shouldLoadLegacyRowsWithBareQuotes() throws IOException {
+        try (FileWriter writer = new FileWriter(path, false)) {
+            writer.write("id,type,name,status,description,start_time,duration,epic\n"
+                    + "1,TASK,5\" screen,NEW,desc,null,0\n"
+                    + "2,TASK,Task,DONE,say \"hi,null,0\n"
+                    + "3,TASK,Task,NEW,desc,null,0\n"
+                    + "\n"
+                    + "1,3");
+        }
+
+        TaskManager restored = FileBackedTasksManager.loadFromFile(new File(path));
+
+        assertEquals(3, restored.getTasks().size());
+        assertEquals("5\" screen", restored.getTaskById(1).getName());
+        assertEquals("say \"hi", restored.getTaskById(2).getDescription());
+        assertEquals(3, restored.getLastId());
+    }
+}
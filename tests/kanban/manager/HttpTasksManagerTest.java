@@ -1,5 +1,6 @@
 package kanban.manager;
 
+import kanban.client.KVTaskClient;
 import kanban.models.Epic;
 import kanban.models.Subtask;
 import kanban.models.Task;
@@ -10,8 +11,17 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class HttpTasksManagerTest extends TaskManagerTest<HttpTaskManager> {
 
@@ -69,4 +79,150 @@ public class HttpTasksManagerTest extends TaskManagerTest<HttpTaskManager> {
         assertEquals(manager.getSubtasks().get(0), newManager.getSubtasks().get(0));
         assertEquals(manager.getSubtasks().get(1), newManager.getSubtasks().get(1));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void shouldRestoreLastIdAndIntervalsAfterLoad() {
+        task.setStartTime(Instant.ofEpochMilli(0));
+        task.setDuration(60);
+        manager.addTask(task);
+        manager.addEpic(epic);
+
+        HttpTaskManager newManager = Managers.getHttpTaskManager();
+        newManager.load();
+
+        assertEquals(manager.getLastId(), newManager.getLastId());
+        assertEquals(3, newManager.addTask(task2));
+        assertThrows(IntersectionDetectedException.class,
+                () -> newManager.addTask(new Task("Overlap", "desc", Instant.ofEpochMilli(1_800_000), 15)));
+    }
+
+    @Test
+    public void shouldSendOnlyTouchedKeys() {
+        List<String> sentKeys = new ArrayList<>();
+        AtomicInteger requests = new AtomicInteger();
+        HttpTaskManager counting = new HttpTaskManager(new KVTaskClient("http://localhost:" + KVServer.PORT) {
+            @Override
+            public CompletableFuture<Void> putAllAsync(Map<String, String> values) {
+                requests.incrementAndGet();
+                sentKeys.addAll(values.keySet());
+                return super.putAllAsync(values);
+            }
+        });
+        for (int i = 0; i < 100; i++) {
+            counting.addTask(new Task("Task" + i, "desc", TaskStatus.NEW));
+        }
+        counting.getTaskById(3);
+
+        assertEquals(101, requests.get());
+
+        sentKeys.clear();
+        Task updated = new Task("Task49", "desc", TaskStatus.DONE);
+        updated.setId(50);
+        counting.updateTask(updated);
+        assertEquals(List.of("task/50"), sentKeys);
+
+        sentKeys.clear();
+        counting.addTask(new Task("Task100", "desc", TaskStatus.NEW));
+        assertEquals(List.of("task/101", "index/0", "manifest"), sentKeys);
+
+        sentKeys.clear();
+        counting.deleteTask(7);
+        assertEquals(List.of("index/0", "task/7"), sentKeys);
+
+        sentKeys.clear();
+        counting.deleteTask(3);
+        assertEquals(List.of("index/0", "history/0", "task/3"), sentKeys);
+        assertEquals(105, requests.get());
+        KVTaskClient probe = new KVTaskClient("http://localhost:" + KVServer.PORT);
+        assertEquals("", probe.load("task/7"));
+        assertEquals("", probe.load("history/0"));
+
+        HttpTaskManager newManager = Managers.getHttpTaskManager();
+        newManager.load();
+        assertEquals(counting.getTasks(), newManager.getTasks());
+        assertEquals(counting.getHistory(), newManager.getHistory());
+        assertEquals(101, newManager.getLastId());
+    }
+
+    @Test
+    public void viewShouldSendOnlyItsHistoryPage() {
+        Map<String, String> sent = new LinkedHashMap<>();
+        HttpTaskManager counting = new HttpTaskManager(new KVTaskClient("http://localhost:" + KVServer.PORT) {
+            @Override
+            public CompletableFuture<Void> putAllAsync(Map<String, String> values) {
+                sent.putAll(values);
+                return super.putAllAsync(values);
+            }
+        });
+        int count = 3 * HttpTaskManager.INDEX_PAGE_SIZE;
+        for (int i = 0; i < count; i++) {
+            counting.addTask(new Task("Task" + i, "desc", TaskStatus.NEW));
+        }
+        for (int id = 1; id <= count; id++) {
+            counting.getTaskById(id);
+        }
+        sent.clear();
+        counting.getTaskById(count);
+        assertEquals(List.of("history/3"), new ArrayList<>(sent.keySet()));
+        sent.clear();
+        counting.getTaskById(1);
+        assertEquals(List.of("history/0"), new ArrayList<>(sent.keySet()));
+        // Страница - не больше pageSize пар id и номера просмотра, сколько бы задач ни было в истории
+        assertTrue(sent.get("history/0").length() < 16 * HttpTaskManager.INDEX_PAGE_SIZE);
+
+        HttpTaskManager newManager = Managers.getHttpTaskManager();
+        newManager.load();
+        assertEquals(counting.getHistory(), newManager.getHistory());
+    }
+
+    @Test
+    public void shouldLoadLegacyHistoryAndRewriteItInPages() {
+        manager.addTask(task);
+        manager.addTask(task2);
+        KVTaskClient client = new KVTaskClient("http://localhost:" + KVServer.PORT);
+        client.put(HttpTaskManager.MANIFEST_KEY, "{\"version\":1,\"lastId\":2,\"pageSize\":256}");
+        client.put(HttpTaskManager.LEGACY_HISTORY_KEY, "[2,1]");
+
+        HttpTaskManager legacy = Managers.getHttpTaskManager();
+        legacy.load();
+        assertEquals(List.of(task2, task), legacy.getHistory());
+
+        legacy.addTask(new Task("Task3", "desc", TaskStatus.NEW));
+        assertEquals("", client.load(HttpTaskManager.LEGACY_HISTORY_KEY));
+        HttpTaskManager newManager = Managers.getHttpTaskManager();
+        newManager.load();
+        assertEquals(legacy.getHistory(), newManager.getHistory());
+        assertEquals(3, newManager.getTasks().size());
+    }
+
+    @Test
+    public void epicPayloadShouldNotGrowWithSubtasks() {
+        Map<String, String> sent = new LinkedHashMap<>();
+        HttpTaskManager counting = new HttpTaskManager(new KVTaskClient("http://localhost:" + KVServer.PORT) {
+            @Override
+            public CompletableFuture<Void> putAllAsync(Map<String, String> values) {
+                sent.putAll(values);
+                return super.putAllAsync(values);
+            }
+        });
+        int epicId = counting.addEpic(epic);
+        String emptyEpicJson = sent.get("epic/" + epicId);
+        for (int i = 0; i < 500; i++) {
+            Subtask sub = new Subtask("Sub" + i, "desc", TaskStatus.NEW);
+            sub.setEpicId(epicId);
+            counting.addSubtaskToEpic(sub);
+        }
+        Subtask done = new Subtask("Sub0", "desc", TaskStatus.DONE);
+        done.setId(epicId + 1);
+        done.setEpicId(epicId);
+        counting.updateSubtask(done);
+
+        String epicJson = sent.get("epic/" + epicId);
+        assertEquals(emptyEpicJson.length(), epicJson.replace("IN_PROGRESS", "NEW").length());
+
+        HttpTaskManager newManager = Managers.getHttpTaskManager();
+        newManager.load();
+        assertEquals(counting.getEpics(), newManager.getEpics());
+        assertEquals(counting.getSubtasksByEpic(epicId), newManager.getSubtasksByEpic(epicId));
+    }
+}
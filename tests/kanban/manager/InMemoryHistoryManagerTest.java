@@ -5,6 +5,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.util.List;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -98,4 +99,52 @@ class InMemoryHistoryManagerTest {
         assertEquals(task2, history.get(0));
         assertEquals(task1, history.get(1));
     }
-}
\ No newline at end of file
+
+    @Test
+    void removeSeveralTasksFromHistory() {
+        task1.setId(1);
+        task2.setId(2);
+        task3.setId(3);
+
+        historyManager.add(task1);
+        historyManager.add(task2);
+        historyManager.add(task3);
+        historyManager.removeAll(Set.of(1, 3, 4, 5));
+        final List<Task> history = historyManager.getHistory();
+
+        assertEquals(List.of(task2), history);
+    }
+
+    @Test
+    void addTaskAfterRemovingLastOne() {
+        task1.setId(1);
+        task2.setId(2);
+
+        historyManager.add(task1);
+        historyManager.remove(task1.getId());
+        historyManager.add(task2);
+
+        assertEquals(List.of(task2), historyManager.getHistory());
+    }
+
+    @Test
+    void snapshotShouldKeepHistoryAtTheTimeItWasTaken() {
+        task1.setId(1);
+        task2.setId(2);
+        task3.setId(3);
+
+        historyManager.add(task1);
+        historyManager.add(task2);
+        historyManager.add(task3);
+        historyManager.add(task1);
+        final HistorySnapshot snapshot = historyManager.getSnapshot();
+        assertSame(snapshot, historyManager.getSnapshot(), "История не менялась.");
+
+        historyManager.remove(2);
+        historyManager.add(task2);
+
+        assertArrayEquals(new int[]{2, 3, 1}, snapshot.ids(), "Версия изменилась вместе с историей.");
+        assertArrayEquals(new int[]{3, 1, 2}, historyManager.getSnapshot().ids());
+        assertEquals(-1, historyManager.getSnapshot().sequenceOf(4));
+    }
+}
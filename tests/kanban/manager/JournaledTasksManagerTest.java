@@ -0,0 +1,136 @@
+package kanban.manager;
+
+import kanban.models.Subtask;
+import kanban.models.Task;
+import kanban.models.TaskStatus;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JournaledTasksManagerTest extends FileBackedManagerTest<JournaledTasksManager> {
+
+    @Override
+    protected JournaledTasksManager openManager(File file) {
+        return JournaledTasksManager.loadFromFile(file);
+    }
+
+    @Test
+    public void shouldRestoreFromJournalWithoutCheckpoint() throws IOException {
+        createEpicThreeSub(TaskStatus.NEW, TaskStatus.DONE, TaskStatus.DONE);
+        manager.addTask(task);
+        long snapshotSize = Files.size(file.toPath());
+        Subtask updated = new Subtask("Updated", "desc", TaskStatus.DONE);
+        updated.setId(2);
+        updated.setEpicId(1);
+        manager.updateSubtask(updated);
+        manager.deleteSubtaskById(3);
+        manager.getEpicById(1);
+        manager.getTaskById(task.getId());
+
+        assertEquals(snapshotSize, Files.size(file.toPath()));
+        assertTrue(manager.getJournalSize() > 0);
+        assertRestored(JournaledTasksManager.loadFromFile(file));
+    }
+
+    @Test
+    public void shouldRestoreClearsFromJournal() {
+        createEpicThreeSub(TaskStatus.NEW, TaskStatus.DONE, TaskStatus.IN_PROGRESS);
+        manager.addTask(task);
+        manager.getSubtaskById(2);
+        manager.clearSubtasks();
+        manager.addTask(new Task("Task2", "desc", TaskStatus.DONE));
+        manager.clearTasks();
+
+        JournaledTasksManager restored = JournaledTasksManager.loadFromFile(file);
+        assertRestored(restored);
+        assertTrue(restored.getEpicById(1).getSubtasks().isEmpty());
+        assertEquals(manager.getLastId(), restored.getLastId());
+    }
+
+    @Test
+    public void shouldCheckpointWhenJournalOutgrowsBoard() throws IOException {
+        JournaledTasksManager journaled = JournaledTasksManager.loadFromFile(file, 10);
+        Path journal = TaskJournal.pathOf(file.toPath());
+        for (int i = 0; i < 25; i++) {
+            journaled.addTask(new Task("Task" + i, "desc", TaskStatus.NEW));
+        }
+
+        assertTrue(journaled.getJournalSize() < 25);
+        assertEquals(journaled.getJournalSize(), Files.readAllLines(journal).size());
+        assertEquals(journaled.getTasks(), JournaledTasksManager.loadFromFile(file).getTasks());
+    }
+
+    @Test
+    public void shouldAppendOneRecordPerChange() throws IOException {
+        for (int i = 0; i < 100; i++) {
+            manager.addTask(new Task("Task" + i, "desc", TaskStatus.NEW));
+        }
+        Path journal = TaskJournal.pathOf(file.toPath());
+        long before = Files.size(journal);
+        int records = manager.getJournalSize();
+
+        manager.deleteTask(50);
+
+        assertEquals(records + 1, manager.getJournalSize());
+        assertTrue(Files.size(journal) - before < 16);
+    }
+
+    @Test
+    public void shouldIgnoreUnfinishedRecord() throws IOException {
+        manager.addEpic(epic);
+        Files.writeString(TaskJournal.pathOf(file.toPath()), "P,2,TASK,Task,NE",
+                StandardOpenOption.APPEND);
+
+        JournaledTasksManager restored = JournaledTasksManager.loadFromFile(file);
+        assertRestored(restored);
+        assertTrue(restored.getTasks().isEmpty());
+    }
+
+    @Test
+    public void fileBackedManagerShouldReplayAndRemoveJournal() {
+        manager.addEpic(epic);
+        manager.getEpicById(epic.getId());
+        assertTrue(Files.exists(TaskJournal.pathOf(file.toPath())));
+
+        FileBackedTasksManager fileBacked = (FileBackedTasksManager) FileBackedTasksManager.loadFromFile(file);
+        assertEquals(manager.getEpics(), fileBacked.getEpics());
+        assertEquals(manager.getHistory(), fileBacked.getHistory());
+
+        fileBacked.addTask(task);
+        assertFalse(Files.exists(TaskJournal.pathOf(file.toPath())));
+        assertEquals(fileBacked.getTasks(), JournaledTasksManager.loadFromFile(file).getTasks());
+    }
+
+    @Test
+    public void viewShouldNotWriteDataFiles() throws IOException {
+        createEpicThreeSub(TaskStatus.NEW, TaskStatus.DONE, TaskStatus.DONE);
+        manager.checkpoint();
+        String snapshot = Files.readString(file.toPath());
+
+        manager.getSubtaskById(3);
+        manager.getEpicById(1);
+        manager.getSubtaskById(3);
+
+        assertEquals(snapshot, Files.readString(file.toPath()));
+        assertFalse(Files.exists(TaskJournal.pathOf(file.toPath())));
+        assertEquals(3, Files.readAllLines(TaskJournal.historyPathOf(file.toPath())).size());
+        assertRestored(FileBackedTasksManager.loadFromFile(file));
+    }
+
+    @Test
+    public void shouldCompactHistoryLog() throws IOException {
+        createEpicThreeSub(TaskStatus.NEW, TaskStatus.DONE, TaskStatus.DONE);
+        for (int i = 0; i < 3_000; i++) {
+            manager.getSubtaskById(2 + i % 3);
+        }
+
+        assertTrue(Files.readAllLines(TaskJournal.historyPathOf(file.toPath())).size() < 1_000);
+        assertRestored(JournaledTasksManager.loadFromFile(file));
+    }
+}
@@ -0,0 +1,142 @@
+package kanban.manager;
+
+import kanban.models.Epic;
+import kanban.models.Subtask;
+import kanban.models.Task;
+import kanban.models.TaskStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedTasksManagerTest extends FileBackedManagerTest<MappedTasksManager> {
+
+    @Override
+    protected MappedTasksManager openManager(File file) {
+        return MappedTasksManager.loadFromFile(file);
+    }
+
+    @AfterEach
+    public void deleteStore() throws IOException {
+        manager.close();
+        Files.deleteIfExists(manager.getRecordsPath());
+        Files.deleteIfExists(manager.getHeapPath());
+    }
+
+    @Test
+    public void statusAndTimeUpdatesShouldNotGrowFiles() throws IOException {
+        int id = manager.addTask(new Task("Task", "desc", TaskStatus.NEW));
+        long recordsSize = Files.size(manager.getRecordsPath());
+        long heapSize = Files.size(manager.getHeapPath());
+
+        Task updated = new Task("Task", "desc", TaskStatus.IN_PROGRESS);
+        updated.setId(id);
+        updated.setStartTime(Instant.ofEpochMilli(120_000));
+        updated.setDuration(45);
+        manager.updateTask(updated);
+
+        assertEquals(recordsSize, Files.size(manager.getRecordsPath()));
+        assertEquals(heapSize, Files.size(manager.getHeapPath()));
+        assertEquals(0, Files.size(file.toPath()));
+        assertRestored(MappedTasksManager.loadFromFile(file));
+    }
+
+    @Test
+    public void shouldRestoreLinksHistoryAndLastId() {
+        createEpicThreeSub(TaskStatus.NEW, TaskStatus.DONE, TaskStatus.IN_PROGRESS);
+        int taskId = manager.addTask(new Task("Имя", "Описание, с запятой", TaskStatus.DONE));
+        manager.getSubtaskById(3);
+        manager.getTaskById(taskId);
+        manager.deleteTask(taskId);
+
+        MappedTasksManager restored = MappedTasksManager.loadFromFile(file);
+        assertRestored(restored);
+        assertEquals(manager.getSubtasksByEpic(1), restored.getSubtasksByEpic(1));
+        assertEquals(taskId + 1, restored.addTask(new Task("Next", "desc", TaskStatus.NEW)));
+        restored.close();
+    }
+
+    @Test
+    public void shouldGrowReuseAndClearRecords() {
+        for (int i = 0; i < 1_500; i++) {
+            manager.addTask(new Task("Task" + i, "desc", TaskStatus.NEW));
+        }
+        for (int id = 1; id <= 500; id++) {
+            manager.deleteTask(id);
+        }
+        manager.addEpic(new Epic("Epic", "desc"));
+
+        MappedTasksManager restored = MappedTasksManager.loadFromFile(file);
+        assertRestored(restored);
+        assertEquals(1_000, restored.getTasks().size());
+        restored.close();
+
+        manager.clearTasks();
+        restored = MappedTasksManager.loadFromFile(file);
+        assertTrue(restored.getTasks().isEmpty());
+        assertEquals(1, restored.getEpics().size());
+        restored.close();
+    }
+
+    @Test
+    public void shouldMigrateSnapshotAndCompactHeap() throws IOException {
+        FileBackedTasksManager plain = (FileBackedTasksManager) FileBackedTasksManager.loadFromFile(file);
+        int epicId = plain.addEpic(epic);
+        Subtask sub = new Subtask("Sub", "desc", TaskStatus.DONE);
+        sub.setEpicId(epicId);
+        plain.addSubtaskToEpic(sub);
+        plain.getEpicById(epicId);
+
+        MappedTasksManager migrated = MappedTasksManager.loadFromFile(file);
+        assertEquals(plain.getEpics(), migrated.getEpics());
+        assertEquals(plain.getSubtasks(), migrated.getSubtasks());
+        assertEquals(plain.getHistory(), migrated.getHistory());
+        assertTrue(FileBackedTasksManager.loadFromFile(file).getEpics().isEmpty());
+
+        int taskId = migrated.addTask(new Task("Task", "desc", TaskStatus.NEW));
+        for (int i = 0; i < 5_000; i++) {
+            Task renamed = new Task("Task renamed " + i, "desc", TaskStatus.NEW);
+            renamed.setId(taskId);
+            assertTrue(migrated.updateTask(renamed));
+        }
+        long heapSize = Files.size(migrated.getHeapPath());
+        migrated.close();
+
+        MappedTasksManager compacted = MappedTasksManager.loadFromFile(file);
+        assertTrue(Files.size(compacted.getHeapPath()) < heapSize);
+        assertEquals("Task renamed 4999", compacted.getTaskById(taskId).getName());
+        assertEquals(plain.getEpics(), compacted.getEpics());
+        assertEquals(plain.getSubtasks(), compacted.getSubtasks());
+        compacted.close();
+    }
+
+    @Test
+    public void shouldRecoverInterruptedRewrite() throws IOException {
+        createEpicThreeSub(TaskStatus.NEW, TaskStatus.DONE, TaskStatus.DONE);
+        manager.addTask(new Task("Task", "описание", TaskStatus.NEW));
+        manager.close();
+        Path tempRecords = TaskRecordStore.tempPathOf(manager.getRecordsPath());
+        Path tempHeap = TaskRecordStore.tempPathOf(manager.getHeapPath());
+
+        Files.writeString(tempRecords, "не дописано");
+        Files.writeString(tempHeap, "не дописано");
+        MappedTasksManager rolledBack = MappedTasksManager.loadFromFile(file);
+        assertRestored(rolledBack);
+        rolledBack.close();
+        assertFalse(Files.exists(tempRecords));
+        assertFalse(Files.exists(tempHeap));
+
+        Files.move(manager.getHeapPath(), tempHeap);
+        Files.writeString(manager.getHeapPath(), "старая куча");
+        MappedTasksManager rolledForward = MappedTasksManager.loadFromFile(file);
+        assertRestored(rolledForward);
+        rolledForward.close();
+        assertFalse(Files.exists(tempHeap));
+    }
+}
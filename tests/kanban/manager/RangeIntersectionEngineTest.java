@@ -0,0 +1,63 @@
+package kanban.manager;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RangeIntersectionEngineTest {
+
+    RangeIntersectionEngine engine;
+
+    @BeforeEach
+    void recreateEngine() {
+        engine = new RangeIntersectionEngine();
+    }
+
+    @Test
+    void shouldReserveAdjacentRanges() {
+        assertTrue(engine.tryReserve(10, 20));
+        assertTrue(engine.tryReserve(20, 30));
+        assertTrue(engine.tryReserve(0, 10));
+        assertEquals(3, engine.size());
+    }
+
+    @Test
+    void shouldNotReserveIntersectedRanges() {
+        engine.tryReserve(10, 20);
+        assertFalse(engine.tryReserve(19, 25));
+        assertFalse(engine.tryReserve(5, 11));
+        assertFalse(engine.tryReserve(12, 15));
+        assertFalse(engine.tryReserve(0, 100));
+        assertEquals(1, engine.size());
+    }
+
+    @Test
+    void releaseShouldFreeRange() {
+        engine.tryReserve(10, 20);
+        engine.release(10, 20);
+        assertTrue(engine.isFree(0, 100));
+        assertEquals(0, engine.size());
+    }
+
+    @Test
+    void releasePartOfRangeShouldSplitIt() {
+        engine.tryReserve(0, 100);
+        engine.release(40, 60);
+        assertTrue(engine.isFree(40, 60));
+        assertFalse(engine.isFree(39, 40));
+        assertFalse(engine.isFree(60, 61));
+        assertEquals(2, engine.size());
+    }
+
+    @Test
+    void releaseSeveralRanges() {
+        engine.tryReserve(0, 10);
+        engine.tryReserve(20, 30);
+        engine.tryReserve(40, 50);
+        engine.release(5, 45);
+        assertFalse(engine.isFree(0, 5));
+        assertTrue(engine.isFree(5, 45));
+        assertFalse(engine.isFree(45, 50));
+    }
+}
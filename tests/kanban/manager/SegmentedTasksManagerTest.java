@@ -0,0 +1,132 @@
+package kanban.manager;
+
+import kanban.models.Epic;
+import kanban.models.Subtask;
+import kanban.models.Task;
+import kanban.models.TaskStatus;
+import kanban.models.TaskType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class SegmentedTasksManagerTest extends FileBackedManagerTest<SegmentedTasksManager> {
+
+    @Override
+    protected SegmentedTasksManager openManager(File file) {
+        return SegmentedTasksManager.loadFromFile(file, 10);
+    }
+
+    @AfterEach
+    public void deleteSegments() throws IOException {
+        try (Stream<Path> paths = Files.walk(manager.getSegmentsPath())) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Test
+    public void shouldRewriteOnlyChangedSegment() throws IOException {
+        for (int i = 0; i < 35; i++) {
+            manager.addTask(new Task("Task" + i, "desc", TaskStatus.NEW));
+        }
+        Path changed = manager.segmentPath(TaskType.TASK, 2);
+        Path untouched = manager.segmentPath(TaskType.TASK, 1);
+        Object changedKey = fileKey(changed);
+        Object untouchedKey = fileKey(untouched);
+        assumeTrue(changedKey != null);
+
+        Task updated = new Task("Updated", "desc", TaskStatus.DONE);
+        updated.setId(25);
+        manager.updateTask(updated);
+
+        assertNotEquals(changedKey, fileKey(changed));
+        assertEquals(untouchedKey, fileKey(untouched));
+        assertEquals(10, Files.readAllLines(changed).size());
+        assertRestored(SegmentedTasksManager.loadFromFile(file, 10));
+    }
+
+    @Test
+    public void shouldRemoveEmptySegmentsAndRestoreClears() {
+        createEpicThreeSub(TaskStatus.NEW, TaskStatus.DONE, TaskStatus.IN_PROGRESS);
+        manager.addTask(task);
+        manager.getSubtaskById(2);
+        manager.deleteTask(task.getId());
+        assertFalse(Files.exists(manager.segmentPath(TaskType.TASK, 0)));
+
+        manager.clearSubtasks();
+        manager.addEpic(new Epic("Epic2", "desc"));
+
+        SegmentedTasksManager restored = SegmentedTasksManager.loadFromFile(file, 10);
+        assertRestored(restored);
+        assertTrue(restored.getSubtasks().isEmpty());
+        assertFalse(Files.exists(manager.segmentPath(TaskType.SUBTASK, 0)));
+    }
+
+    @Test
+    public void shouldMigrateSnapshotAndResegment() throws IOException {
+        FileBackedTasksManager plain = (FileBackedTasksManager) FileBackedTasksManager.loadFromFile(file);
+        int epicId = plain.addEpic(epic);
+        for (int i = 0; i < 12; i++) {
+            Subtask sub = new Subtask("Sub" + i, "desc", TaskStatus.DONE);
+            sub.setEpicId(epicId);
+            plain.addSubtaskToEpic(sub);
+        }
+        plain.getSubtaskById(5);
+
+        SegmentedTasksManager migrated = SegmentedTasksManager.loadFromFile(file, 10);
+        assertEquals(plain.getEpics(), migrated.getEpics());
+        assertEquals(plain.getSubtasks(), migrated.getSubtasks());
+        assertEquals(plain.getHistory(), migrated.getHistory());
+        assertTrue(Files.exists(migrated.segmentPath(TaskType.SUBTASK, 1)));
+
+        SegmentedTasksManager resegmented = SegmentedTasksManager.loadFromFile(file, 4);
+        assertEquals(plain.getSubtasks(), resegmented.getSubtasks());
+        assertEquals(2, Files.readAllLines(resegmented.segmentPath(TaskType.SUBTASK, 0)).size());
+        assertTrue(Files.exists(resegmented.segmentPath(TaskType.SUBTASK, 3)));
+        assertEquals(plain.getSubtasks(), SegmentedTasksManager.loadFromFile(file, 4).getSubtasks());
+    }
+
+    @Test
+    public void shouldFinishInterruptedCommitOnRestore() throws IOException {
+        createEpicThreeSub(TaskStatus.NEW, TaskStatus.DONE, TaskStatus.IN_PROGRESS);
+        manager.addTask(task);
+        Path taskSegment = manager.segmentPath(TaskType.TASK, 0);
+        Files.move(taskSegment, SegmentedTasksManager.tempPathOf(taskSegment));
+        Files.writeString(manager.commitPath(),
+                SegmentedTasksManager.COMMIT_PUT + taskSegment.getFileName() + "\n"
+                        + SegmentedTasksManager.COMMIT_DELETE + "EPIC-0.csv\n"
+                        + SegmentedTasksManager.COMMIT_DELETE + "SUBTASK-0.csv\n");
+        // Сбой после удаления сегмента эпиков: без фиксации подзадачи остались бы без эпика
+        Files.delete(manager.segmentPath(TaskType.EPIC, 0));
+
+        SegmentedTasksManager restored = SegmentedTasksManager.loadFromFile(file, 10);
+        assertEquals(manager.getTasks(), restored.getTasks());
+        assertTrue(restored.getEpics().isEmpty());
+        assertTrue(restored.getSubtasks().isEmpty());
+        assertFalse(Files.exists(manager.commitPath()));
+        assertFalse(Files.exists(manager.segmentPath(TaskType.SUBTASK, 0)));
+    }
+
+    @Test
+    public void shouldDiscardUncommittedSegmentsOnRestore() throws IOException {
+        createEpicThreeSub(TaskStatus.NEW, TaskStatus.DONE, TaskStatus.IN_PROGRESS);
+        Path uncommitted = SegmentedTasksManager.tempPathOf(manager.segmentPath(TaskType.SUBTASK, 0));
+        Files.writeString(uncommitted, "недописанный");
+
+        assertRestored(SegmentedTasksManager.loadFromFile(file, 10));
+        assertFalse(Files.exists(uncommitted));
+    }
+
+    private static Object fileKey(Path path) throws IOException {
+        return Files.readAttributes(path, BasicFileAttributes.class).fileKey();
+    }
+}
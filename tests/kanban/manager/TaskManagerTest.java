@@ -4,6 +4,7 @@ import kanban.models.Epic;
 import kanban.models.Subtask;
 import kanban.models.Task;
 import kanban.models.TaskStatus;
+import kanban.models.TaskType;
 import kanban.util.MathConsts;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -561,6 +562,36 @@ public abstract class TaskManagerTest<T extends TaskManager> {
         assertNull(epic.getEndTime());
     }
 
+    @Test
+    public void shouldRecalculateEpicAfterUpdateAndDeleteSubtask() {
+        Instant now1 = Instant.now().plusMillis(5000);
+        Instant now2 = Instant.now().plusMillis(1000000000);
+        Subtask subtask1 = new Subtask("test", "desc", TaskStatus.NEW, now1, 25);
+        Subtask subtask2 = new Subtask("test", "desc", TaskStatus.NEW, now2, 60);
+        manager.addEpic(epic);
+        subtask1.setEpicId(epic.getId());
+        subtask2.setEpicId(epic.getId());
+        manager.addSubtaskToEpic(subtask1);
+        manager.addSubtaskToEpic(subtask2);
+
+        Subtask doneSubtask1 = new Subtask("test", "desc", TaskStatus.DONE, now1, 25);
+        doneSubtask1.setId(subtask1.getId());
+        doneSubtask1.setEpicId(epic.getId());
+        manager.updateSubtask(doneSubtask1);
+
+        assertEquals(TaskStatus.IN_PROGRESS, epic.getStatus());
+        assertEquals(85, epic.getDuration());
+        assertEquals(now2, epic.getStartTime());
+        assertEquals(subtask2.getEndTime(), epic.getEndTime());
+
+        manager.deleteSubtaskById(subtask2.getId());
+
+        assertEquals(TaskStatus.DONE, epic.getStatus());
+        assertEquals(25, epic.getDuration());
+        assertNull(epic.getStartTime());
+        assertNull(epic.getEndTime());
+    }
+
     @Test
     public void shouldRemoveSubtasksFromPrioritizedTasksTree() {
         Instant now1 = Instant.now().plusMillis(5000);
@@ -599,6 +630,51 @@ public abstract class TaskManagerTest<T extends TaskManager> {
         assertEquals(task, manager.getPrioritizedTasks().stream().findFirst().get());
     }
 
+    @Test
+    public void shouldClearSubtasksOnlyInOneEpic() {
+        Instant now = Instant.now().plusMillis(MathConsts.MINUTE_IN_MILLIS * 100);
+        Epic epic2 = new Epic("Epic 2");
+        Subtask subtask1 = new Subtask("test1", now, 20);
+        Subtask subtask2 = new Subtask("test2", now.plusMillis(MathConsts.MINUTE_IN_MILLIS * 100), 10);
+        manager.addEpic(epic);
+        manager.addEpic(epic2);
+        subtask1.setEpicId(epic.getId());
+        subtask2.setEpicId(epic2.getId());
+        manager.addSubtaskToEpic(subtask1);
+        manager.addSubtaskToEpic(subtask2);
+        manager.getSubtaskById(subtask1.getId());
+        manager.getSubtaskById(subtask2.getId());
+
+        manager.clearSubtasksInEpic(epic.getId());
+
+        assertEquals(List.of(subtask2), manager.getSubtasks());
+        assertEquals(List.of(subtask2), new ArrayList<>(manager.getPrioritizedTasks()));
+        assertEquals(List.of(subtask2), manager.getHistory());
+        assertTrue(manager.getGridWithIntervals().get(calculateStartInterval(subtask1)));
+        assertFalse(manager.getGridWithIntervals().get(calculateStartInterval(subtask2)));
+    }
+
+    @Test
+    public void shouldClearTasksAndKeepSubtasksScheduled() {
+        Instant now = Instant.now().plusMillis(MathConsts.MINUTE_IN_MILLIS * 100);
+        Task task1 = new Task("test1", now, 20);
+        Subtask subtask1 = new Subtask("test2", now.plusMillis(MathConsts.MINUTE_IN_MILLIS * 100), 10);
+        manager.addTask(task1);
+        manager.addTask(new Task("test3"));
+        manager.addEpic(epic);
+        subtask1.setEpicId(epic.getId());
+        manager.addSubtaskToEpic(subtask1);
+        manager.getTaskById(task1.getId());
+        manager.getEpicById(epic.getId());
+
+        manager.clearTasks();
+
+        assertEquals(List.of(subtask1), new ArrayList<>(manager.getPrioritizedTasks()));
+        assertEquals(List.of(epic), manager.getHistory());
+        assertTrue(manager.getGridWithIntervals().get(calculateStartInterval(task1)));
+        assertFalse(manager.getGridWithIntervals().get(calculateStartInterval(subtask1)));
+    }
+
     @Test
     public void shouldSortLike_Sub2_Sub1_Task() {
         manager.addTask(task); // third because null
@@ -617,6 +693,305 @@ public abstract class TaskManagerTest<T extends TaskManager> {
                 .map(Task::getName).collect(Collectors.toList()).toString());
     }
 
+    @Test
+    public void shouldKeepAllTasksWithoutStartTimeInPrioritizedTasks() {
+        Task task1 = new Task("test1");
+        Task task2 = new Task("test2");
+        manager.addTask(task1);
+        manager.addTask(task2);
+        manager.addEpic(epic);
+        Subtask subtask1 = new Subtask("test3");
+        subtask1.setEpicId(epic.getId());
+        manager.addSubtaskToEpic(subtask1);
+
+        assertEquals(List.of(task1, task2, subtask1), new ArrayList<>(manager.getPrioritizedTasks()));
+        manager.deleteTask(task1.getId());
+        assertEquals(List.of(task2, subtask1), new ArrayList<>(manager.getPrioritizedTasks()));
+    }
+
+    @Test
+    public void snapshotShouldKeepPrioritizedOrder() {
+        Instant now = Instant.now().plusMillis(MathConsts.MINUTE_IN_MILLIS * 100);
+        Task task1 = new Task("test1");
+        Task task2 = new Task("test2", now, 20);
+        Task task3 = new Task("test3");
+        manager.addTask(task1);
+        manager.addTask(task2);
+        manager.addTask(task3);
+        Task updatedTask = new Task("test1 updated");
+        updatedTask.setId(task1.getId());
+        manager.updateTask(updatedTask);
+
+        TaskManagerSnapshot snapshot = manager.getSnapshot();
+        assertEquals(List.of(task2, updatedTask, task3), new ArrayList<>(manager.getPrioritizedTasks()));
+        assertEquals(new ArrayList<>(manager.getPrioritizedTasks()), snapshot.getPrioritizedTasks());
+        assertSame(snapshot.getPrioritizedTasks(), snapshot.getPrioritizedTasks());
+    }
+
+    @Test
+    public void shouldReturnPrioritizedTasksInRange() {
+        Instant now = Instant.now().plusMillis(MathConsts.MINUTE_IN_MILLIS * 100);
+        Task task1 = new Task("test1", now, 20);
+        Task task2 = new Task("test2", now.plusMillis(MathConsts.MINUTE_IN_MILLIS * 30), 20);
+        Task task3 = new Task("test3", now.plusMillis(MathConsts.MINUTE_IN_MILLIS * 60), 20);
+        manager.addTask(task3);
+        manager.addTask(task1);
+        manager.addTask(task2);
+        manager.addTask(new Task("test4"));
+
+        assertEquals(List.of(task1, task2), manager.getPrioritizedTasks(now, task3.getStartTime()));
+        assertEquals(2, manager.countPrioritizedTasks(now, task3.getStartTime()));
+        assertEquals(List.of(task2, task3), manager.getPrioritizedTasks(task2.getStartTime(),
+                now.plusMillis(MathConsts.MINUTE_IN_MILLIS * 600)));
+        assertTrue(manager.getPrioritizedTasks(task3.getStartTime(), now).isEmpty());
+        assertEquals(0, manager.countPrioritizedTasks(now.minusMillis(MathConsts.MINUTE_IN_MILLIS), now));
+    }
+
+    @Test
+    public void shouldPagePrioritizedTasksByCursor() {
+        Instant now = Instant.now().plusMillis(MathConsts.MINUTE_IN_MILLIS * 100);
+        List<Task> added = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Task task1 = new Task("test" + i, now.plusMillis(MathConsts.MINUTE_IN_MILLIS * 30 * i), 20);
+            manager.addTask(task1);
+            added.add(task1);
+        }
+
+        List<Task> firstPage = manager.getPrioritizedTasksAfter(null, 0, 2);
+        assertEquals(added.subList(0, 2), firstPage);
+        Task last = firstPage.get(firstPage.size() - 1);
+        List<Task> secondPage = manager.getPrioritizedTasksAfter(last.getStartTime(), last.getId(), 2);
+        assertEquals(added.subList(2, 4), secondPage);
+        last = secondPage.get(secondPage.size() - 1);
+        assertEquals(added.subList(4, 5), manager.getPrioritizedTasksAfter(last.getStartTime(), last.getId(), 2));
+        assertTrue(manager.getPrioritizedTasksAfter(null, 0, 0).isEmpty());
+    }
+
+    @Test
+    public void snapshotShouldNotChangeAfterUpdate() {
+        manager.addTask(task);
+        manager.addEpic(epic);
+        subtask.setEpicId(epic.getId());
+        manager.addSubtaskToEpic(subtask);
+        TaskManagerSnapshot snapshot = manager.getSnapshot();
+
+        Task updatedTask = new Task("New name", "New desc", TaskStatus.DONE);
+        updatedTask.setId(task.getId());
+        manager.updateTask(updatedTask);
+        Subtask updatedSubtask = new Subtask("Sub name", "Sub desc", TaskStatus.DONE);
+        updatedSubtask.setId(subtask.getId());
+        updatedSubtask.setEpicId(epic.getId());
+        manager.updateSubtask(updatedSubtask);
+        manager.deleteTask(task.getId());
+
+        assertEquals("Task name", snapshot.getTask(task.getId()).getName());
+        assertEquals(TaskStatus.NEW, snapshot.getEpic(epic.getId()).getStatus());
+        assertEquals(List.of(subtask), snapshot.getSubtasksByEpic(epic.getId()));
+
+        TaskManagerSnapshot newSnapshot = manager.getSnapshot();
+        assertTrue(newSnapshot.getVersion() > snapshot.getVersion());
+        assertNull(newSnapshot.getTask(task.getId()));
+        assertEquals(TaskStatus.DONE, newSnapshot.getEpic(epic.getId()).getStatus());
+        assertEquals(1, newSnapshot.getSubtasks().size());
+        assertEquals(manager.getLastId(), newSnapshot.getLastId());
+    }
+
+    @Test
+    public void snapshotEpicShouldKeepSubtasksOfItsVersion() {
+        manager.addEpic(epic);
+        subtask.setEpicId(epic.getId());
+        manager.addSubtaskToEpic(subtask);
+        Subtask second = new Subtask("Sub name2", "Sub desc2", TaskStatus.DONE);
+        second.setEpicId(epic.getId());
+        manager.addSubtaskToEpic(second);
+        TaskManagerSnapshot snapshot = manager.getSnapshot();
+
+        manager.deleteSubtaskById(subtask.getId());
+        TaskManagerSnapshot newSnapshot = manager.getSnapshot();
+
+        assertEquals(manager.getEpicById(epic.getId()).getSubtasks(), newSnapshot.getEpic(epic.getId()).getSubtasks());
+        assertEquals(List.of(second), newSnapshot.getSubtasksByEpic(epic.getId()));
+        assertEquals(2, snapshot.getEpic(epic.getId()).getSubtasks().size());
+        assertEquals(2, snapshot.getSubtasksByEpic(epic.getId()).size());
+
+        manager.deleteEpicById(epic.getId());
+        assertNull(manager.getSnapshot().getEpic(epic.getId()));
+        assertTrue(manager.getSnapshot().getSubtasksByEpic(epic.getId()).isEmpty());
+        assertEquals(1, newSnapshot.getSubtasksByEpic(epic.getId()).size());
+    }
+
+    @Test
+    public void snapshotEpicsShouldBeReadWithoutCopying() {
+        manager.addEpic(epic);
+        Epic otherEpic = new Epic("Other", "desc");
+        manager.addEpic(otherEpic);
+        subtask.setEpicId(epic.getId());
+        manager.addSubtaskToEpic(subtask);
+        TaskManagerSnapshot snapshot = manager.getSnapshot();
+
+        Epic snapshotEpic = snapshot.getEpic(epic.getId());
+        assertSame(snapshotEpic, snapshot.getEpic(epic.getId()));
+        assertSame(snapshot.getEpics().iterator().next(), snapshot.getEpics().iterator().next());
+        assertTrue(snapshotEpic.getSubtasks().contains(subtask.getId()));
+        assertArrayEquals(new int[]{subtask.getId()}, snapshotEpic.getSubtasks().toIntArray());
+        assertThrows(UnsupportedOperationException.class, () -> snapshotEpic.getSubtasks().add(100));
+
+        Subtask added = new Subtask("Sub name2", "Sub desc2", TaskStatus.NEW);
+        added.setEpicId(otherEpic.getId());
+        manager.addSubtaskToEpic(added);
+        manager.deleteSubtaskById(subtask.getId());
+        TaskManagerSnapshot newSnapshot = manager.getSnapshot();
+
+        assertEquals(manager.getEpicById(epic.getId()).getSubtasks(), newSnapshot.getEpic(epic.getId()).getSubtasks());
+        assertEquals(manager.getEpicById(otherEpic.getId()).getSubtasks(),
+                newSnapshot.getEpic(otherEpic.getId()).getSubtasks());
+        assertEquals(1, snapshotEpic.getSubtasks().size());
+    }
+
+    @Test
+    public void snapshotShouldBeReusedWithoutChanges() {
+        manager.addTask(task);
+        TaskManagerSnapshot snapshot = manager.getSnapshot();
+        manager.getTaskById(task.getId());
+        manager.getTasks();
+
+        assertSame(snapshot, manager.getSnapshot());
+        manager.clearTasks();
+        assertTrue(manager.getSnapshot().getTasks().isEmpty());
+        assertEquals(1, snapshot.getTasks().size());
+    }
+
+    @Test
+    public void shouldApplyBatchWithNewEpicAndSubtasks() {
+        Instant now = Instant.now().plusMillis(MathConsts.MINUTE_IN_MILLIS * 100);
+        Subtask subtask1 = new Subtask("test1", "desc", TaskStatus.DONE, now, 20);
+        Subtask subtask2 = new Subtask("test2", "desc", TaskStatus.NEW,
+                now.plusMillis(MathConsts.MINUTE_IN_MILLIS * 30), 10);
+        Task task1 = new Task("test3", now.plusMillis(MathConsts.MINUTE_IN_MILLIS * 60), 15);
+
+        List<Integer> ids = manager.applyBatch(new TaskBatch()
+                .addEpic(epic)
+                .addSubtask(subtask1, epic)
+                .addSubtask(subtask2, epic)
+                .addTask(task1)
+                .deleteTask(100));
+
+        assertEquals(List.of(epic.getId(), subtask1.getId(), subtask2.getId(), task1.getId(), -1), ids);
+        assertEquals(TaskStatus.IN_PROGRESS, epic.getStatus());
+        assertEquals(30, epic.getDuration());
+        assertEquals(subtask2.getStartTime(), epic.getStartTime());
+        assertEquals(List.of(subtask1, subtask2), manager.getSubtasksByEpic(epic.getId()));
+        assertEquals(List.of(subtask1, subtask2, task1), new ArrayList<>(manager.getPrioritizedTasks()));
+        assertThrows(IntersectionDetectedException.class, () -> manager.addTask(new Task("test4", now, 5)));
+    }
+
+    @Test
+    public void shouldNotApplyBatchWithIntersection() {
+        Instant now = Instant.now().plusMillis(MathConsts.MINUTE_IN_MILLIS * 100);
+        Task task1 = new Task("test1", now, 20);
+        manager.addTask(task1);
+        Task task2 = new Task("test2", now.plusMillis(MathConsts.MINUTE_IN_MILLIS * 60), 20);
+        Task task3 = new Task("test3", now.plusMillis(MathConsts.MINUTE_IN_MILLIS * 70), 20);
+
+        TaskBatch batch = new TaskBatch().addTask(task2).deleteTask(task1.getId()).addTask(task3);
+        assertThrows(IntersectionDetectedException.class, () -> manager.applyBatch(batch));
+
+        assertEquals(List.of(task1), manager.getTasks());
+        assertFalse(manager.isTimeSlotFree(calculateStartInterval(task1)));
+        assertTrue(manager.isTimeSlotFree(calculateStartInterval(task2)));
+    }
+
+    @Test
+    public void shouldSwapTaskTimesInOneBatch() {
+        Instant now = Instant.now().plusMillis(MathConsts.MINUTE_IN_MILLIS * 100);
+        Task task1 = new Task("test1", now, 20);
+        Task task2 = new Task("test2", now.plusMillis(MathConsts.MINUTE_IN_MILLIS * 60), 20);
+        manager.addTask(task1);
+        manager.addTask(task2);
+
+        Task newTask1 = new Task("test1", task2.getStartTime(), 20);
+        newTask1.setId(task1.getId());
+        Task newTask2 = new Task("test2", task1.getStartTime(), 20);
+        newTask2.setId(task2.getId());
+        manager.applyBatch(new TaskBatch().updateTask(newTask1).updateTask(newTask2));
+
+        assertEquals(List.of(newTask2, newTask1), new ArrayList<>(manager.getPrioritizedTasks()));
+        assertFalse(manager.isTimeSlotFree(calculateStartInterval(task1)));
+        assertFalse(manager.isTimeSlotFree(calculateStartInterval(task2)));
+        assertThrows(IntersectionDetectedException.class, () -> manager.addTask(new Task("test3", now, 5)));
+    }
+
+    @Test
+    public void shouldReleaseSubtasksOfEpicDeletedInBatch() {
+        Instant now = Instant.now().plusMillis(MathConsts.MINUTE_IN_MILLIS * 100);
+        manager.addEpic(epic);
+        Subtask subtask1 = new Subtask("test1", now, 20);
+        subtask1.setEpicId(epic.getId());
+        manager.addSubtaskToEpic(subtask1);
+        Task task1 = new Task("test2", now, 20);
+
+        List<Integer> ids = manager.applyBatch(new TaskBatch().deleteEpic(epic.getId()).addTask(task1));
+
+        assertEquals(List.of(epic.getId(), task1.getId()), ids);
+        assertTrue(manager.getSubtasks().isEmpty());
+        assertEquals(List.of(task1), new ArrayList<>(manager.getPrioritizedTasks()));
+    }
+
+    @Test
+    public void shouldMoveTaskBetweenStatusIndexesOnUpdate() {
+        manager.addTask(task);
+        Task task2 = new Task("Task2", "desc", TaskStatus.NEW);
+        manager.addTask(task2);
+        Task updated = new Task("Task name", "Task desc", TaskStatus.DONE);
+        updated.setId(task.getId());
+
+        manager.updateTask(updated);
+
+        assertEquals(List.of(task2), manager.getTasksByStatus(TaskStatus.NEW));
+        assertEquals(List.of(updated), manager.getTasksByStatus(TaskStatus.DONE));
+        assertEquals(1, manager.countByStatus(TaskType.TASK, TaskStatus.DONE));
+        assertTrue(manager.getTasksByStatus(TaskStatus.IN_PROGRESS).isEmpty());
+
+        manager.deleteTask(task2.getId());
+        assertTrue(manager.getTasksByStatus(TaskStatus.NEW).isEmpty());
+        manager.clearTasks();
+        assertEquals(0, manager.countByStatus(TaskType.TASK, TaskStatus.DONE));
+    }
+
+    @Test
+    public void shouldIndexEpicsAndSubtasksByStatus() {
+        manager.addEpic(epic);
+        Epic epic2 = new Epic("Epic2", "desc");
+        manager.addEpic(epic2);
+        Subtask subtask1 = new Subtask("Sub1", "desc", TaskStatus.DONE);
+        subtask1.setEpicId(epic.getId());
+        manager.addSubtaskToEpic(subtask1);
+        Subtask subtask2 = new Subtask("Sub2", "desc", TaskStatus.IN_PROGRESS);
+        subtask2.setEpicId(epic.getId());
+        manager.addSubtaskToEpic(subtask2);
+        Subtask subtask3 = new Subtask("Sub3", "desc", TaskStatus.DONE);
+        subtask3.setEpicId(epic2.getId());
+        manager.addSubtaskToEpic(subtask3);
+
+        assertEquals(List.of(epic), manager.getEpicsByStatus(TaskStatus.IN_PROGRESS));
+        assertEquals(List.of(epic2), manager.getEpicsByStatus(TaskStatus.DONE));
+        assertEquals(List.of(subtask1, subtask3), manager.getSubtasksByStatus(TaskStatus.DONE));
+        assertEquals(List.of(subtask1), manager.getSubtasksByEpicAndStatus(epic.getId(), TaskStatus.DONE));
+        assertEquals(1, manager.countSubtasksByEpicAndStatus(epic.getId(), TaskStatus.IN_PROGRESS));
+        assertEquals(0, manager.countSubtasksByEpicAndStatus(100, TaskStatus.DONE));
+        assertTrue(manager.getSubtasksByEpicAndStatus(100, TaskStatus.DONE).isEmpty());
+
+        manager.deleteSubtaskById(subtask2.getId());
+        assertEquals(List.of(epic2, epic), manager.getEpicsByStatus(TaskStatus.DONE));
+        assertEquals(0, manager.countSubtasksByEpicAndStatus(epic.getId(), TaskStatus.IN_PROGRESS));
+
+        manager.deleteEpicById(epic2.getId());
+        assertEquals(List.of(subtask1), manager.getSubtasksByStatus(TaskStatus.DONE));
+        manager.clearEpics();
+        assertEquals(0, manager.countByStatus(TaskType.EPIC, TaskStatus.DONE));
+        assertEquals(0, manager.countByStatus(TaskType.SUBTASK, TaskStatus.DONE));
+    }
+
     @Test
     public void createIntervalGridTest() {
         assertEquals(MathConsts.SECOND_IN_MINUTE * MathConsts.HOURS_IN_DAY
@@ -624,6 +999,53 @@ public abstract class TaskManagerTest<T extends TaskManager> {
                 manager.getGridWithIntervals().size());
     }
 
+    @Test
+    public void shouldReportTimeSlotOccupancy() {
+        Instant now = Instant.now().plusMillis(MathConsts.MINUTE_IN_MILLIS * 100);
+        Task task1 = new Task("test1", now, 20);
+
+        manager.addTask(task1);
+        long slot = calculateStartInterval(task1);
+        assertFalse(manager.isTimeSlotFree(slot));
+        assertFalse(manager.isTimeSlotFree(-1));
+
+        manager.deleteTask(task1.getId());
+        assertTrue(manager.isTimeSlotFree(slot));
+    }
+
+    @Test
+    public void shouldAddTasksBeyondOneYearWithMinutePrecision() {
+        Instant farAway = Instant.now().plusMillis(MathConsts.MINUTE_IN_MILLIS * 60L * 24 * 400);
+        Task longTask = new Task("long", farAway, 60 * 24 * 30);
+        Task nextTask = new Task("next", longTask.getEndTime(), 10);
+        Task pastTask = new Task("past", Instant.now().minusMillis(MathConsts.MINUTE_IN_MILLIS * 60), 5);
+        Task sameSlotTask = new Task("same slot", pastTask.getEndTime(), 5);
+
+        manager.addTask(longTask);
+        manager.addTask(nextTask);
+        manager.addTask(pastTask);
+        manager.addTask(sameSlotTask);
+
+        assertEquals(4, manager.getTasks().size());
+        assertThrows(IntersectionDetectedException.class, () -> manager.addTask(
+                new Task("inside", farAway.plusMillis(MathConsts.MINUTE_IN_MILLIS * 60L * 24 * 15), 10)));
+    }
+
+    @Test
+    public void shouldKeepIntervalWhenUpdateIntersects() {
+        Instant now = Instant.now().plusMillis(MathConsts.MINUTE_IN_MILLIS * 100);
+        Task task1 = new Task("test1", now, 20);
+        Task task2 = new Task("test2", now.plusMillis(MathConsts.MINUTE_IN_MILLIS * 60), 20);
+        manager.addTask(task1);
+        manager.addTask(task2);
+
+        Task task3 = new Task("test3", now.plusMillis(MathConsts.MINUTE_IN_MILLIS * 10), 20);
+        task3.setId(task2.getId());
+        assertThrows(IntersectionDetectedException.class, () -> manager.updateTask(task3));
+        assertThrows(IntersectionDetectedException.class, () -> manager.addTask(
+                new Task("test4", task2.getStartTime(), 5)));
+    }
+
     @Test
     public void shouldThrowIntersectException() {
         Instant now = Instant.now().plusMillis(MathConsts.MINUTE_IN_MILLIS);
@@ -0,0 +1,122 @@
+package kanban.manager;
+
+import kanban.models.Task;
+import kanban.models.TaskStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.attribute.BasicFileAttributes;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class WriteBehindTasksManagerTest extends FileBackedManagerTest<WriteBehindTasksManager> {
+
+    @Override
+    protected WriteBehindTasksManager openManager(File file) {
+        return WriteBehindTasksManager.loadFromFile(file);
+    }
+
+    @AfterEach
+    public void closeManager() {
+        manager.close();
+    }
+
+    @Test
+    public void shouldWriteAllChangesOnClose() {
+        createEpicThreeSub(TaskStatus.NEW, TaskStatus.DONE, TaskStatus.DONE);
+        manager.addTask(task);
+        manager.getSubtaskById(3);
+        manager.getEpicById(1);
+
+        manager.close();
+
+        assertRestored(FileBackedTasksManager.loadFromFile(file));
+    }
+
+    @Test
+    public void flushShouldWriteChangesBeforeInterval() {
+        WriteBehindTasksManager slow = WriteBehindTasksManager.loadFromFile(file,
+                WriteBehindTasksManager.Durability.FSYNC_INTERVAL, 60_000, 60_000);
+        try {
+            slow.addTask(task);
+            slow.getTaskById(task.getId());
+
+            slow.flush();
+
+            TaskManager restored = FileBackedTasksManager.loadFromFile(file);
+            assertEquals(slow.getTasks(), restored.getTasks());
+            assertEquals(slow.getHistory(), restored.getHistory());
+        } finally {
+            slow.close();
+        }
+    }
+
+    @Test
+    public void viewsShouldNotRewriteDataFile() throws IOException {
+        createEpicThreeSub(TaskStatus.NEW, TaskStatus.DONE, TaskStatus.DONE);
+        manager.flush();
+        Object fileKey = Files.readAttributes(file.toPath(), BasicFileAttributes.class).fileKey();
+        assumeTrue(fileKey != null);
+
+        for (int i = 0; i < 100; i++) {
+            manager.getSubtaskById(2 + i % 3);
+            manager.getEpicById(1);
+        }
+        manager.flush();
+
+        assertEquals(fileKey, Files.readAttributes(file.toPath(), BasicFileAttributes.class).fileKey());
+        assertRestored(FileBackedTasksManager.loadFromFile(file));
+
+        manager.addTask(task);
+        manager.getTaskById(task.getId());
+        manager.close();
+        assertRestored(FileBackedTasksManager.loadFromFile(file));
+    }
+
+    @Test
+    public void mutationsShouldNotWriteFileBeforeInterval() throws IOException {
+        WriteBehindTasksManager slow = WriteBehindTasksManager.loadFromFile(file,
+                WriteBehindTasksManager.Durability.NO_FSYNC, 60_000, 0);
+        try {
+            for (int i = 0; i < 500; i++) {
+                slow.addTask(new Task("Task" + i, "desc", TaskStatus.NEW));
+            }
+            assertEquals(0, Files.size(file.toPath()));
+
+            slow.flush();
+
+            assertEquals(500, FileBackedTasksManager.loadFromFile(file).getTasks().size());
+        } finally {
+            slow.close();
+        }
+    }
+
+    @Test
+    public void groupCommitShouldPersistEveryChange() {
+        WriteBehindTasksManager group = WriteBehindTasksManager.loadFromFile(file,
+                WriteBehindTasksManager.Durability.GROUP_COMMIT, 0, 0);
+        try {
+            for (int i = 0; i < 200; i++) {
+                group.addTask(new Task("Task" + i, "desc", TaskStatus.NEW));
+            }
+            group.deleteTask(100);
+            group.flush();
+
+            assertEquals(group.getTasks(), FileBackedTasksManager.loadFromFile(file).getTasks());
+        } finally {
+            group.close();
+        }
+    }
+
+    @Test
+    public void shouldSaveSynchronouslyAfterClose() {
+        manager.close();
+        manager.addEpic(epic);
+
+        assertEquals(manager.getEpics(), FileBackedTasksManager.loadFromFile(file).getEpics());
+    }
+}
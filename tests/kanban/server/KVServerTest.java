@@ -3,16 +3,22 @@ package kanban.server;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import kanban.util.InstantAdapter;
+import kanban.util.KeyValueFrames;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -139,4 +145,78 @@ class KVServerTest {
         assertEquals(400, response.statusCode());
     }
 
-}
\ No newline at end of file
+    @Test
+    public void shouldSaveAndLoadBatch() throws IOException, InterruptedException {
+        Map<String, String> values = new LinkedHashMap<>();
+        values.put("a", "1");
+        values.put("b", "2");
+        HttpResponse<String> save = client.send(HttpRequest.newBuilder()
+                        .uri(URI.create("http://localhost:8078/save-batch?API_TOKEN=" + apiKey))
+                        .POST(HttpRequest.BodyPublishers.ofByteArray(KeyValueFrames.write(values)))
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, save.statusCode());
+
+        Map<String, String> keys = new LinkedHashMap<>();
+        keys.put("b", null);
+        keys.put("missing", null);
+        keys.put("a", null);
+        HttpResponse<byte[]> load = client.send(HttpRequest.newBuilder()
+                        .uri(URI.create("http://localhost:8078/load-batch?API_TOKEN=" + apiKey))
+                        .POST(HttpRequest.BodyPublishers.ofByteArray(KeyValueFrames.write(keys)))
+                        .build(),
+                HttpResponse.BodyHandlers.ofByteArray());
+        assertEquals(200, load.statusCode());
+        Map<String, String> loaded = KeyValueFrames.read(new ByteArrayInputStream(load.body()));
+        assertEquals(List.of("b", "missing", "a"), new ArrayList<>(loaded.keySet()));
+        assertEquals("2", loaded.get("b"));
+        assertNull(loaded.get("missing"));
+        assertEquals("1", loaded.get("a"));
+    }
+
+    @Test
+    public void shouldDeleteKeysWithoutValueInBatch() throws IOException, InterruptedException {
+        URI saveUrl = URI.create("http://localhost:8078/save-batch?API_TOKEN=" + apiKey);
+        Map<String, String> values = new LinkedHashMap<>();
+        values.put("a", "1");
+        values.put("b", "2");
+        client.send(HttpRequest.newBuilder().uri(saveUrl)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(KeyValueFrames.write(values))).build(),
+                HttpResponse.BodyHandlers.ofString());
+
+        Map<String, String> changes = new LinkedHashMap<>();
+        changes.put("a", null);
+        changes.put("c", "3");
+        HttpResponse<String> save = client.send(HttpRequest.newBuilder().uri(saveUrl)
+                        .POST(HttpRequest.BodyPublishers.ofByteArray(KeyValueFrames.write(changes))).build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, save.statusCode());
+
+        HttpResponse<String> deleted = client.send(HttpRequest.newBuilder()
+                        .uri(URI.create("http://localhost:8078/load/a?API_TOKEN=" + apiKey)).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(404, deleted.statusCode());
+        HttpResponse<String> kept = client.send(HttpRequest.newBuilder()
+                        .uri(URI.create("http://localhost:8078/load/b?API_TOKEN=" + apiKey)).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals("2", kept.body());
+    }
+
+    @Test
+    public void shouldNotSaveMalformedBatch() throws IOException, InterruptedException {
+        URI url = URI.create("http://localhost:8078/save-batch?API_TOKEN=" + apiKey);
+        HttpRequest request = HttpRequest.newBuilder().uri(url)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(new byte[]{0, 0, 0, 2, 0, 0, 0, 5})).build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(400, response.statusCode());
+    }
+
+    @Test
+    public void shouldNotAuthorizeBatchWithoutApiKey() throws IOException, InterruptedException {
+        URI url = URI.create("http://localhost:8078/load-batch");
+        HttpRequest request = HttpRequest.newBuilder().uri(url)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(KeyValueFrames.write(Map.of()))).build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(403, response.statusCode());
+    }
+}
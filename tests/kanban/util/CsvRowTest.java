@@ -0,0 +1,132 @@
+package kanban.util;
+
+import kanban.models.Subtask;
+import kanban.models.TaskStatus;
+import kanban.models.TaskType;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.CharBuffer;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvRowTest {
+
+    @Test
+    void shouldSplitFieldsIncludingEmpty() {
+        CsvRow row = CsvRow.of("1,TASK,,NEW,desc,null,15");
+
+        assertEquals(7, row.size());
+        assertEquals(1, row.getInt(0));
+        assertEquals("", row.get(2));
+        assertTrue(row.isEmpty(2));
+        assertEquals("desc", row.get(4));
+        assertTrue(row.equalsAt(5, "null"));
+        assertEquals(15, row.getLong(6));
+    }
+
+    @Test
+    void shouldReadEnumsWithoutCopying() {
+        CsvRow row = CsvRow.of("4,SUBTASK,name,IN_PROGRESS");
+
+        assertEquals(TaskType.SUBTASK, row.getEnum(1, TaskType.values()));
+        assertEquals(TaskStatus.IN_PROGRESS, row.getEnum(3, TaskStatus.values()));
+        assertThrows(IllegalArgumentException.class, () -> row.getEnum(2, TaskStatus.values()));
+    }
+
+    @Test
+    void shouldTrimNumbers() {
+        CsvRow row = CsvRow.of(" 12 ,7\r");
+
+        assertEquals(12, row.getInt(0));
+        assertEquals(7, row.getInt(1));
+        assertThrows(NumberFormatException.class, () -> CsvRow.of("a").getInt(0));
+    }
+
+    @Test
+    void shouldReuseRowForLongerLine() {
+        CsvRow row = CsvRow.of("1,2");
+        StringBuilder line = new StringBuilder("0");
+        for (int i = 1; i < 40; i++) {
+            line.append(',').append(i);
+        }
+
+        row.parse(line.toString());
+
+        assertEquals(40, row.size());
+        assertEquals(39, row.getInt(39));
+        assertThrows(IndexOutOfBoundsException.class, () -> row.get(40));
+    }
+
+    @Test
+    void shouldRestoreSubtaskFromCsv() {
+        Subtask subtask = new Subtask("Sub", "desc", TaskStatus.DONE, Instant.ofEpochMilli(60_000), 30);
+        subtask.setId(5);
+        subtask.setEpicId(2);
+        Subtask restored = new Subtask();
+
+        restored.fromScsString(subtask.toCsvString());
+
+        assertEquals(subtask, restored);
+    }
+
+    @Test
+    void shouldUnquoteFields() {
+        CsvRow row = CsvRow.of("1,\"a,b\",\"say \"\"hi\"\"\",\"\",\"line\nbreak\"");
+
+        assertEquals(5, row.size());
+        assertEquals("a,b", row.get(1));
+        assertEquals("say \"hi\"", row.get(2));
+        assertTrue(row.equalsAt(2, "say \"hi\""));
+        assertTrue(row.isEmpty(3));
+        assertEquals("line\nbreak", row.get(4));
+        assertThrows(IllegalArgumentException.class, () -> CsvRow.of("1,\"open"));
+    }
+
+    @Test
+    void shouldParseCharBufferWithoutCopying() {
+        CharBuffer buffer = CharBuffer.wrap("xx7,TASK,name");
+        buffer.position(2);
+        CsvRow row = new CsvRow();
+        Subtask target = new Subtask();
+
+        row.parse(buffer);
+        assertEquals(7, row.getInt(0));
+        assertTrue(row.equalsAt(1, "TASK"));
+
+        Subtask subtask = new Subtask("Имя, с запятой", "\"desc\"", TaskStatus.NEW, null, 0);
+        subtask.setId(3);
+        subtask.setEpicId(1);
+        target.fromCsv(CharBuffer.wrap(subtask.toCsvString()), row);
+        assertEquals(subtask, target);
+    }
+
+    @Test
+    void shouldReadRecordsSpanningLines() throws IOException {
+        String text = "1,\"first\nsecond\",x\n2,plain\n";
+        BufferedReader reader = new BufferedReader(new StringReader(text));
+
+        assertEquals("1,\"first\nsecond\",x", CsvRow.readRecord(reader));
+        assertEquals("2,plain", CsvRow.readRecord(reader));
+        assertNull(CsvRow.readRecord(reader));
+        assertEquals(text.indexOf(",x") + 2, CsvRow.indexOfRecordEnd(text, 0));
+        assertEquals(-1, CsvRow.indexOfRecordEnd("1,\"open\n", 0));
+    }
+
+    @Test
+    void bareQuoteInsideFieldShouldNotJoinRecords() throws IOException {
+        String text = "1,TASK,5\" screen,NEW,desc\n2,TASK,\"a \"\"b\"\"\nc\",NEW,\n3,TASK,x\"\n";
+        BufferedReader reader = new BufferedReader(new StringReader(text));
+
+        assertEquals("1,TASK,5\" screen,NEW,desc", CsvRow.readRecord(reader));
+        assertEquals("2,TASK,\"a \"\"b\"\"\nc\",NEW,", CsvRow.readRecord(reader));
+        assertEquals("3,TASK,x\"", CsvRow.readRecord(reader));
+        assertNull(CsvRow.readRecord(reader));
+        assertEquals(text.indexOf('\n'), CsvRow.indexOfRecordEnd(text, 0));
+        assertEquals(text.indexOf(",NEW,\n") + 5, CsvRow.indexOfRecordEnd(text, text.indexOf('\n') + 1));
+        assertEquals("5\" screen", CsvRow.of("1,TASK,5\" screen,NEW").get(2));
+    }
+}
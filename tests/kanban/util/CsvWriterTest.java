@@ -0,0 +1,52 @@
+package kanban.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvWriterTest {
+
+    @Test
+    void shouldAppendNumbersWithoutStrings() throws IOException {
+        StringBuilder out = new StringBuilder();
+        for (long value : new long[]{0, 7, -7, 1_000, Integer.MIN_VALUE, Long.MAX_VALUE, Long.MIN_VALUE}) {
+            out.setLength(0);
+            CsvWriter.appendNumber(out, value);
+            assertEquals(Long.toString(value), out.toString());
+        }
+    }
+
+    @Test
+    void shouldQuoteOnlyWhenNeeded() throws IOException {
+        StringBuilder out = new StringBuilder();
+        CsvWriter.appendField(out, "plain text");
+        out.append('|');
+        CsvWriter.appendField(out, "a,\"b\"\nc");
+
+        assertEquals("plain text|\"a,\"\"b\"\"\nc\"", out.toString());
+        assertEquals("a,\"b\"\nc", CsvRow.of(out.substring(out.indexOf("|") + 1)).get(0));
+    }
+
+    @Test
+    void shouldEncodeThroughSmallBufferAndReuseIt() throws IOException {
+        CsvWriter writer = new CsvWriter(3);
+        String text = "Задача 😀, ещё одна 😀";
+
+        for (int i = 0; i < 2; i++) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            WritableByteChannel channel = Channels.newChannel(bytes);
+            writer.open(channel);
+            writer.append(text).append('\n');
+            CsvWriter.appendNumber(writer, 42);
+            writer.finish();
+
+            assertEquals(text + "\n42", bytes.toString(StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package kanban.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntHashMapTest {
+
+    IntHashMap<String> map;
+
+    @BeforeEach
+    void recreateMap() {
+        map = new IntHashMap<>();
+    }
+
+    @Test
+    void shouldPutGetAndRemove() {
+        assertNull(map.put(1, "a"));
+        assertEquals("a", map.put(1, "b"));
+        map.put(-5, "c");
+
+        assertEquals(2, map.size());
+        assertEquals("b", map.get(1));
+        assertTrue(map.containsKey(-5));
+        assertNull(map.get(2));
+        assertEquals("c", map.remove(-5));
+        assertNull(map.remove(-5));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    void shouldIterateInInsertionOrder() {
+        for (int i = 100; i > 0; i--) {
+            map.put(i, Integer.toString(i));
+        }
+        map.remove(50);
+        map.put(50, "50");
+
+        List<String> values = new ArrayList<>(map.values());
+        assertEquals("100", values.get(0));
+        assertEquals("1", values.get(98));
+        assertEquals("50", values.get(99));
+        assertEquals(100, map.keySet().size());
+        assertTrue(map.keySet().contains(77));
+    }
+
+    @Test
+    void shouldRemoveWhileIterating() {
+        for (int i = 0; i < 20; i++) {
+            map.put(i, Integer.toString(i));
+        }
+        for (Iterator<Integer> iterator = map.keySet().iterator(); iterator.hasNext(); ) {
+            if (iterator.next() % 2 == 0) {
+                iterator.remove();
+            }
+        }
+
+        assertEquals(10, map.size());
+        assertNull(map.get(4));
+        assertEquals("5", map.get(5));
+    }
+
+    @Test
+    void shouldMatchLinkedHashMapOnRandomOperations() {
+        Random random = new Random(7);
+        Map<Integer, String> expected = new LinkedHashMap<>();
+
+        for (int i = 0; i < 50_000; i++) {
+            int key = random.nextInt(3) == 0 ? random.nextInt() : random.nextInt(1_000);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                String value = Integer.toString(i);
+                if (!expected.containsKey(key)) {
+                    expected.put(key, value);
+                } else {
+                    expected.replace(key, value);
+                }
+                map.put(key, value);
+            }
+        }
+
+        assertEquals(expected, map.asMap());
+        assertEquals(new ArrayList<>(expected.keySet()), new ArrayList<>(map.keySet()));
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertFalse(map.values().iterator().hasNext());
+    }
+}
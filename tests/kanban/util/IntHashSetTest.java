@@ -0,0 +1,56 @@
+package kanban.util;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntHashSetTest {
+
+    @Test
+    void shouldAddContainsAndRemove() {
+        IntHashSet set = new IntHashSet();
+        assertTrue(set.add(3));
+        assertFalse(set.add(3));
+        set.add(1);
+        set.add(2);
+
+        assertTrue(set.contains(1));
+        assertTrue(set.removeInt(1));
+        assertFalse(set.removeInt(1));
+        assertFalse(set.contains(1));
+        assertArrayEquals(new int[]{3, 2}, set.toIntArray());
+        assertEquals(List.of(3, 2), List.copyOf(set));
+    }
+
+    @Test
+    void shouldGrowAndKeepOrder() {
+        IntHashSet set = new IntHashSet();
+        for (int i = 0; i < 1_000; i++) {
+            set.add(i * 31);
+        }
+        for (int i = 0; i < 1_000; i += 2) {
+            set.removeInt(i * 31);
+        }
+        for (int i = 1_000; i < 1_500; i++) {
+            set.add(i * 31);
+        }
+
+        int[] values = set.toIntArray();
+        assertEquals(1_000, values.length);
+        assertEquals(31, values[0]);
+        assertEquals(1_499 * 31, values[values.length - 1]);
+    }
+
+    @Test
+    void shouldSerializeAsJsonArray() {
+        Gson gson = new Gson();
+        IntHashSet set = new IntHashSet(List.of(5, 6, 7));
+
+        String json = gson.toJson(set);
+        assertEquals("[5,6,7]", json);
+        assertEquals(set, gson.fromJson(json, IntHashSet.class));
+    }
+}
@@ -0,0 +1,54 @@
+package kanban.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntIntHashMapTest {
+
+    @Test
+    void shouldPutGetAndRemove() {
+        IntIntHashMap map = new IntIntHashMap();
+        map.put(1, 10);
+        map.put(1, 11);
+        map.put(-5, 0);
+
+        assertEquals(2, map.size());
+        assertEquals(11, map.get(1, -1));
+        assertEquals(0, map.get(-5, -1));
+        assertTrue(map.containsKey(-5));
+        assertEquals(-1, map.get(2, -1));
+        assertEquals(0, map.remove(-5, -1));
+        assertEquals(-1, map.remove(-5, -1));
+        assertEquals(1, map.size());
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertEquals(-1, map.get(1, -1));
+    }
+
+    @Test
+    void shouldMatchHashMapAfterRandomOperations() {
+        IntIntHashMap map = new IntIntHashMap();
+        Map<Integer, Integer> expected = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            int key = random.nextInt(2_000);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.getOrDefault(key, -1), map.remove(key, -1));
+                expected.remove(key);
+            } else {
+                map.put(key, i);
+                expected.put(key, i);
+            }
+        }
+
+        assertEquals(expected.size(), map.size());
+        for (int key = 0; key < 2_000; key++) {
+            assertEquals(expected.getOrDefault(key, -1), map.get(key, -1));
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package kanban.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PersistentIntMapTest {
+
+    @Test
+    void emptyMapShouldHaveNoValues() {
+        PersistentIntMap<String> map = PersistentIntMap.empty();
+        assertEquals(0, map.size());
+        assertNull(map.get(1));
+        assertFalse(map.values().iterator().hasNext());
+        assertSame(map, map.remove(1));
+    }
+
+    @Test
+    void putShouldNotChangePreviousVersion() {
+        PersistentIntMap<String> first = PersistentIntMap.<String>empty().put(1, "a");
+        PersistentIntMap<String> second = first.put(33, "b").put(1, "c");
+
+        assertEquals(1, first.size());
+        assertEquals("a", first.get(1));
+        assertNull(first.get(33));
+        assertEquals(2, second.size());
+        assertEquals("c", second.get(1));
+        assertEquals("b", second.get(33));
+    }
+
+    @Test
+    void putSameValueShouldReturnSameMap() {
+        String value = "a";
+        PersistentIntMap<String> map = PersistentIntMap.<String>empty().put(7, value);
+        assertSame(map, map.put(7, value));
+    }
+
+    @Test
+    void removeShouldNotChangePreviousVersion() {
+        PersistentIntMap<String> full = PersistentIntMap.<String>empty().put(1, "a").put(1 << 30, "b").put(-1, "c");
+        PersistentIntMap<String> removed = full.remove(1 << 30);
+
+        assertEquals(3, full.size());
+        assertEquals("b", full.get(1 << 30));
+        assertEquals(2, removed.size());
+        assertNull(removed.get(1 << 30));
+        assertEquals("c", removed.get(-1));
+        assertEquals(0, removed.remove(1).remove(-1).size());
+    }
+
+    @Test
+    void shouldMatchHashMapOnRandomOperations() {
+        Random random = new Random(42);
+        Map<Integer, Integer> expected = new HashMap<>();
+        PersistentIntMap<Integer> map = PersistentIntMap.empty();
+        List<PersistentIntMap<Integer>> versions = new ArrayList<>();
+        List<Map<Integer, Integer>> expectedVersions = new ArrayList<>();
+
+        for (int i = 0; i < 20_000; i++) {
+            int key = random.nextBoolean() ? random.nextInt(2_000) : random.nextInt();
+            if (random.nextInt(3) == 0) {
+                expected.remove(key);
+                map = map.remove(key);
+            } else {
+                expected.put(key, i);
+                map = map.put(key, i);
+            }
+            if (i % 1_000 == 0) {
+                versions.add(map);
+                expectedVersions.add(new HashMap<>(expected));
+            }
+        }
+
+        assertMapEquals(expected, map);
+        for (int i = 0; i < versions.size(); i++) {
+            assertMapEquals(expectedVersions.get(i), versions.get(i));
+        }
+        for (int i = 1; i < versions.size(); i++) {
+            assertChangedKeys(expectedVersions.get(i - 1), expectedVersions.get(i),
+                    versions.get(i - 1), versions.get(i));
+        }
+    }
+
+    @Test
+    void changedKeysShouldSkipSharedNodes() {
+        PersistentIntMap<Integer> first = PersistentIntMap.empty();
+        for (int key = 0; key < 10_000; key++) {
+            first = first.put(key, key);
+        }
+        PersistentIntMap<Integer> second = first.put(5, -5).remove(700).put(20_000, 1).put(6, 6);
+
+        Set<Integer> changed = new HashSet<>();
+        second.forEachChangedKey(first, key -> assertTrue(changed.add(key)));
+        assertEquals(Set.of(5, 700, 20_000), changed);
+        first.forEachChangedKey(first, key -> fail("Версия не менялась"));
+    }
+
+    private static void assertChangedKeys(Map<Integer, Integer> expectedPrevious, Map<Integer, Integer> expectedCurrent,
+                                          PersistentIntMap<Integer> previous, PersistentIntMap<Integer> current) {
+        Set<Integer> expected = new HashSet<>();
+        for (Integer key : expectedPrevious.keySet()) {
+            if (!Objects.equals(expectedPrevious.get(key), expectedCurrent.get(key))) {
+                expected.add(key);
+            }
+        }
+        for (Integer key : expectedCurrent.keySet()) {
+            if (!expectedPrevious.containsKey(key)) {
+                expected.add(key);
+            }
+        }
+        Set<Integer> changed = new HashSet<>();
+        current.forEachChangedKey(previous, key -> assertTrue(changed.add(key), "Ключ передан дважды: " + key));
+        assertEquals(expected, changed);
+    }
+
+    private static void assertMapEquals(Map<Integer, Integer> expected, PersistentIntMap<Integer> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (Map.Entry<Integer, Integer> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), actual.get(entry.getKey()));
+        }
+        List<Integer> values = new ArrayList<>(actual.values());
+        assertEquals(expected.size(), values.size());
+        values.sort(null);
+        List<Integer> expectedValues = new ArrayList<>(expected.values());
+        expectedValues.sort(null);
+        assertEquals(expectedValues, values);
+        Map<Integer, Integer> entries = new HashMap<>();
+        actual.forEach((value, key) -> assertNull(entries.put(key, value)));
+        assertEquals(expected, entries);
+    }
+}
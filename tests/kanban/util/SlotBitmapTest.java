@@ -0,0 +1,62 @@
+package kanban.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SlotBitmapTest {
+
+    SlotBitmap bitmap;
+
+    @BeforeEach
+    void recreateBitmap() {
+        bitmap = new SlotBitmap(200);
+    }
+
+    @Test
+    void newBitmapShouldBeFree() {
+        assertEquals(200, bitmap.size());
+        assertEquals(0, bitmap.getOccupiedCount());
+        assertTrue(bitmap.isRangeFree(0, 200));
+    }
+
+    @Test
+    void occupyRangeAcrossWords() {
+        assertTrue(bitmap.tryOccupy(60, 140));
+        assertEquals(80, bitmap.getOccupiedCount());
+        assertFalse(bitmap.isOccupied(59));
+        assertTrue(bitmap.isOccupied(60));
+        assertTrue(bitmap.isOccupied(139));
+        assertFalse(bitmap.isOccupied(140));
+    }
+
+    @Test
+    void shouldNotOccupyIntersectedRange() {
+        assertTrue(bitmap.tryOccupy(10, 20));
+        assertFalse(bitmap.tryOccupy(19, 30));
+        assertFalse(bitmap.tryOccupy(0, 11));
+        assertTrue(bitmap.tryOccupy(20, 30));
+        assertEquals(20, bitmap.getOccupiedCount());
+    }
+
+    @Test
+    void releaseRange() {
+        bitmap.tryOccupy(0, 200);
+        bitmap.release(64, 128);
+        assertEquals(136, bitmap.getOccupiedCount());
+        assertTrue(bitmap.isRangeFree(64, 128));
+        assertFalse(bitmap.isRangeFree(63, 128));
+        assertFalse(bitmap.isRangeFree(64, 129));
+    }
+
+    @Test
+    void mapViewShouldReflectBitmap() {
+        bitmap.tryOccupy(5, 6);
+        var map = bitmap.asMap();
+        assertEquals(200, map.size());
+        assertFalse(map.get(5L));
+        assertTrue(map.get(6L));
+        assertNull(map.get(200L));
+    }
+}